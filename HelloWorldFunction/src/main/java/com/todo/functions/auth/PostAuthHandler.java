@@ -3,38 +3,56 @@ package com.todo.functions.auth;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.CognitoUserPoolPostAuthenticationEvent;
-import software.amazon.awssdk.services.sns.SnsClient;
-import software.amazon.awssdk.services.sns.model.PublishRequest;
-import software.amazon.awssdk.services.sns.model.PublishResponse;
+import com.todo.functions.notifications.NotificationQueue;
+import com.todo.metrics.Metrics;
+import com.todo.model.Notification;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.utils.AwsClients;
+import com.todo.utils.JsonUtils;
+import software.amazon.awssdk.services.sqs.SqsClient;
 
 import java.util.Map;
 
+/**
+ * Cognito post-authentication trigger.
+ * Only queues the sign-in notification so the sign-in is not held up by SNS;
+ * NotificationDispatcher publishes it.
+ */
 public class PostAuthHandler implements RequestHandler<CognitoUserPoolPostAuthenticationEvent, CognitoUserPoolPostAuthenticationEvent> {
 
-    private final SnsClient snsClient = SnsClient.create();
+    private final NotificationQueue notificationQueue;
+
+    public PostAuthHandler() {
+        this(AwsClients.sqs(), System.getenv("NOTIFICATION_QUEUE_URL"));
+    }
+
+    public PostAuthHandler(SqsClient sqsClient, String notificationQueueUrl) {
+        this.notificationQueue = new NotificationQueue(sqsClient, notificationQueueUrl);
+        Priming.register(new HandlerPrimer(JsonUtils.objectMapper()));
+    }
 
     @Override
     public CognitoUserPoolPostAuthenticationEvent handleRequest(CognitoUserPoolPostAuthenticationEvent event, Context context) {
-        String topicArn = System.getenv("TOPIC_ARN");
+        Metrics.begin("PostAuth", context);
+        try {
+            return process(event, context);
+        } finally {
+            Metrics.end();
+        }
+    }
 
+    private CognitoUserPoolPostAuthenticationEvent process(CognitoUserPoolPostAuthenticationEvent event, Context context) {
         // ✅ userAttributes are under request
         Map<String, String> userAttributes = event.getRequest().getUserAttributes();
 
         String username = event.getUserName();
         String email = userAttributes.get("email");
 
-        String message = String.format("User %s has successfully signed in. Email: %s", username, email);
-
         try {
-            PublishRequest request = PublishRequest.builder()
-                    .topicArn(topicArn)
-                    .message(message)
-                    .build();
-
-            PublishResponse result = snsClient.publish(request);
-            context.getLogger().log("SNS Notification Sent: " + result.messageId());
+            notificationQueue.send(Notification.signedIn(username, email));
         } catch (Exception e) {
-            context.getLogger().log("Failed to publish SNS message: " + e.getMessage());
+            context.getLogger().log("Failed to queue sign-in notification: " + e.getMessage());
         }
         return event;
     }
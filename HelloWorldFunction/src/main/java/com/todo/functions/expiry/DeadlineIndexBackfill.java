@@ -0,0 +1,132 @@
+package com.todo.functions.expiry;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.todo.metrics.Metrics;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.SweepCheckpointStore;
+import com.todo.repository.TaskRepositories;
+import com.todo.utils.AwsClients;
+import com.todo.utils.CursorUtils;
+import com.todo.utils.Futures;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One-off migration for tasks written before the DeadlineIndex existed, before it was kept
+ * in step with Status, or before UserStatusIndex was keyed on StatusTaskId: scans the tasks
+ * table for items whose DeadlineBucket is missing or no longer wanted, or that have a Status
+ * but no StatusTaskId, and reindexes them. Then it rewinds the sweep checkpoint to the oldest
+ * bucket it filed a task under so the sweeper expires the ones already overdue.
+ *
+ * Invoke with {@code {}} and then with the returned {@code cursor} until it comes back
+ * null; each invocation stops well before the function times out. Running it again is
+ * harmless, every write is conditional on the item it read.
+ */
+public class DeadlineIndexBackfill implements RequestHandler<Map<String, String>, Map<String, Object>> {
+
+    // Left for the in-flight page and the response when deciding whether to scan another
+    private static final long TIME_RESERVE_MILLIS = 30_000;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final DynamoDbTaskRepository repository;
+    private final SweepCheckpointStore checkpoint;
+
+    public DeadlineIndexBackfill() {
+        this(AwsClients.dynamoDb(), System.getenv("TABLE_NAME"), TaskRepositories.sweepCheckpointFromEnv());
+    }
+
+    public DeadlineIndexBackfill(DynamoDbClient dynamoDbClient, String tableName, SweepCheckpointStore checkpoint) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.repository = new DynamoDbTaskRepository(dynamoDbClient, tableName);
+        this.checkpoint = checkpoint;
+    }
+
+    @Override
+    public Map<String, Object> handleRequest(Map<String, String> input, Context context) {
+        Metrics.begin("DeadlineIndexBackfill", context);
+        try {
+            return process(input, context);
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private Map<String, Object> process(Map<String, String> input, Context context) {
+        String cursor = input != null ? input.get("cursor") : null;
+        Map<String, AttributeValue> exclusiveStartKey = cursor != null ? CursorUtils.decode(cursor) : null;
+        int matched = 0;
+        int reindexed = 0;
+        do {
+            ScanResponse page = dynamoDbClient.scan(scan(exclusiveStartKey));
+            List<Map<String, AttributeValue>> items = page.items();
+            List<CompletableFuture<Boolean>> writes = new ArrayList<>(items.size());
+            for (Map<String, AttributeValue> item : items) {
+                writes.add(Futures.blocking(() -> repository.reindex(item)));
+            }
+            List<Boolean> changed = Futures.allOf(writes).join();
+
+            Long oldestFiled = null;
+            for (int i = 0; i < items.size(); i++) {
+                Long bucket = TaskItemCodec.deadlineBucketOf(items.get(i));
+                if (changed.get(i)) {
+                    reindexed++;
+                    if (bucket != null && (oldestFiled == null || bucket < oldestFiled)) {
+                        oldestFiled = bucket;
+                    }
+                }
+            }
+            if (oldestFiled != null && checkpoint != null) {
+                checkpoint.rewind(oldestFiled);
+            }
+            matched += items.size();
+            exclusiveStartKey = page.hasLastEvaluatedKey() ? page.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null && context.getRemainingTimeInMillis() > TIME_RESERVE_MILLIS);
+
+        Metrics.count("Items", matched);
+        Metrics.count("Reindexed", reindexed);
+        context.getLogger().log("Backfilled task indexes: " + matched + " task(s) out of step, " + reindexed
+                + " reindexed, " + (exclusiveStartKey != null ? "more to scan" : "scan complete"));
+        Map<String, Object> result = new HashMap<>();
+        result.put("matched", matched);
+        result.put("reindexed", reindexed);
+        result.put("cursor", exclusiveStartKey != null ? CursorUtils.encode(exclusiveStartKey) : null);
+        return result;
+    }
+
+    /**
+     * Pending (or status-less) tasks with a deadline but no bucket, tasks in any other status
+     * that still have one, and tasks missing from UserStatusIndex. Only the attributes reindex
+     * decides on are read.
+     */
+    private ScanRequest scan(Map<String, AttributeValue> exclusiveStartKey) {
+        return ScanRequest.builder()
+                .tableName(tableName)
+                .filterExpression("(attribute_exists(#dl) AND ("
+                        + "(attribute_not_exists(#bk) AND (attribute_not_exists(#st) OR #st = :pending))"
+                        + " OR (attribute_exists(#bk) AND (attribute_exists(#st) AND #st <> :pending))))"
+                        + " OR (attribute_exists(#st) AND attribute_not_exists(#stid))")
+                .projectionExpression("#uid, #tid, #dl, #st, #bk, #stid")
+                .expressionAttributeNames(Map.of(
+                        "#uid", TaskItemCodec.USER_ID,
+                        "#tid", TaskItemCodec.TASK_ID,
+                        "#dl", TaskItemCodec.DEADLINE,
+                        "#st", TaskItemCodec.STATUS,
+                        "#bk", TaskItemCodec.DEADLINE_BUCKET,
+                        "#stid", TaskItemCodec.STATUS_TASK_ID))
+                .expressionAttributeValues(Map.of(":pending", AttributeValue.fromS(TaskItemCodec.DEFAULT_STATUS)))
+                .exclusiveStartKey(exclusiveStartKey)
+                .build();
+    }
+}
@@ -2,65 +2,168 @@ package com.todo.functions.expiry;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.functions.notifications.NotificationQueue;
+import com.todo.metrics.Metrics;
+import com.todo.model.Notification;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
+import com.todo.utils.AwsClients;
+import com.todo.utils.Futures;
+import com.todo.utils.JsonUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
-import software.amazon.awssdk.services.sns.SnsClient;
-import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Lambda handler for consuming SQS messages and marking tasks as expired.
- * Also notifies users via SNS.
+ * Notifications for the expired tasks are queued in one go for NotificationDispatcher.
+ * A batch is split by MessageGroupId: groups run concurrently while the messages of one group
+ * are handled in order, each update chained onto the previous one. Once a message fails, it
+ * and every later message of its group are returned as batch item failures, so FIFO order is
+ * kept on retry. With SDK_CLIENT_MODE=async no thread is held while an update is in flight;
+ * otherwise each call runs on the shared I/O pool.
  */
-public class TaskExpiryHandler implements RequestHandler<SQSEvent, Void> {
+public class TaskExpiryHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
 
-    private final DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-    private final SnsClient snsClient = SnsClient.create();
-    private final String tableName = System.getenv("TABLE_NAME");
-    private final String topicArn = System.getenv("NOTIFICATION_TOPIC_ARN");
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TaskExpiryService expiryService;
+    private final NotificationQueue notificationQueue;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+
+    public TaskExpiryHandler() {
+        this(new TaskExpiryService(TaskRepositories.fromEnv(AwsClients.asyncMode())),
+                AwsClients.asyncMode()
+                        ? new NotificationQueue(AwsClients.sqsAsync(), System.getenv("NOTIFICATION_QUEUE_URL"))
+                        : new NotificationQueue(AwsClients.sqs(), System.getenv("NOTIFICATION_QUEUE_URL")));
+    }
+
+    public TaskExpiryHandler(DynamoDbClient dynamoDbClient, SqsClient sqsClient, String tableName, String notificationQueueUrl) {
+        this(new TaskExpiryService(dynamoDbClient, tableName), new NotificationQueue(sqsClient, notificationQueueUrl));
+    }
+
+    public TaskExpiryHandler(DynamoDbAsyncClient dynamoDbClient, SqsAsyncClient sqsClient, String tableName, String notificationQueueUrl) {
+        this(new TaskExpiryService(dynamoDbClient, tableName), new NotificationQueue(sqsClient, notificationQueueUrl));
+    }
+
+    public TaskExpiryHandler(TaskRepository repository, SqsClient sqsClient, String notificationQueueUrl) {
+        this(new TaskExpiryService(repository), new NotificationQueue(sqsClient, notificationQueueUrl));
+    }
+
+    private TaskExpiryHandler(TaskExpiryService expiryService, NotificationQueue notificationQueue) {
+        this.expiryService = expiryService;
+        this.notificationQueue = notificationQueue;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
 
     @Override
-    public Void handleRequest(SQSEvent event, Context context) {
-        event.getRecords().forEach(message -> {
-            try {
-                Map<String, Object> payload = objectMapper.readValue(message.getBody(), Map.class);
-                String userId = (String) payload.get("userId");
-                String taskId = (String) payload.get("taskId");
-                String dueDate = (String) payload.get("dueDate");
-
-                // Update DynamoDB status → EXPIRED
-                Map<String, AttributeValue> key = new HashMap<>();
-                key.put("UserId", AttributeValue.builder().s(userId).build());
-                key.put("TaskId", AttributeValue.builder().s(taskId).build());
-
-                dynamoDbClient.updateItem(UpdateItemRequest.builder()
-                        .tableName(tableName)
-                        .key(key)
-                        .updateExpression("SET #st = :expired")
-                        .expressionAttributeNames(Map.of("#st", "Status"))
-                        .expressionAttributeValues(Map.of(":expired", AttributeValue.builder().s("EXPIRED").build()))
-                        .build());
-
-                // Publish notification to SNS
-                String msg = String.format("Task %s has expired! Due: %s", taskId, dueDate);
-                snsClient.publish(PublishRequest.builder()
-                        .topicArn(topicArn)
-                        .subject("Task Expired")
-                        .message(msg)
-                        .build());
-
-                context.getLogger().log("Task marked expired and notification sent: " + taskId);
-
-            } catch (Exception e) {
-                context.getLogger().log("Error in TaskExpiryHandler: " + e.getMessage());
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        Metrics.begin("TaskExpiryHandler", context);
+        try {
+            Metrics.count("Items", event.getRecords().size());
+            return process(event, context);
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private SQSBatchResponse process(SQSEvent event, Context context) {
+        Map<String, List<SQSEvent.SQSMessage>> groups = new LinkedHashMap<>();
+        for (SQSEvent.SQSMessage message : event.getRecords()) {
+            groups.computeIfAbsent(groupOf(message), group -> new ArrayList<>()).add(message);
+        }
+
+        List<Notification> notifications = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<List<SQSBatchResponse.BatchItemFailure>>> results = new ArrayList<>(groups.size());
+        for (List<SQSEvent.SQSMessage> group : groups.values()) {
+            results.add(processFrom(group, 0, notifications, context));
+        }
+
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        for (List<SQSBatchResponse.BatchItemFailure> groupFailures : Futures.allOf(results).join()) {
+            failures.addAll(groupFailures);
+        }
+
+        Metrics.count("Expired", notifications.size());
+        if (!notifications.isEmpty()) {
+            int unsent = notificationQueue.sendAll(notifications);
+            if (unsent > 0) {
+                context.getLogger().log("Could not queue " + unsent + " expiry notification(s)");
+            }
+        }
+        return new SQSBatchResponse(failures);
+    }
+
+    /**
+     * Handles a message group in order from {@code index}. Stops at the first failure and
+     * reports that message and the rest of the group.
+     */
+    private CompletableFuture<List<SQSBatchResponse.BatchItemFailure>> processFrom(List<SQSEvent.SQSMessage> group, int index,
+                                                                                   List<Notification> notifications, Context context) {
+        if (index == group.size()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return expire(group.get(index), context)
+                .handle((notification, error) -> {
+                    if (error != null) {
+                        context.getLogger().log("Error in TaskExpiryHandler: " + Futures.cause(error).getMessage());
+                        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+                        for (int j = index; j < group.size(); j++) {
+                            failures.add(new SQSBatchResponse.BatchItemFailure(group.get(j).getMessageId()));
+                        }
+                        return CompletableFuture.completedFuture(failures);
+                    }
+                    if (notification != null) {
+                        notifications.add(notification);
+                    }
+                    return processFrom(group, index + 1, notifications, context);
+                })
+                .thenCompose(next -> next);
+    }
+
+    /** Completes with the notification to send, or null if this message did not expire anything. */
+    private CompletableFuture<Notification> expire(SQSEvent.SQSMessage message, Context context) {
+        String userId;
+        String taskId;
+        long deadline;
+        try {
+            Map<String, Object> payload = objectMapper.readValue(message.getBody(), Map.class);
+            userId = (String) payload.get("userId");
+            taskId = (String) payload.get("taskId");
+            deadline = Long.parseLong(payload.get("deadline").toString());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long now = System.currentTimeMillis();
+        if (deadline > now) {
+            // Not due yet; the sweeper picks it up from the DeadlineIndex
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return expiryService.expireAsync(userId, taskId, now).thenApply(expired -> {
+            if (!expired) {
+                return null;
             }
+            context.getLogger().log("Task marked expired: " + taskId);
+            return Notification.taskExpired(userId, taskId, deadline);
         });
-        return null;
+    }
+
+    // Messages from a standard queue carry no group, so each one is its own group
+    private static String groupOf(SQSEvent.SQSMessage message) {
+        String group = message.getAttributes() != null ? message.getAttributes().get("MessageGroupId") : null;
+        return group != null ? "group:" + group : "message:" + message.getMessageId();
     }
 }
@@ -0,0 +1,48 @@
+package com.todo.functions.expiry;
+
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.TaskRepository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Marks a single task as expired. Shared by the SQS consumer and the scheduled sweeper so
+ * both apply the same rules; callers queue the owner's notification when this returns true.
+ * Built with a {@link DynamoDbAsyncClient}, {@link #expireAsync} does not hold a thread
+ * while the update is in flight.
+ * The conditional update itself is {@link TaskRepository#expire}, so it works against any
+ * storage engine.
+ */
+public class TaskExpiryService {
+
+    private final TaskRepository repository;
+
+    public TaskExpiryService(DynamoDbClient dynamoDbClient, String tableName) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName));
+    }
+
+    public TaskExpiryService(DynamoDbAsyncClient asyncClient, String tableName) {
+        this(new DynamoDbTaskRepository(asyncClient, tableName));
+    }
+
+    public TaskExpiryService(TaskRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Sets Status to EXPIRED and drops the task from the DeadlineIndex, but only if it is still
+     * Pending and its stored deadline has passed. Returns false when the condition does not
+     * hold, so repeated deliveries and overlapping sweeps do not notify twice, and tasks that
+     * were completed in the meantime are left alone.
+     */
+    public boolean expire(String userId, String taskId, long nowMillis) {
+        return repository.expire(userId, taskId, nowMillis);
+    }
+
+    /** {@link #expire} as a future; with a blocking client the call runs on the shared I/O pool. */
+    public CompletableFuture<Boolean> expireAsync(String userId, String taskId, long nowMillis) {
+        return repository.expireAsync(userId, taskId, nowMillis);
+    }
+}
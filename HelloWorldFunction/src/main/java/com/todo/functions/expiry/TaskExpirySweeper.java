@@ -0,0 +1,205 @@
+package com.todo.functions.expiry;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.functions.notifications.NotificationQueue;
+import com.todo.metrics.Metrics;
+import com.todo.model.Notification;
+import com.todo.model.TaskItemCodec;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.SweepCheckpointStore;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
+import com.todo.utils.AwsClients;
+import com.todo.utils.Futures;
+import com.todo.utils.JsonUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scheduled Lambda that expires every task whose deadline has passed.
+ * Pending deadlines are filed in the sparse DeadlineIndex under the minute they fall in.
+ * Each run resumes from the bucket after the sweep checkpoint, queries the buckets up to the
+ * current minute in parallel for due tasks and expires them concurrently, so the cost of
+ * scheduling no longer depends on how often tasks are edited and deadlines of any length are
+ * honoured. The checkpoint then moves to the last bucket before the first one that could not
+ * be queried or had a task fail to expire; a run that is skipped or fails is made up by the
+ * next one, MAX_CATCH_UP_BUCKETS at a time. The last SWEEP_LOOKBACK_MINUTES buckets are
+ * queried again on every run to pick up index entries that arrived late. A bucket drains as
+ * its tasks expire, which keeps those repeat queries cheap.
+ */
+public class TaskExpirySweeper implements RequestHandler<ScheduledEvent, Void> {
+
+    static final int DEFAULT_LOOKBACK_MINUTES = 15;
+
+    // Buckets behind the lookback window caught up per run, after downtime or a failing run
+    static final int MAX_CATCH_UP_BUCKETS = 120;
+
+    // Tasks expired per pool task; keeps the fan-out bounded for large backlogs
+    private static final int EXPIRY_SLICE = 25;
+
+    private final TaskRepository repository;
+    private final SweepCheckpointStore checkpoint;
+    private final TaskExpiryService expiryService;
+    private final NotificationQueue notificationQueue;
+    private final Clock clock;
+    private final int lookbackMinutes;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+
+    public TaskExpirySweeper() {
+        this(TaskRepositories.fromEnv(), TaskRepositories.sweepCheckpointFromEnv(), AwsClients.sqs(),
+                System.getenv("NOTIFICATION_QUEUE_URL"), Clock.systemUTC(), lookbackFromEnv());
+    }
+
+    public TaskExpirySweeper(DynamoDbClient dynamoDbClient, SqsClient sqsClient, String tableName, String notificationQueueUrl,
+                             Clock clock, int lookbackMinutes) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), null, sqsClient, notificationQueueUrl, clock, lookbackMinutes);
+    }
+
+    /** With a null {@code checkpoint} every run sweeps just the lookback window. */
+    public TaskExpirySweeper(TaskRepository repository, SweepCheckpointStore checkpoint, SqsClient sqsClient,
+                             String notificationQueueUrl, Clock clock, int lookbackMinutes) {
+        this.repository = repository;
+        this.checkpoint = checkpoint;
+        this.expiryService = new TaskExpiryService(repository);
+        this.notificationQueue = new NotificationQueue(sqsClient, notificationQueueUrl);
+        this.clock = clock;
+        this.lookbackMinutes = lookbackMinutes;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
+
+    @Override
+    public Void handleRequest(ScheduledEvent event, Context context) {
+        Metrics.begin("TaskExpirySweeper", context);
+        try {
+            return process(event, context);
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private Void process(ScheduledEvent event, Context context) {
+        long now = clock.millis();
+        long currentBucket = TaskItemCodec.deadlineBucket(now);
+        Long sweptThrough = checkpoint != null ? checkpoint.sweptThrough() : null;
+        List<Long> buckets = bucketsToSweep(sweptThrough, currentBucket);
+        // Buckets that could not be queried, or hold a task that failed to expire
+        Set<Long> failed = ConcurrentHashMap.newKeySet();
+
+        List<CompletableFuture<List<Map<String, AttributeValue>>>> queries = new ArrayList<>(buckets.size());
+        for (long bucket : buckets) {
+            queries.add(Futures.blocking(() -> repository.dueForExpiry(bucket, now))
+                    .exceptionally(error -> {
+                        context.getLogger().log("Error querying deadline bucket " + bucket + ": " + Futures.cause(error).getMessage());
+                        failed.add(bucket);
+                        return List.of();
+                    }));
+        }
+        List<Map<String, AttributeValue>> due = new ArrayList<>();
+        for (List<Map<String, AttributeValue>> bucketItems : Futures.allOf(queries).join()) {
+            due.addAll(bucketItems);
+        }
+
+        List<CompletableFuture<List<Notification>>> expiries = new ArrayList<>();
+        for (int start = 0; start < due.size(); start += EXPIRY_SLICE) {
+            List<Map<String, AttributeValue>> slice = due.subList(start, Math.min(start + EXPIRY_SLICE, due.size()));
+            expiries.add(Futures.blocking(() -> expireAll(slice, now, failed, context)));
+        }
+        List<Notification> notifications = new ArrayList<>();
+        for (List<Notification> expired : Futures.allOf(expiries).join()) {
+            notifications.addAll(expired);
+        }
+
+        Metrics.count("Items", due.size());
+        Metrics.count("Expired", notifications.size());
+        int unsent = notifications.isEmpty() ? 0 : notificationQueue.sendAll(notifications);
+        Long advancedTo = advance(sweptThrough, buckets, failed, currentBucket);
+        context.getLogger().log("Swept " + buckets.size() + " deadline bucket(s): "
+                + due.size() + " due, " + notifications.size() + " expired, " + unsent + " notification(s) not queued, "
+                + failed.size() + " bucket(s) failed, checkpoint " + (advancedTo != null ? advancedTo : sweptThrough));
+        return null;
+    }
+
+    /**
+     * The buckets after the checkpoint, at most MAX_CATCH_UP_BUCKETS of them, followed by
+     * the lookback window up to the current bucket; without a checkpoint just the window.
+     */
+    private List<Long> bucketsToSweep(Long sweptThrough, long currentBucket) {
+        long windowStart = currentBucket - lookbackMinutes;
+        List<Long> buckets = new ArrayList<>();
+        if (sweptThrough != null && sweptThrough + 1 < windowStart) {
+            long catchUpEnd = Math.min(windowStart, sweptThrough + 1 + MAX_CATCH_UP_BUCKETS);
+            for (long bucket = sweptThrough + 1; bucket < catchUpEnd; bucket++) {
+                buckets.add(bucket);
+            }
+        }
+        for (long bucket = windowStart; bucket <= currentBucket; bucket++) {
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    /**
+     * Moves the checkpoint through the buckets swept without a gap or a failure since the
+     * last one. The current bucket is never passed: deadlines later in this minute are not
+     * due yet. Returns the new checkpoint, or null when it stayed where it was.
+     */
+    private Long advance(Long sweptThrough, List<Long> buckets, Set<Long> failed, long currentBucket) {
+        if (checkpoint == null) {
+            return null;
+        }
+        Long through = sweptThrough;
+        for (long bucket : buckets) {
+            boolean contiguous = through == null || bucket == through + 1;
+            if (bucket >= currentBucket || failed.contains(bucket) || !contiguous) {
+                break;
+            }
+            through = bucket;
+        }
+        if (through == null || through.equals(sweptThrough)) {
+            return null;
+        }
+        return checkpoint.advance(sweptThrough, through) ? through : null;
+    }
+
+    /**
+     * Expires a slice of due tasks and returns the notifications for the ones this run
+     * expired. A failure is logged and its bucket recorded in {@code failed}; the task stays
+     * in the index and the checkpoint is held before it until a later run expires it.
+     */
+    private List<Notification> expireAll(List<Map<String, AttributeValue>> items, long now, Set<Long> failed, Context context) {
+        List<Notification> expired = new ArrayList<>();
+        for (Map<String, AttributeValue> item : items) {
+            String userId = item.get(TaskItemCodec.USER_ID).s();
+            String taskId = item.get(TaskItemCodec.TASK_ID).s();
+            long deadline = Long.parseLong(item.get(TaskItemCodec.DEADLINE).n());
+            try {
+                if (expiryService.expire(userId, taskId, now)) {
+                    expired.add(Notification.taskExpired(userId, taskId, deadline));
+                }
+            } catch (Exception e) {
+                context.getLogger().log("Error expiring task " + taskId + ": " + e.getMessage());
+                failed.add(TaskItemCodec.deadlineBucket(deadline));
+            }
+        }
+        return expired;
+    }
+
+    private static int lookbackFromEnv() {
+        String value = System.getenv("SWEEP_LOOKBACK_MINUTES");
+        return value != null && !value.isEmpty() ? Integer.parseInt(value) : DEFAULT_LOOKBACK_MINUTES;
+    }
+}
@@ -0,0 +1,154 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.TaskItemCodec;
+import com.todo.model.TaskProjection;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
+import com.todo.utils.CorsUtils;
+import com.todo.utils.JsonUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lambda handler for fetching several of the caller's tasks in one round trip.
+ * Triggered by GET /tasks?ids=a,b,c[&fields=description,status], which
+ * {@link GetTasksHandler} hands over to this class.
+ * Resolves up to 100 keys with a single BatchGetItem, retries unprocessed keys, and
+ * returns the found tasks in the order they were requested plus the ids that do not exist.
+ */
+public class BatchGetTasksHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    static final int MAX_IDS = 100;
+
+    private final TaskRepository repository;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+
+    public BatchGetTasksHandler() {
+        this(TaskRepositories.fromEnv());
+    }
+
+    public BatchGetTasksHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName));
+    }
+
+    public BatchGetTasksHandler(TaskRepository repository) {
+        this.repository = repository;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        Map<String, String> headers = CorsUtils.createCorsHeaders();
+
+        try {
+            String userId = extractUserIdFromRequest(request);
+
+            Map<String, String> queryParams = request.getQueryStringParameters() != null
+                    ? request.getQueryStringParameters()
+                    : Map.of();
+
+            Set<String> taskIds;
+            TaskProjection projection;
+            try {
+                taskIds = parseIds(queryParams.get("ids"));
+                projection = TaskProjection.parse(queryParams.get("fields"));
+            } catch (IllegalArgumentException e) {
+                return badRequest(headers, e.getMessage());
+            }
+
+            // Unprocessed keys are retried inside the repository; null means some never came back
+            Map<String, Map<String, AttributeValue>> itemsByTaskId = repository.getAll(userId, taskIds, projection);
+            if (itemsByTaskId == null) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(503)
+                        .withHeaders(headers)
+                        .withBody("{\"error\":\"Throttled, retry later\"}");
+            }
+
+            List<Object> tasks = new ArrayList<>(itemsByTaskId.size());
+            List<String> missing = new ArrayList<>();
+            for (String taskId : taskIds) {
+                Map<String, AttributeValue> item = itemsByTaskId.get(taskId);
+                if (item == null) {
+                    missing.add(taskId);
+                } else {
+                    tasks.add(projection != null ? projection.toJson(item) : TaskItemCodec.fromItem(item));
+                }
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("tasks", tasks);
+            body.put("missing", missing);
+
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(headers)
+                    .withBody(objectMapper.writeValueAsString(body));
+
+        } catch (Exception e) {
+            context.getLogger().log("Error in BatchGetTasksHandler: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withHeaders(headers)
+                    .withBody("{\"error\":\"Could not fetch tasks\"}");
+        }
+    }
+
+    /**
+     * Comma-separated task ids in request order. Duplicates are collapsed because
+     * BatchGetItem rejects a request that names the same key twice.
+     */
+    private Set<String> parseIds(String idsParam) {
+        Set<String> taskIds = new LinkedHashSet<>();
+        if (idsParam != null) {
+            for (String id : idsParam.split(",")) {
+                String trimmed = id.trim();
+                if (!trimmed.isEmpty()) {
+                    taskIds.add(trimmed);
+                }
+            }
+        }
+        if (taskIds.isEmpty()) {
+            throw new IllegalArgumentException("ids must list at least one taskId");
+        }
+        if (taskIds.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids are allowed per request");
+        }
+        return taskIds;
+    }
+
+    private String extractUserIdFromRequest(APIGatewayProxyRequestEvent request) {
+        try {
+            if (request.getRequestContext().getAuthorizer() != null &&
+                    request.getRequestContext().getAuthorizer().get("claims") != null) {
+                Map<String, Object> claims = (Map<String, Object>) request.getRequestContext().getAuthorizer().get("claims");
+                return (String) claims.get("sub");
+            }
+            return "anonymous";
+        } catch (Exception e) {
+            return "anonymous";
+        }
+    }
+
+    private APIGatewayProxyResponseEvent badRequest(Map<String, String> headers, String message) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(400)
+                .withHeaders(headers)
+                .withBody(JsonUtils.errorBody(message));
+    }
+}
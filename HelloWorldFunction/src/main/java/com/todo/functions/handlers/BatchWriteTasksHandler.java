@@ -0,0 +1,334 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.metrics.Metrics;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
+import com.todo.utils.CorsUtils;
+import com.todo.utils.Futures;
+import com.todo.utils.JsonUtils;
+import com.todo.utils.ResponseCache;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lambda handler for bulk task writes.
+ * Triggered by POST /tasks/batch with {"operations": [...]}, where each operation is one of
+ *   {"op": "create", "description": "..."}
+ *   {"op": "update", "taskId": "...", "description": "...", "status": "...", "deadline": epochMillis, "version": n}
+ *   {"op": "delete", "taskId": "..."}
+ * Creates and deletes are written in 25-item BatchWriteItem chunks issued concurrently.
+ * BatchWriteItem can only put whole items, so updates go through the same conditional
+ * UpdateItem as PUT /tasks/{taskId}, concurrently alongside the chunks: omitted fields are
+ * kept, unknown tasks get 404, and a stale "version" gets 409. The response reports a result
+ * for every operation in request order.
+ */
+public class BatchWriteTasksHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    static final int MAX_OPERATIONS = 500;
+    static final int CHUNK_SIZE = 25;
+
+    private final TaskRepository repository;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+    private final ResponseCache cache;
+
+    public BatchWriteTasksHandler() {
+        this(TaskRepositories.fromEnv(), ResponseCache.fromEnv());
+    }
+
+    public BatchWriteTasksHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, ResponseCache.fromEnv());
+    }
+
+    public BatchWriteTasksHandler(DynamoDbClient dynamoDbClient, String tableName, ResponseCache cache) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), cache);
+    }
+
+    /** {@code cache} is the read handlers' cache; the caller's entries are dropped after every write. */
+    public BatchWriteTasksHandler(TaskRepository repository, ResponseCache cache) {
+        this.repository = repository;
+        this.cache = cache;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        Map<String, String> headers = CorsUtils.createCorsHeaders();
+
+        try {
+            String userId = extractUserIdFromRequest(request);
+
+            Map<String, Object> body = objectMapper.readValue(request.getBody(), Map.class);
+            Object operationsValue = body.get("operations");
+            if (!(operationsValue instanceof List) || ((List<?>) operationsValue).isEmpty()) {
+                return badRequest(headers, "operations must be a non-empty array");
+            }
+            List<?> operations = (List<?>) operationsValue;
+            if (operations.size() > MAX_OPERATIONS) {
+                return badRequest(headers, "At most " + MAX_OPERATIONS + " operations are allowed per batch");
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>(operations.size());
+            List<PendingWrite> pending = new ArrayList<>(operations.size());
+            List<PendingUpdate> updates = new ArrayList<>();
+            Set<String> seenTaskIds = new HashSet<>();
+
+            for (int index = 0; index < operations.size(); index++) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("index", index);
+                results.add(result);
+
+                Object operation = toOperation(userId, operations.get(index), result);
+                if (operation == null) {
+                    continue;
+                }
+                // DynamoDB rejects a whole BatchWriteItem call that touches the same key twice, and
+                // updates run concurrently, so the order of two operations on one task is undefined
+                String taskId = (String) result.get("taskId");
+                if (!seenTaskIds.add(taskId)) {
+                    fail(result, 400, "Duplicate taskId in batch");
+                    continue;
+                }
+                if (operation instanceof PendingUpdate) {
+                    updates.add((PendingUpdate) operation);
+                } else {
+                    pending.add((PendingWrite) operation);
+                }
+            }
+
+            Metrics.count("Items", pending.size() + updates.size());
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (PendingUpdate update : updates) {
+                writes.add(Futures.blocking(() -> update(userId, update, context)));
+            }
+            for (int start = 0; start < pending.size(); start += CHUNK_SIZE) {
+                List<PendingWrite> chunk = pending.subList(start, Math.min(start + CHUNK_SIZE, pending.size()));
+                writes.add(Futures.blocking(() -> writeChunk(chunk, context)));
+            }
+            Futures.allOf(writes).join();
+            if (!writes.isEmpty()) {
+                cache.invalidate(userId);
+            }
+
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(headers)
+                    .withBody(objectMapper.writeValueAsString(Map.of("results", results)));
+
+        } catch (Exception e) {
+            context.getLogger().log("Error in BatchWriteTasksHandler: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withHeaders(headers)
+                    .withBody("{\"error\":\"Could not process batch\"}");
+        }
+    }
+
+    /**
+     * Validates one operation and turns it into a {@link PendingWrite} for BatchWriteItem or a
+     * {@link PendingUpdate}. Invalid operations are recorded as failed in {@code result} and
+     * return null.
+     */
+    private Object toOperation(String userId, Object operationValue, Map<String, Object> result) {
+        if (!(operationValue instanceof Map)) {
+            fail(result, 400, "Operation must be an object");
+            return null;
+        }
+        Map<String, Object> operation = (Map<String, Object>) operationValue;
+        String op = operation.get("op") instanceof String ? (String) operation.get("op") : "";
+        result.put("op", op);
+
+        switch (op) {
+            case "create": {
+                Task task = new Task(userId, stringOrNull(operation.get("description")));
+                result.put("taskId", task.getTaskId());
+                result.put("task", task);
+                return new PendingWrite(task.getTaskId(), 201, result, WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(TaskItemCodec.toItem(task)).build())
+                        .build());
+            }
+            case "update": {
+                String taskId = stringOrNull(operation.get("taskId"));
+                if (taskId == null || taskId.isEmpty()) {
+                    fail(result, 400, "taskId is required");
+                    return null;
+                }
+                result.put("taskId", taskId);
+                String description = stringOrNull(operation.get("description"));
+                String status = stringOrNull(operation.get("status"));
+                Long deadline = operation.get("deadline") instanceof Number
+                        ? ((Number) operation.get("deadline")).longValue()
+                        : null;
+                if (description == null && status == null && deadline == null) {
+                    fail(result, 400, "No valid fields provided for update");
+                    return null;
+                }
+                Object version = operation.get("version");
+                Long expectedVersion;
+                if (version == null) {
+                    expectedVersion = null;
+                } else if (version instanceof Number) {
+                    expectedVersion = ((Number) version).longValue();
+                } else {
+                    fail(result, 400, "version must be a number");
+                    return null;
+                }
+                return new PendingUpdate(taskId, description, status, deadline, expectedVersion, result);
+            }
+            case "delete": {
+                String taskId = stringOrNull(operation.get("taskId"));
+                if (taskId == null || taskId.isEmpty()) {
+                    fail(result, 400, "taskId is required");
+                    return null;
+                }
+                result.put("taskId", taskId);
+                return new PendingWrite(taskId, 200, result, WriteRequest.builder()
+                        .deleteRequest(DeleteRequest.builder().key(TaskItemCodec.key(userId, taskId)).build())
+                        .build());
+            }
+            default:
+                fail(result, 400, "op must be one of create, update, delete");
+                return null;
+        }
+    }
+
+    /**
+     * Writes up to 25 operations; the repository retries whatever could not be written at
+     * first. Each chunk only touches its own result maps.
+     */
+    private void writeChunk(List<PendingWrite> chunk, Context context) {
+        List<WriteRequest> requests = new ArrayList<>(chunk.size());
+        for (PendingWrite write : chunk) {
+            requests.add(write.request);
+        }
+
+        try {
+            Set<String> unprocessed = repository.writeAll(requests);
+            for (PendingWrite write : chunk) {
+                if (unprocessed.contains(write.taskId)) {
+                    fail(write.result, 503, "Throttled, retry later");
+                } else {
+                    write.result.put("statusCode", write.successCode);
+                }
+            }
+        } catch (Exception e) {
+            context.getLogger().log("Error writing batch chunk: " + e.getMessage());
+            for (PendingWrite write : chunk) {
+                fail(write.result, 500, "Could not write task");
+            }
+        }
+    }
+
+    /**
+     * Applies one update with the same conditions as PUT /tasks/{taskId}; a failed condition
+     * costs one more read to tell a missing task from a stale version.
+     */
+    private void update(String userId, PendingUpdate update, Context context) {
+        Map<String, Object> result = update.result;
+        try {
+            Map<String, AttributeValue> attributes;
+            try {
+                attributes = repository.update(userId, update.taskId, update.description, update.status,
+                        update.deadline, update.expectedVersion);
+            } catch (ConditionalCheckFailedException e) {
+                Long current = repository.version(userId, update.taskId, true);
+                if (current == null) {
+                    fail(result, 404, "Task not found");
+                } else {
+                    fail(result, 409, "Task was modified by another request");
+                    result.put("version", current);
+                }
+                return;
+            }
+            result.put("statusCode", 200);
+            result.put("task", TaskItemCodec.fromItem(attributes));
+        } catch (Exception e) {
+            context.getLogger().log("Error updating task " + update.taskId + ": " + e.getMessage());
+            fail(result, 500, "Could not write task");
+        }
+    }
+
+    private static void fail(Map<String, Object> result, int statusCode, String error) {
+        result.remove("task");
+        result.put("statusCode", statusCode);
+        result.put("error", error);
+    }
+
+    private static String stringOrNull(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private String extractUserIdFromRequest(APIGatewayProxyRequestEvent request) {
+        try {
+            if (request.getRequestContext().getAuthorizer() != null &&
+                    request.getRequestContext().getAuthorizer().get("claims") != null) {
+                Map<String, Object> claims = (Map<String, Object>) request.getRequestContext().getAuthorizer().get("claims");
+                return (String) claims.get("sub");
+            }
+            return "anonymous";
+        } catch (Exception e) {
+            return "anonymous";
+        }
+    }
+
+    private APIGatewayProxyResponseEvent badRequest(Map<String, String> headers, String message) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(400)
+                .withHeaders(headers)
+                .withBody(JsonUtils.errorBody(message));
+    }
+
+    private static final class PendingWrite {
+        final String taskId;
+        final int successCode;
+        final Map<String, Object> result;
+        final WriteRequest request;
+
+        PendingWrite(String taskId, int successCode, Map<String, Object> result, WriteRequest request) {
+            this.taskId = taskId;
+            this.successCode = successCode;
+            this.result = result;
+            this.request = request;
+        }
+    }
+
+    private static final class PendingUpdate {
+        final String taskId;
+        final String description;
+        final String status;
+        final Long deadline;
+        final Long expectedVersion;
+        final Map<String, Object> result;
+
+        PendingUpdate(String taskId, String description, String status, Long deadline, Long expectedVersion,
+                      Map<String, Object> result) {
+            this.taskId = taskId;
+            this.description = description;
+            this.status = status;
+            this.deadline = deadline;
+            this.expectedVersion = expectedVersion;
+            this.result = result;
+        }
+    }
+}
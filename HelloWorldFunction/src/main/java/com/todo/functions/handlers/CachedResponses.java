@@ -0,0 +1,49 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.utils.ResponseCache;
+import com.todo.utils.ResponseCompression;
+
+import java.util.Map;
+
+/**
+ * Turns a {@link ResponseCache.Entry} into a response for the read handlers: 304 with no
+ * body when the client already holds the representation, 200 otherwise. Both carry the ETag.
+ * Large bodies are compressed when the client accepts gzip or deflate and asks for
+ * application/json first, so that API Gateway decodes the base64 body; the compressed
+ * representation gets its own ETag with the encoding appended, and either form revalidates.
+ */
+final class CachedResponses {
+
+    private CachedResponses() {}
+
+    static APIGatewayProxyResponseEvent respond(ResponseCache cache, ResponseCache.Entry entry,
+                                                APIGatewayProxyRequestEvent request, Map<String, String> headers) {
+        String encoding = entry.body.length() >= ResponseCompression.minBytes()
+                && ResponseCompression.decodedByGateway(ResponseCache.header(request.getHeaders(), "Accept"))
+                ? ResponseCompression.negotiate(ResponseCache.header(request.getHeaders(), "Accept-Encoding"))
+                : null;
+        headers.put("ETag", encoding != null ? ResponseCache.encodedEtag(entry.etag, encoding) : entry.etag);
+        headers.put("Vary", "Accept, Accept-Encoding");
+        if (ResponseCache.matches(ResponseCache.header(request.getHeaders(), "If-None-Match"), entry.etag)) {
+            cache.recordNotModified(entry);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(304)
+                    .withHeaders(headers);
+        }
+        if (encoding != null) {
+            headers.put("Content-Type", "application/json");
+            headers.put("Content-Encoding", encoding);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(headers)
+                    .withIsBase64Encoded(true)
+                    .withBody(entry.encoded(encoding));
+        }
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withHeaders(headers)
+                .withBody(entry.body);
+    }
+}
@@ -7,31 +7,62 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.metrics.Metrics;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.IdempotencyRecord;
+import com.todo.repository.IdempotencyStore;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
 import com.todo.utils.CorsUtils;   // ✅ using your CorsUtils
+import com.todo.utils.JsonUtils;
+import com.todo.utils.ResponseCache;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 
-import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Creates a task. A request carrying an Idempotency-Key header is run at most once per key;
+ * retries get the response of the first attempt (see {@link Idempotency}).
+ */
 public class CreateTaskHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private final DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-    private final String tableName = System.getenv("TABLE_NAME");
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TaskRepository repository;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+    private final ResponseCache cache;
+    private final Idempotency idempotency;
+
+    public CreateTaskHandler() {
+        this(TaskRepositories.fromEnv(), ResponseCache.fromEnv(), TaskRepositories.idempotencyFromEnv());
+    }
+
+    public CreateTaskHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, ResponseCache.fromEnv());
+    }
+
+    public CreateTaskHandler(DynamoDbClient dynamoDbClient, String tableName, ResponseCache cache) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), cache);
+    }
+
+    /** {@code cache} is the read handlers' cache; the caller's entries are dropped after every write. */
+    public CreateTaskHandler(TaskRepository repository, ResponseCache cache) {
+        this(repository, cache, null);
+    }
+
+    /** Without an {@code idempotencyStore} the Idempotency-Key header is ignored. */
+    public CreateTaskHandler(TaskRepository repository, ResponseCache cache, IdempotencyStore idempotencyStore) {
+        this.repository = repository;
+        this.cache = cache;
+        this.idempotency = Idempotency.fromEnv(idempotencyStore);
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        IdempotencyRecord claim = null;
         try {
-            // ✅ Handle preflight OPTIONS request
-            if (CorsUtils.isPreflightRequest(request.getHttpMethod())) {
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(200)
-                        .withHeaders(CorsUtils.createCorsHeaders())
-                        .withBody("");
-            }
-
             // Deserialize request body
             Map<String, Object> body = objectMapper.readValue(request.getBody(), Map.class);
             String description = (String) body.get("description");
@@ -41,35 +72,69 @@ public class CreateTaskHandler implements RequestHandler<APIGatewayProxyRequestE
                     ? (String) ((Map<String, Object>) request.getRequestContext().getAuthorizer().get("claims")).get("sub")
                     : "anonymous";
 
+            String idempotencyKey = idempotency != null ? ResponseCache.header(request.getHeaders(), Idempotency.HEADER) : null;
+            if (idempotencyKey != null) {
+                if (!Idempotency.isValidKey(idempotencyKey)) {
+                    return new APIGatewayProxyResponseEvent()
+                            .withStatusCode(400)
+                            .withHeaders(CorsUtils.createCorsHeaders())
+                            .withBody("{\"error\":\"Idempotency-Key must be 1 to " + Idempotency.MAX_KEY_LENGTH + " characters\"}");
+                }
+                claim = idempotency.newClaim(userId, idempotencyKey, request.getBody());
+                APIGatewayProxyResponseEvent earlier = idempotency.claim(claim);
+                if (earlier != null) {
+                    return earlier;
+                }
+            } else {
+                // Each of these is a write a retry would repeat
+                Metrics.count("UnkeyedCreates", 1);
+            }
+
             // Create task
             Task task = new Task(userId, description);
 
-            // Build DynamoDB item
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("UserId", AttributeValue.builder().s(task.getUserId()).build());
-            item.put("TaskId", AttributeValue.builder().s(task.getTaskId()).build());
-            item.put("Description", AttributeValue.builder().s(task.getDescription()).build());
-            item.put("Status", AttributeValue.builder().s(task.getStatus()).build());
-            item.put("Deadline", AttributeValue.builder().n(task.getDeadline().toString()).build());
-            item.put("ExpireAt", AttributeValue.builder().n(task.getExpireAt().toString()).build());
+            String responseBody = objectMapper.writeValueAsString(task);
 
-            dynamoDbClient.putItem(PutItemRequest.builder()
-                    .tableName(tableName)
-                    .item(item)
-                    .build());
+            repository.put(TaskItemCodec.toItem(task));
+            cache.invalidate(userId);
+
+            if (claim != null) {
+                complete(claim, responseBody, context);
+            }
 
             // ✅ Success response with CORS headers
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(201)
                     .withHeaders(CorsUtils.createCorsHeaders())
-                    .withBody(objectMapper.writeValueAsString(task));
+                    .withBody(responseBody);
 
         } catch (Exception e) {
             context.getLogger().log("Error in CreateTaskHandler: " + e.getMessage());
+            if (claim != null) {
+                release(claim, context);
+            }
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
                     .withHeaders(CorsUtils.createCorsHeaders())
                     .withBody("{\"error\":\"Could not create task\"}");
         }
     }
+
+    // The task is written by now, so a failure here must not turn the response into an error
+    private void complete(IdempotencyRecord claim, String responseBody, Context context) {
+        try {
+            idempotency.complete(claim, 201, responseBody);
+        } catch (Exception e) {
+            context.getLogger().log("Error in CreateTaskHandler: could not store idempotent response: " + e.getMessage());
+        }
+    }
+
+    private void release(IdempotencyRecord claim, Context context) {
+        try {
+            idempotency.release(claim);
+        } catch (Exception e) {
+            // The claim lapses on its own after Idempotency.IN_PROGRESS_SECONDS
+            context.getLogger().log("Error in CreateTaskHandler: could not release idempotency key: " + e.getMessage());
+        }
+    }
 }
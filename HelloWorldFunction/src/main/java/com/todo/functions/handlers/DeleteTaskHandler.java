@@ -4,12 +4,16 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
 import com.todo.utils.CorsUtils; // ✅ Import CORS utils
+import com.todo.utils.JsonUtils;
+import com.todo.utils.ResponseCache;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -18,20 +22,31 @@ import java.util.Map;
  */
 public class DeleteTaskHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private final DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-    private final String tableName = System.getenv("TABLE_NAME");
+    private final TaskRepository repository;
+    private final ResponseCache cache;
+
+    public DeleteTaskHandler() {
+        this(TaskRepositories.fromEnv(), ResponseCache.fromEnv());
+    }
+
+    public DeleteTaskHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, ResponseCache.fromEnv());
+    }
+
+    public DeleteTaskHandler(DynamoDbClient dynamoDbClient, String tableName, ResponseCache cache) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), cache);
+    }
+
+    /** {@code cache} is the read handlers' cache; the caller's entries are dropped after every write. */
+    public DeleteTaskHandler(TaskRepository repository, ResponseCache cache) {
+        this.repository = repository;
+        this.cache = cache;
+        Priming.register(new HandlerPrimer(JsonUtils.objectMapper()));
+    }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
         try {
-            // ✅ Handle preflight OPTIONS request
-            if (CorsUtils.isPreflightRequest(request.getHttpMethod())) {
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(200)
-                        .withHeaders(CorsUtils.createCorsHeaders())
-                        .withBody("");
-            }
-
             String taskId = request.getPathParameters().get("taskId");
 
             // Get userId from Cognito claims
@@ -39,16 +54,9 @@ public class DeleteTaskHandler implements RequestHandler<APIGatewayProxyRequestE
                     ? (String) ((Map<String, Object>) request.getRequestContext().getAuthorizer().get("claims")).get("sub")
                     : "anonymous";
 
-            // Build key
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("UserId", AttributeValue.builder().s(userId).build());
-            key.put("TaskId", AttributeValue.builder().s(taskId).build());
-
             // Delete item
-            dynamoDbClient.deleteItem(DeleteItemRequest.builder()
-                    .tableName(tableName)
-                    .key(key)
-                    .build());
+            repository.delete(userId, taskId);
+            cache.invalidate(userId);
 
             // ✅ Return success with CORS headers
             return new APIGatewayProxyResponseEvent()
@@ -6,35 +6,53 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
 import com.todo.utils.CorsUtils; // ✅ Import CORS helper
+import com.todo.utils.JsonUtils;
+import com.todo.utils.ResponseCache;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Lambda handler for retrieving a single task by ID.
  * Triggered by GET /tasks/{taskId}
+ * Rendered tasks are kept in a {@link ResponseCache}; once an entry is past its TTL only the
+ * Version attribute is read back to decide whether it can still be served.
  */
 public class GetTaskByIdHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private final DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-    private final String tableName = System.getenv("TABLE_NAME");
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TaskRepository repository;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+    private final ResponseCache cache;
+
+    public GetTaskByIdHandler() {
+        this(TaskRepositories.fromEnv(), ResponseCache.fromEnv());
+    }
+
+    public GetTaskByIdHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, ResponseCache.fromEnv());
+    }
+
+    public GetTaskByIdHandler(DynamoDbClient dynamoDbClient, String tableName, ResponseCache cache) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), cache);
+    }
+
+    public GetTaskByIdHandler(TaskRepository repository, ResponseCache cache) {
+        this.repository = repository;
+        this.cache = cache;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
         try {
-            // ✅ Handle preflight OPTIONS
-            if (CorsUtils.isPreflightRequest(request.getHttpMethod())) {
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(200)
-                        .withHeaders(CorsUtils.createCorsHeaders())
-                        .withBody("");
-            }
-
             // ✅ Extract userId from JWT claims
             String userId = request.getRequestContext().getAuthorizer().get("claims") != null
                     ? (String) ((Map<String, Object>) request.getRequestContext().getAuthorizer().get("claims")).get("sub")
@@ -43,20 +61,24 @@ public class GetTaskByIdHandler implements RequestHandler<APIGatewayProxyRequest
             // ✅ Get taskId from path parameter
             String taskId = request.getPathParameters().get("taskId");
 
-            // ✅ Build key (UserId + TaskId)
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("UserId", AttributeValue.builder().s(userId).build());
-            key.put("TaskId", AttributeValue.builder().s(taskId).build());
-
-            // ✅ Fetch item from DynamoDB
-            GetItemRequest getItemRequest = GetItemRequest.builder()
-                    .tableName(tableName)
-                    .key(key)
-                    .build();
+            String cacheKey = ResponseCache.key(userId, "task", taskId);
+            ResponseCache.Entry cached = cache.get(cacheKey);
+            if (cached != null) {
+                boolean fresh = cache.isFresh(cached);
+                if (!fresh) {
+                    cached = revalidate(cacheKey, cached, userId, taskId);
+                }
+                if (cached != null) {
+                    cache.recordHit(cached, !fresh);
+                    return CachedResponses.respond(cache, cached, request, CorsUtils.createCorsHeaders());
+                }
+            }
+            cache.recordMiss();
 
-            Map<String, AttributeValue> item = dynamoDbClient.getItem(getItemRequest).item();
+            // ✅ Fetch item by key (UserId + TaskId)
+            Map<String, AttributeValue> item = repository.get(userId, taskId);
 
-            if (item == null || item.isEmpty()) {
+            if (item == null) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(404)
                         .withHeaders(CorsUtils.createCorsHeaders()) // ✅ Add headers
@@ -64,23 +86,12 @@ public class GetTaskByIdHandler implements RequestHandler<APIGatewayProxyRequest
             }
 
             // ✅ Convert to Task
-            Task task = new Task();
-            task.setTaskId(item.get("TaskId").s());
-            task.setUserId(item.get("UserId").s());
-            task.setDescription(item.getOrDefault("Description", AttributeValue.builder().s("").build()).s());
-            task.setStatus(item.getOrDefault("Status", AttributeValue.builder().s("Pending").build()).s());
-            if (item.containsKey("Deadline")) {
-                task.setDeadline(Long.parseLong(item.get("Deadline").n()));
-            }
-            if (item.containsKey("ExpireAt")) {
-                task.setExpireAt(Long.parseLong(item.get("ExpireAt").n()));
-            }
+            Task task = TaskItemCodec.fromItem(item);
+            String fingerprint = task.getVersion() != null ? task.getVersion().toString() : null;
+            ResponseCache.Entry entry = cache.put(cacheKey, objectMapper.writeValueAsString(task), fingerprint);
 
-            // ✅ Return JSON with CORS headers
-            return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(200)
-                    .withHeaders(CorsUtils.createCorsHeaders())
-                    .withBody(objectMapper.writeValueAsString(task));
+            // ✅ Return JSON with CORS headers and ETag
+            return CachedResponses.respond(cache, entry, request, CorsUtils.createCorsHeaders());
 
         } catch (Exception e) {
             context.getLogger().log("Error in GetTaskByIdHandler: " + e.getMessage());
@@ -90,4 +101,19 @@ public class GetTaskByIdHandler implements RequestHandler<APIGatewayProxyRequest
                     .withBody("{\"error\":\"Could not fetch task\"}");
         }
     }
+
+    /**
+     * Reads only the Version attribute of the task. Returns the refreshed entry if it still
+     * matches, or null (after dropping the entry) if the task changed or is gone.
+     */
+    private ResponseCache.Entry revalidate(String cacheKey, ResponseCache.Entry stale, String userId, String taskId) {
+        if (stale.fingerprint != null) {
+            Long version = repository.version(userId, taskId, false);
+            if (version != null && stale.fingerprint.equals(version.toString())) {
+                return cache.revalidated(cacheKey, stale);
+            }
+        }
+        cache.remove(cacheKey);
+        return null;
+    }
 }
@@ -0,0 +1,74 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.TaskItemCodec;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskSummaryStore;
+import com.todo.utils.CorsUtils;
+import com.todo.utils.JsonUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Lambda handler for the caller's task counts by status.
+ * Triggered by GET /tasks/summary
+ * The counts are kept by {@link TaskSummaryHandler} from the table stream, so this is a single
+ * read however many tasks the user has; tasks from before the counters were deployed are added
+ * by {@link TaskSummaryBackfill}, which also repairs counts that drifted. Pending and EXPIRED are always listed, other statuses once a
+ * task has had them.
+ */
+public class GetTaskSummaryHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private final TaskSummaryStore summaries;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+
+    public GetTaskSummaryHandler() {
+        this(TaskRepositories.summariesFromEnv());
+    }
+
+    public GetTaskSummaryHandler(TaskSummaryStore summaries) {
+        this.summaries = summaries;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        try {
+            String userId = request.getRequestContext().getAuthorizer().get("claims") != null
+                    ? (String) ((Map<String, Object>) request.getRequestContext().getAuthorizer().get("claims")).get("sub")
+                    : "anonymous";
+
+            Map<String, Long> counts = new TreeMap<>();
+            counts.put(TaskItemCodec.DEFAULT_STATUS, 0L);
+            counts.put(TaskItemCodec.EXPIRED_STATUS, 0L);
+            long total = 0;
+            for (Map.Entry<String, Long> count : summaries.counts(userId).entrySet()) {
+                counts.put(count.getKey(), count.getValue());
+                total += count.getValue();
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("counts", counts);
+            body.put("total", total);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(CorsUtils.createCorsHeaders())
+                    .withBody(objectMapper.writeValueAsString(body));
+
+        } catch (Exception e) {
+            context.getLogger().log("Error in GetTaskSummaryHandler: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withHeaders(CorsUtils.createCorsHeaders())
+                    .withBody("{\"error\":\"Could not fetch task summary\"}");
+        }
+    }
+}
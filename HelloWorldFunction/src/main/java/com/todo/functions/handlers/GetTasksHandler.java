@@ -4,29 +4,80 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.todo.model.Task;
+import com.todo.metrics.Metrics;
+import com.todo.model.TaskIdGenerator;
+import com.todo.model.TaskItemCodec;
+import com.todo.model.TaskProjection;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.PageQuery;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
 import com.todo.utils.CorsUtils;
+import com.todo.utils.CursorUtils;
+import com.todo.utils.JsonUtils;
+import com.todo.utils.ResponseCache;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Lambda handler for listing the caller's tasks one page at a time.
+ * Triggered by GET /tasks?limit=&cursor=&status=&fields=&order=&createdAfter=&createdBefore=
+ * With status=... the page is read from the UserId+Status index, so only tasks in that state
+ * are read; fields=... limits the attributes read and returned.
+ * Task IDs are time-ordered, so tasks are listed newest first straight from the sort key
+ * (order=oldest reverses that), and createdAfter/createdBefore (epoch millis or ISO-8601)
+ * become a TaskId range in the query. Tasks with older UUID IDs are listed by ID and are
+ * left out of created ranges.
+ * Requests carrying ids=a,b,c are multi-gets and are answered by {@link BatchGetTasksHandler}.
+ * Pages are cached per user, limit and cursor; a stale page is revalidated by re-running the
+ * query for TaskId and Version only and comparing the result with the cached fingerprint.
+ */
 public class GetTasksHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private final DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-    private final String tableName = System.getenv("TABLE_NAME");
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TaskRepository repository;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+    private final BatchGetTasksHandler batchGetTasksHandler;
+    private final ResponseCache cache;
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 100;
+    // Typical rendered size of one task, to size the page buffer
+    private static final int ESTIMATED_ITEM_CHARS = 160;
+
+    public GetTasksHandler() {
+        this(TaskRepositories.fromEnv(), ResponseCache.fromEnv());
+    }
+
+    public GetTasksHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, ResponseCache.fromEnv());
+    }
+
+    public GetTasksHandler(DynamoDbClient dynamoDbClient, String tableName, ResponseCache cache) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), cache);
+    }
+
+    public GetTasksHandler(TaskRepository repository, ResponseCache cache) {
+        this.repository = repository;
+        this.cache = cache;
+        this.batchGetTasksHandler = new BatchGetTasksHandler(repository);
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
-        // Handle CORS preflight request
-        if (CorsUtils.isPreflightRequest(request.getHttpMethod())) {
-            return createCorsResponse();
+        if (request.getQueryStringParameters() != null && request.getQueryStringParameters().containsKey("ids")) {
+            return batchGetTasksHandler.handleRequest(request, context);
         }
 
         Map<String, String> headers = CorsUtils.createCorsHeaders();
@@ -34,44 +85,77 @@ public class GetTasksHandler implements RequestHandler<APIGatewayProxyRequestEve
         try {
             String userId = extractUserIdFromRequest(request);
 
-            // Query DynamoDB for tasks belonging to this user
-            Map<String, String> expressionAttributesNames = new HashMap<>();
-            expressionAttributesNames.put("#uid", "UserId");
-
-            Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-            expressionAttributeValues.put(":uid", AttributeValue.builder().s(userId).build());
+            Map<String, String> queryParams = request.getQueryStringParameters() != null
+                    ? request.getQueryStringParameters()
+                    : Map.of();
 
-            QueryRequest queryRequest = QueryRequest.builder()
-                    .tableName(tableName)
-                    .keyConditionExpression("#uid = :uid")
-                    .expressionAttributeNames(expressionAttributesNames)
-                    .expressionAttributeValues(expressionAttributeValues)
-                    .build();
+            int limit;
+            Map<String, AttributeValue> exclusiveStartKey;
+            TaskProjection projection;
+            boolean newestFirst;
+            Long createdAfter;
+            Long createdBefore;
+            try {
+                limit = parseLimit(queryParams.get("limit"));
+                exclusiveStartKey = CursorUtils.decode(queryParams.get("cursor"));
+                projection = TaskProjection.parse(queryParams.get("fields"));
+                newestFirst = parseOrder(queryParams.get("order"));
+                createdAfter = parseTime("createdAfter", queryParams.get("createdAfter"));
+                createdBefore = parseTime("createdBefore", queryParams.get("createdBefore"));
+            } catch (IllegalArgumentException e) {
+                return badRequest(headers, e.getMessage());
+            }
+            if (createdBefore != null && createdBefore <= (createdAfter != null ? createdAfter : 0)) {
+                return badRequest(headers, "createdBefore must be later than createdAfter");
+            }
+            String status = queryParams.get("status");
+            if (status != null && status.isEmpty()) {
+                status = null;
+            }
 
-            List<Map<String, AttributeValue>> items = dynamoDbClient.query(queryRequest).items();
+            // A cursor is only valid for the partition (and status) it was issued for
+            if (exclusiveStartKey != null && (!exclusiveStartKey.containsKey(TaskItemCodec.USER_ID)
+                    || !userId.equals(exclusiveStartKey.get(TaskItemCodec.USER_ID).s())
+                    || !sameStatus(status, exclusiveStartKey))) {
+                return badRequest(headers, "Malformed cursor");
+            }
 
-            // Convert DynamoDB items to Task objects
-            List<Task> tasks = new ArrayList<>();
-            for (Map<String, AttributeValue> item : items) {
-                Task task = new Task();
-                task.setTaskId(item.get("TaskId").s());
-                task.setUserId(item.get("UserId").s());
-                task.setDescription(item.getOrDefault("Description", AttributeValue.builder().s("").build()).s());
-                task.setStatus(item.getOrDefault("Status", AttributeValue.builder().s("Pending").build()).s());
-                if (item.containsKey("Deadline")) {
-                    task.setDeadline(Long.parseLong(item.get("Deadline").n()));
+            PageQuery pageQuery = new PageQuery(userId, status, limit, exclusiveStartKey, projection,
+                    newestFirst, createdAfter, createdBefore);
+            // ... and for its created range: a start key outside the key condition is a ValidationException
+            if (exclusiveStartKey != null && !inCreatedRange(pageQuery, exclusiveStartKey.get(TaskItemCodec.TASK_ID))) {
+                return badRequest(headers, "Malformed cursor");
+            }
+            String cacheKey = ResponseCache.key(userId, "list", Integer.toString(limit), queryParams.get("cursor"),
+                    status, projection != null ? String.join(",", projection.fields()) : null,
+                    newestFirst ? "newest" : "oldest",
+                    createdAfter != null ? createdAfter.toString() : null,
+                    createdBefore != null ? createdBefore.toString() : null);
+            ResponseCache.Entry cached = cache.get(cacheKey);
+            if (cached != null) {
+                boolean fresh = cache.isFresh(cached);
+                if (!fresh) {
+                    cached = revalidate(cacheKey, cached, pageQuery);
                 }
-                if (item.containsKey("expireAt")) {
-                    task.setExpireAt(Long.parseLong(item.get("expireAt").n()));
+                if (cached != null) {
+                    cache.recordHit(cached, !fresh);
+                    return CachedResponses.respond(cache, cached, request, headers);
                 }
-                tasks.add(task);
             }
+            cache.recordMiss();
 
-            // Return tasks as JSON
-            return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(200)
-                    .withHeaders(headers)
-                    .withBody(objectMapper.writeValueAsString(tasks));
+            // Query one page of tasks belonging to this user
+            TaskRepository.Page page = repository.query(pageQuery, false);
+            Metrics.count("Items", page.items().size());
+            String nextCursor = page.lastEvaluatedKey() != null
+                    ? CursorUtils.encode(page.lastEvaluatedKey())
+                    : null;
+
+            // Return the page as JSON
+            ResponseCache.Entry entry = cache.put(cacheKey,
+                    renderPage(page.items(), projection, nextCursor, pageQuery.hasCreatedRange()),
+                    fingerprint(page));
+            return CachedResponses.respond(cache, entry, request, headers);
 
         } catch (Exception e) {
             context.getLogger().log("Error in GetTasksHandler: " + e.getMessage());
@@ -82,6 +166,89 @@ public class GetTasksHandler implements RequestHandler<APIGatewayProxyRequestEve
         }
     }
 
+    /**
+     * Writes {"tasks":[...],"nextCursor":...} straight from the DynamoDB items, with no Task
+     * objects or intermediate list. For a creation-time range, UUID-keyed tasks the query
+     * picked up are left out: they have no creation time. The generator's own output buffer comes from Jackson's
+     * recycler; the StringWriter is sized up front so it rarely has to grow.
+     */
+    private String renderPage(List<Map<String, AttributeValue>> items, TaskProjection projection, String nextCursor,
+                              boolean timeOrderedOnly) throws IOException {
+        StringWriter out = new StringWriter(ESTIMATED_ITEM_CHARS * items.size() + 64);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("tasks");
+            for (Map<String, AttributeValue> item : items) {
+                if (timeOrderedOnly && !TaskIdGenerator.isTimeOrdered(item.get(TaskItemCodec.TASK_ID).s())) {
+                    continue;
+                }
+                if (projection != null) {
+                    projection.writeJson(item, generator);
+                } else {
+                    TaskItemCodec.writeJson(item, generator);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeStringField("nextCursor", nextCursor);
+            generator.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    private static boolean inCreatedRange(PageQuery pageQuery, AttributeValue cursorTaskId) {
+        if (cursorTaskId == null) {
+            return false;
+        }
+        return !pageQuery.hasCreatedRange()
+                || (cursorTaskId.s().compareTo(pageQuery.fromTaskId()) >= 0
+                        && cursorTaskId.s().compareTo(pageQuery.toTaskId()) <= 0);
+    }
+
+    /** Whether a cursor came from the index this status is listed from: StatusTaskId is only in UserStatusIndex keys. */
+    private static boolean sameStatus(String status, Map<String, AttributeValue> cursor) {
+        AttributeValue cursorStatusTaskId = cursor.get(TaskItemCodec.STATUS_TASK_ID);
+        if (status == null) {
+            return cursorStatusTaskId == null;
+        }
+        AttributeValue cursorTaskId = cursor.get(TaskItemCodec.TASK_ID);
+        return cursorStatusTaskId != null && cursorTaskId != null
+                && TaskItemCodec.statusTaskId(status, cursorTaskId.s()).equals(cursorStatusTaskId.s());
+    }
+
+    /**
+     * Re-runs the page query for TaskId and Version only. Returns the refreshed entry if the
+     * page still holds the same task versions, or null (after dropping the entry) otherwise.
+     */
+    private ResponseCache.Entry revalidate(String cacheKey, ResponseCache.Entry stale, PageQuery pageQuery) {
+        if (stale.fingerprint != null) {
+            TaskRepository.Page versions = repository.query(pageQuery, true);
+            if (stale.fingerprint.equals(fingerprint(versions))) {
+                return cache.revalidated(cacheKey, stale);
+            }
+        }
+        cache.remove(cacheKey);
+        return null;
+    }
+
+    /**
+     * TaskId and Version of every item on the page plus where the next page starts, or null
+     * if some item predates the Version attribute and the page cannot be revalidated.
+     */
+    private static String fingerprint(TaskRepository.Page page) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Map<String, AttributeValue> item : page.items()) {
+            AttributeValue version = item.get(TaskItemCodec.VERSION);
+            if (version == null) {
+                return null;
+            }
+            fingerprint.append(item.get(TaskItemCodec.TASK_ID).s()).append(':').append(version.n()).append(';');
+        }
+        if (page.lastEvaluatedKey() != null) {
+            fingerprint.append('>').append(page.lastEvaluatedKey().get(TaskItemCodec.TASK_ID).s());
+        }
+        return fingerprint.toString();
+    }
+
     private String extractUserIdFromRequest(APIGatewayProxyRequestEvent request) {
         try {
             if (request.getRequestContext().getAuthorizer() != null &&
@@ -95,10 +262,59 @@ public class GetTasksHandler implements RequestHandler<APIGatewayProxyRequestEve
         }
     }
 
-    private APIGatewayProxyResponseEvent createCorsResponse() {
+    /**
+     * Page size requested by the client, clamped to MAX_LIMIT so that every invocation
+     * reads a bounded number of items.
+     */
+    private int parseLimit(String limitParam) {
+        if (limitParam == null || limitParam.isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(limitParam);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    private static boolean parseOrder(String order) {
+        if (order == null || order.isEmpty() || order.equals("newest")) {
+            return true;
+        }
+        if (order.equals("oldest")) {
+            return false;
+        }
+        throw new IllegalArgumentException("order must be newest or oldest");
+    }
+
+    /** Epoch millis, or an ISO-8601 instant such as 2024-05-01T00:00:00Z. */
+    private static Long parseTime(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        long millis;
+        try {
+            millis = value.chars().allMatch(Character::isDigit)
+                    ? Long.parseLong(value)
+                    : Instant.parse(value).toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException | ArithmeticException e) {
+            throw new IllegalArgumentException(name + " must be epoch millis or an ISO-8601 instant");
+        }
+        if (millis < 0 || millis > TaskIdGenerator.MAX_TIME) {
+            throw new IllegalArgumentException(name + " is out of range");
+        }
+        return millis;
+    }
+
+    private APIGatewayProxyResponseEvent badRequest(Map<String, String> headers, String message) {
         return new APIGatewayProxyResponseEvent()
-                .withStatusCode(200)
-                .withHeaders(CorsUtils.createCorsHeaders())
-                .withBody("");
+                .withStatusCode(400)
+                .withHeaders(headers)
+                .withBody(JsonUtils.errorBody(message));
     }
 }
\ No newline at end of file
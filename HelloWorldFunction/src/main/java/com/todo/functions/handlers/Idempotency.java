@@ -0,0 +1,160 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.metrics.Metrics;
+import com.todo.repository.IdempotencyRecord;
+import com.todo.repository.IdempotencyStore;
+import com.todo.utils.CorsUtils;
+import com.todo.utils.JsonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Idempotency-Key handling for writes that must not run twice when a client or API Gateway
+ * retries. The first request with a key claims it in the {@link IdempotencyStore}; when it
+ * finishes, its response is stored there until the TTL runs out, and later requests with the
+ * same key get that response back without another write (and so without another stream
+ * record or expiry message). Keys are scoped to the user, and reusing one with a different
+ * body is rejected.
+ *
+ * Finished records are also kept in a small per-container LRU map, so retries that land on
+ * the same warm container are answered without a call to the table.
+ */
+final class Idempotency {
+
+    static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 255;
+    static final long DEFAULT_TTL_SECONDS = 24 * 60 * 60;
+    static final int DEFAULT_CACHE_ENTRIES = 1000;
+    // A claim whose request never finished (e.g. the invocation timed out) can be taken over after this
+    static final long IN_PROGRESS_SECONDS = 60;
+
+    private final IdempotencyStore store;
+    private final long ttlSeconds;
+    private final int maxCachedEntries;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, IdempotencyRecord> recent = new LinkedHashMap<>(64, 0.75f, true);
+
+    Idempotency(IdempotencyStore store, long ttlSeconds, int maxCachedEntries, LongSupplier clock) {
+        this.store = store;
+        this.ttlSeconds = ttlSeconds;
+        this.maxCachedEntries = maxCachedEntries;
+        this.clock = clock;
+    }
+
+    /** Configured from IDEMPOTENCY_TTL_SECONDS and IDEMPOTENCY_CACHE_MAX_ENTRIES; null without a store. */
+    static Idempotency fromEnv(IdempotencyStore store) {
+        if (store == null) {
+            return null;
+        }
+        return new Idempotency(store,
+                longFromEnv("IDEMPOTENCY_TTL_SECONDS", DEFAULT_TTL_SECONDS),
+                (int) longFromEnv("IDEMPOTENCY_CACHE_MAX_ENTRIES", DEFAULT_CACHE_ENTRIES),
+                System::currentTimeMillis);
+    }
+
+    static boolean isValidKey(String key) {
+        return !key.isEmpty() && key.length() <= MAX_KEY_LENGTH;
+    }
+
+    /** The in-progress record this request would claim. */
+    IdempotencyRecord newClaim(String userId, String key, String requestBody) {
+        return IdempotencyRecord.inProgress(userId + ':' + key, hash(requestBody),
+                clock.getAsLong() / 1000 + IN_PROGRESS_SECONDS);
+    }
+
+    /**
+     * Claims the key. Returns null if this request should run, otherwise the response to send
+     * instead: the stored one for a retry, 409 while the first request is still running, or
+     * 422 if the key was used for a different body.
+     */
+    APIGatewayProxyResponseEvent claim(IdempotencyRecord claim) {
+        long now = clock.getAsLong();
+        IdempotencyRecord existing = cached(claim.key(), now);
+        if (existing != null) {
+            Metrics.count("IdempotencyCacheHits", 1);
+        } else {
+            existing = store.claim(claim, now);
+            if (existing == null) {
+                return null;
+            }
+        }
+
+        if (!existing.requestHash().equals(claim.requestHash())) {
+            Metrics.count("IdempotencyConflicts", 1);
+            return error(422, "Idempotency-Key was already used for a different request");
+        }
+        if (existing.isInProgress()) {
+            Metrics.count("IdempotencyConflicts", 1);
+            return error(409, "A request with this Idempotency-Key is still in progress");
+        }
+        remember(existing);
+        Metrics.count("IdempotentReplays", 1);
+        Map<String, String> headers = CorsUtils.createCorsHeaders();
+        headers.put("Idempotent-Replayed", "true");
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(existing.statusCode())
+                .withHeaders(headers)
+                .withBody(existing.responseBody());
+    }
+
+    /** Stores the response of a claimed request for its retries. */
+    void complete(IdempotencyRecord claim, int statusCode, String responseBody) {
+        IdempotencyRecord record = new IdempotencyRecord(claim.key(), claim.requestHash(), statusCode, responseBody,
+                clock.getAsLong() / 1000 + ttlSeconds);
+        store.complete(record);
+        remember(record);
+    }
+
+    /** Gives the key back after the request failed, so a retry runs it again. */
+    void release(IdempotencyRecord claim) {
+        store.release(claim);
+    }
+
+    private synchronized IdempotencyRecord cached(String key, long now) {
+        IdempotencyRecord record = recent.get(key);
+        if (record != null && record.isExpired(now)) {
+            recent.remove(key);
+            return null;
+        }
+        return record;
+    }
+
+    private synchronized void remember(IdempotencyRecord record) {
+        if (maxCachedEntries <= 0) {
+            return;
+        }
+        recent.put(record.key(), record);
+        if (recent.size() > maxCachedEntries) {
+            recent.remove(recent.keySet().iterator().next());
+        }
+    }
+
+    private static APIGatewayProxyResponseEvent error(int statusCode, String message) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(CorsUtils.createCorsHeaders())
+                .withBody(JsonUtils.errorBody(message));
+    }
+
+    private static String hash(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((body == null ? "" : body).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long longFromEnv(String name, long defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? Long.parseLong(value) : defaultValue;
+    }
+}
@@ -3,76 +3,194 @@ package com.todo.functions.handlers;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.metrics.Metrics;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.utils.AwsClients;
+import com.todo.utils.Futures;
+import com.todo.utils.JsonUtils;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Lambda handler for processing DynamoDB Stream events.
- * When a task is created or updated, push a message to SQS if Deadline exists.
+ * When a Pending task is created or updated with a deadline that has already passed, push a
+ * message to SQS so it is expired right away. Future deadlines are left to TaskExpirySweeper, which
+ * finds them through the DeadlineIndex once they are due.
+ * Messages go out in SendMessageBatch calls of up to 10 entries, issued concurrently, through
+ * SqsAsyncClient when the function runs with SDK_CLIENT_MODE=async.
+ * Records that could not be sent are reported as batch item failures so that Lambda only
+ * retries from the first failed record instead of dropping it or replaying the whole batch.
+ * An update is only looked at when its Deadline or Status differs between the old and new
+ * image: description edits, and the EXPIRED write from TaskExpiryHandler itself, would
+ * otherwise queue the same overdue task again. The event source's filter criteria in
+ * template.yaml drop most such records before they reach the function; the image comparison
+ * covers what a filter pattern cannot express.
  */
-public class StreamProcessorHandler implements RequestHandler<DynamodbEvent, Void> {
+public class StreamProcessorHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
 
-    private final SqsClient sqsClient = SqsClient.create();
-    private final String queueUrl = System.getenv("TASK_EXPIRY_QUEUE_URL");
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    static final int SQS_BATCH_SIZE = 10;
+
+    private final SqsClient sqsClient;
+    private final SqsAsyncClient asyncClient;
+    private final String queueUrl;
+    private final boolean fifoQueue;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+
+    public StreamProcessorHandler() {
+        this(AwsClients.asyncMode() ? null : AwsClients.sqs(),
+                AwsClients.asyncMode() ? AwsClients.sqsAsync() : null,
+                System.getenv("QUEUE_URL"));
+    }
+
+    public StreamProcessorHandler(SqsClient sqsClient, String queueUrl) {
+        this(sqsClient, null, queueUrl);
+    }
+
+    public StreamProcessorHandler(SqsAsyncClient asyncClient, String queueUrl) {
+        this(null, asyncClient, queueUrl);
+    }
+
+    private StreamProcessorHandler(SqsClient sqsClient, SqsAsyncClient asyncClient, String queueUrl) {
+        this.sqsClient = sqsClient;
+        this.asyncClient = asyncClient;
+        this.queueUrl = queueUrl;
+        this.fifoQueue = queueUrl != null && queueUrl.endsWith(".fifo");
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
 
     @Override
-    public Void handleRequest(DynamodbEvent event, Context context) {
-        event.getRecords().forEach(record -> {
-            if ("INSERT".equals(record.getEventName()) || "MODIFY".equals(record.getEventName())) {
-                try {
-                    Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> newImage =
-                            record.getDynamodb().getNewImage();
-
-                    String taskId = newImage.get("TaskId").getS();
-                    String userId = newImage.get("UserId").getS();
-
-                    // Use Deadline instead of DueDate (numeric epoch value)
-                    String deadlineStr = newImage.containsKey("Deadline")
-                            ? newImage.get("Deadline").getN()
-                            : null;
-
-                    if (deadlineStr != null) {
-                        Map<String, Object> payload = new HashMap<>();
-                        payload.put("taskId", taskId);
-                        payload.put("userId", userId);
-                        payload.put("deadline", deadlineStr);
-
-                        String message = objectMapper.writeValueAsString(payload);
-
-                        sqsClient.sendMessage(SendMessageRequest.builder()
-                                .queueUrl(queueUrl)
-                                .messageBody(message)
-                                // Delay until deadline (max 15 minutes for SQS)
-                                .delaySeconds(calculateDelaySeconds(deadlineStr))
-                                .build());
-
-                        context.getLogger().log("Pushed task to SQS: " + message);
-                    }
-                } catch (Exception e) {
-                    context.getLogger().log("Error processing stream record: " + e.getMessage());
+    public StreamsEventResponse handleRequest(DynamodbEvent event, Context context) {
+        Metrics.begin("StreamProcessor", context);
+        try {
+            Metrics.count("Items", event.getRecords().size());
+            return process(event, context);
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private StreamsEventResponse process(DynamodbEvent event, Context context) {
+        List<StreamsEventResponse.BatchItemFailure> failures = new ArrayList<>();
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+        // Batch entry id -> stream sequence number, for reporting failures back to Lambda
+        Map<String, String> sequenceNumbers = new HashMap<>();
+        long now = System.currentTimeMillis();
+        int filtered = 0;
+
+        for (DynamodbEvent.DynamodbStreamRecord record : event.getRecords()) {
+            if (!expiryMayHaveChanged(record)) {
+                filtered++;
+                continue;
+            }
+            String sequenceNumber = record.getDynamodb().getSequenceNumber();
+            try {
+                Task task = TaskItemCodec.fromStreamImage(record.getDynamodb().getNewImage());
+                if (task.getDeadline() == null || task.getDeadline() > now
+                        || !TaskItemCodec.awaitsExpiry(task.getStatus())) {
+                    filtered++;
+                    continue;
+                }
+
+                Map<String, Object> payload = new HashMap<>();
+                payload.put("taskId", task.getTaskId());
+                payload.put("userId", task.getUserId());
+                payload.put("deadline", task.getDeadline().toString());
+
+                String entryId = Integer.toString(entries.size());
+                SendMessageBatchRequestEntry.Builder entry = SendMessageBatchRequestEntry.builder()
+                        .id(entryId)
+                        .messageBody(objectMapper.writeValueAsString(payload));
+                if (fifoQueue) {
+                    entry.messageGroupId(task.getUserId());
                 }
+                entries.add(entry.build());
+                sequenceNumbers.put(entryId, sequenceNumber);
+            } catch (Exception e) {
+                context.getLogger().log("Error processing stream record: " + e.getMessage());
+                failures.add(new StreamsEventResponse.BatchItemFailure(sequenceNumber));
             }
-        });
-        return null;
+        }
+
+        List<CompletableFuture<List<String>>> batches = new ArrayList<>();
+        for (int start = 0; start < entries.size(); start += SQS_BATCH_SIZE) {
+            List<SendMessageBatchRequestEntry> batch = entries.subList(start, Math.min(start + SQS_BATCH_SIZE, entries.size()));
+            batches.add(sendBatch(batch, context));
+        }
+        int rejected = 0;
+        for (List<String> failedEntryIds : Futures.allOf(batches).join()) {
+            rejected += failedEntryIds.size();
+            for (String entryId : failedEntryIds) {
+                failures.add(new StreamsEventResponse.BatchItemFailure(sequenceNumbers.get(entryId)));
+            }
+        }
+
+        Metrics.count("Forwarded", entries.size() - rejected);
+        Metrics.count("Filtered", filtered);
+        context.getLogger().log("Pushed " + (entries.size() - rejected) + " task(s) to SQS, filtered "
+                + filtered + " record(s), " + failures.size() + " record(s) failed");
+        return new StreamsEventResponse(failures);
     }
 
     /**
-     * Calculate delay (seconds) between now and deadline.
-     * If deadline already passed, return 0 for immediate processing.
+     * True for inserts, and for updates whose Deadline or Status changed. An update without an
+     * old image (a stream view type other than NEW_AND_OLD_IMAGES) counts as changed.
      */
-    private int calculateDelaySeconds(String deadlineStr) {
-        try {
-            long deadlineEpoch = Long.parseLong(deadlineStr);
-            long diff = deadlineEpoch - Instant.now().getEpochSecond();
-            return (int) Math.max(0, Math.min(diff, 900)); // SQS max delay = 15 min
-        } catch (Exception e) {
-            return 0;
+    static boolean expiryMayHaveChanged(DynamodbEvent.DynamodbStreamRecord record) {
+        if ("INSERT".equals(record.getEventName())) {
+            return true;
         }
+        if (!"MODIFY".equals(record.getEventName())) {
+            return false;
+        }
+        Map<String, AttributeValue> oldImage = record.getDynamodb().getOldImage();
+        Map<String, AttributeValue> newImage = record.getDynamodb().getNewImage();
+        if (oldImage == null) {
+            return true;
+        }
+        return !Objects.equals(oldImage.get(TaskItemCodec.DEADLINE), newImage.get(TaskItemCodec.DEADLINE))
+                || !Objects.equals(oldImage.get(TaskItemCodec.STATUS), newImage.get(TaskItemCodec.STATUS));
+    }
+
+    /** Sends one batch and returns the ids of the entries SQS did not accept. */
+    private CompletableFuture<List<String>> sendBatch(List<SendMessageBatchRequestEntry> batch, Context context) {
+        SendMessageBatchRequest request = SendMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(batch)
+                .build();
+        CompletableFuture<SendMessageBatchResponse> call = asyncClient != null
+                ? Futures.attempt(() -> asyncClient.sendMessageBatch(request))
+                : Futures.blocking(() -> sqsClient.sendMessageBatch(request));
+        return call.handle((response, error) -> {
+            List<String> failedEntryIds = new ArrayList<>();
+            if (error != null) {
+                context.getLogger().log("Error sending SQS batch: " + Futures.cause(error).getMessage());
+                for (SendMessageBatchRequestEntry entry : batch) {
+                    failedEntryIds.add(entry.id());
+                }
+            } else if (response.hasFailed()) {
+                for (BatchResultErrorEntry failed : response.failed()) {
+                    context.getLogger().log("SQS rejected message " + failed.id() + ": " + failed.code());
+                    failedEntryIds.add(failed.id());
+                }
+            }
+            return failedEntryIds;
+        });
     }
 }
@@ -0,0 +1,156 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.metrics.Metrics;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.IdempotencyStore;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
+import com.todo.repository.TaskSummaryStore;
+import com.todo.utils.CorsUtils;
+import com.todo.utils.ResponseCache;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single entry point for the task REST API.
+ * Dispatches every /tasks request to the matching handler through a route table built
+ * once per container, so all operations share one warm JVM, one set of clients and
+ * one ObjectMapper. The handlers also share one {@link TaskRepository} and one
+ * {@link ResponseCache}, so a write through any route invalidates what the read routes
+ * have cached for that user.
+ * Each request emits one metrics line with the route, status and response size.
+ */
+public class TaskApiRouter implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    static final String TASKS = "/tasks";
+    static final String TASK_BY_ID = "/tasks/{taskId}";
+    static final String TASKS_BATCH = "/tasks/batch";
+    static final String TASKS_SUMMARY = "/tasks/summary";
+
+    private final Map<String, RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>> routes = new HashMap<>();
+    private final Set<String> resources;
+
+    public TaskApiRouter() {
+        this(TaskRepositories.fromEnv(), ResponseCache.fromEnv(), TaskRepositories.idempotencyFromEnv(),
+                TaskRepositories.summariesFromEnv());
+    }
+
+    public TaskApiRouter(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, ResponseCache.fromEnv());
+    }
+
+    public TaskApiRouter(DynamoDbClient dynamoDbClient, String tableName, ResponseCache cache) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), cache);
+    }
+
+    public TaskApiRouter(TaskRepository repository, ResponseCache cache) {
+        this(repository, cache, null, null);
+    }
+
+    /**
+     * {@code idempotencyStore} backs the Idempotency-Key header on POST /tasks; null ignores the
+     * header. {@code summaries} serves GET /tasks/summary; without it that route is not offered.
+     */
+    public TaskApiRouter(TaskRepository repository, ResponseCache cache, IdempotencyStore idempotencyStore,
+                         TaskSummaryStore summaries) {
+        routes.put(routeKey("POST", TASKS), new CreateTaskHandler(repository, cache, idempotencyStore));
+        routes.put(routeKey("GET", TASKS), new GetTasksHandler(repository, cache));
+        routes.put(routeKey("GET", TASK_BY_ID), new GetTaskByIdHandler(repository, cache));
+        routes.put(routeKey("PUT", TASK_BY_ID), new UpdateTaskHandler(repository, cache));
+        routes.put(routeKey("DELETE", TASK_BY_ID), new DeleteTaskHandler(repository, cache));
+        routes.put(routeKey("POST", TASKS_BATCH), new BatchWriteTasksHandler(repository, cache));
+        if (summaries != null) {
+            routes.put(routeKey("GET", TASKS_SUMMARY), new GetTaskSummaryHandler(summaries));
+            resources = Set.of(TASKS, TASK_BY_ID, TASKS_BATCH, TASKS_SUMMARY);
+        } else {
+            resources = Set.of(TASKS, TASK_BY_ID, TASKS_BATCH);
+        }
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        Metrics.begin("TaskApi", context);
+        try {
+            APIGatewayProxyResponseEvent response = dispatch(request, context);
+            Metrics.property("StatusCode", String.valueOf(response.getStatusCode()));
+            Metrics.bytes("ResponseBytes", response.getBody() != null ? response.getBody().length() : 0);
+            return response;
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent dispatch(APIGatewayProxyRequestEvent request, Context context) {
+        if (CorsUtils.isPreflightRequest(request.getHttpMethod())) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(CorsUtils.createCorsHeaders())
+                    .withBody("");
+        }
+
+        // application/json is a binary media type so compressed responses are decoded; the same
+        // setting makes API Gateway hand us JSON request bodies base64-encoded
+        if (Boolean.TRUE.equals(request.getIsBase64Encoded()) && request.getBody() != null) {
+            request.setBody(new String(Base64.getDecoder().decode(request.getBody()), StandardCharsets.UTF_8));
+            request.setIsBase64Encoded(false);
+        }
+
+        String resource = resolveResource(request);
+        Metrics.property("Route", routeKey(request.getHttpMethod(), resource != null ? resource : "?"));
+        RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> route =
+                resource != null ? routes.get(routeKey(request.getHttpMethod(), resource)) : null;
+
+        if (route == null) {
+            boolean knownResource = resource != null && resources.contains(resource);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(knownResource ? 405 : 404)
+                    .withHeaders(CorsUtils.createCorsHeaders())
+                    .withBody(knownResource ? "{\"error\":\"Method not allowed\"}" : "{\"error\":\"Route not found\"}");
+        }
+        return route.handleRequest(request, context);
+    }
+
+    /**
+     * API Gateway supplies the matched resource template. Direct invocations (e.g. sam local
+     * invoke with a hand-written event) may only carry the raw path, so fall back to matching
+     * it against the templates and filling in the taskId path parameter.
+     */
+    private String resolveResource(APIGatewayProxyRequestEvent request) {
+        if (request.getResource() != null && resources.contains(request.getResource())) {
+            return request.getResource();
+        }
+        String path = request.getPath();
+        if (path == null) {
+            return null;
+        }
+        if (path.endsWith("/") && path.length() > 1) {
+            path = path.substring(0, path.length() - 1);
+        }
+        // Literal resources win over the {taskId} template, as they do in API Gateway
+        if (resources.contains(path)) {
+            return path;
+        }
+        if (path.startsWith(TASKS + "/") && path.indexOf('/', TASKS.length() + 1) < 0) {
+            Map<String, String> pathParameters = request.getPathParameters() != null
+                    ? new HashMap<>(request.getPathParameters())
+                    : new HashMap<>();
+            pathParameters.putIfAbsent("taskId", path.substring(TASKS.length() + 1));
+            request.setPathParameters(pathParameters);
+            return TASK_BY_ID;
+        }
+        return null;
+    }
+
+    private static String routeKey(String method, String resource) {
+        return (method == null ? "" : method.toUpperCase()) + " " + resource;
+    }
+}
@@ -0,0 +1,152 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.todo.metrics.Metrics;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskSummaryStore;
+import com.todo.utils.AwsClients;
+import com.todo.utils.CursorUtils;
+import com.todo.utils.Futures;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Seeds the counters of GET /tasks/summary from the tasks table. {@link TaskSummaryHandler}
+ * only sees changes made after it was deployed (the stream keeps 24 hours of records), so
+ * without this, tasks that already existed are missing from the counts.
+ *
+ * For every user found by scanning the table, the summary's LastSequenceNumber is read, the
+ * user's tasks are counted by Status with a consistent Query, and the counts replace the
+ * summary on condition that LastSequenceNumber has not moved; if it has, the user is
+ * counted again. A change that reaches the table while a user is being counted, but that
+ * the summary consumer has not applied yet, is counted twice, so run this when the consumer
+ * is caught up. Running it again recounts, which also corrects any drift.
+ *
+ * Invoke with {@code {}} and then with the returned {@code cursor} until it comes back
+ * null; each invocation stops well before the function times out.
+ */
+public class TaskSummaryBackfill implements RequestHandler<Map<String, String>, Map<String, Object>> {
+
+    // Left for the in-flight page and the response when deciding whether to scan another
+    private static final long TIME_RESERVE_MILLIS = 30_000;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final TaskSummaryStore summaries;
+
+    public TaskSummaryBackfill() {
+        this(AwsClients.dynamoDb(), System.getenv("TABLE_NAME"), TaskRepositories.summariesFromEnv());
+    }
+
+    public TaskSummaryBackfill(DynamoDbClient dynamoDbClient, String tableName, TaskSummaryStore summaries) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.summaries = summaries;
+    }
+
+    @Override
+    public Map<String, Object> handleRequest(Map<String, String> input, Context context) {
+        Metrics.begin("TaskSummaryBackfill", context);
+        try {
+            return process(input, context);
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private Map<String, Object> process(Map<String, String> input, Context context) {
+        String cursor = input != null ? input.get("cursor") : null;
+        Map<String, AttributeValue> exclusiveStartKey = cursor != null ? CursorUtils.decode(cursor) : null;
+        // A user's tasks can span pages; count each of them once per invocation
+        Set<String> seeded = new HashSet<>();
+        do {
+            ScanResponse page = dynamoDbClient.scan(scan(exclusiveStartKey));
+            Set<String> users = new LinkedHashSet<>();
+            for (Map<String, AttributeValue> item : page.items()) {
+                String userId = item.get(TaskItemCodec.USER_ID).s();
+                if (seeded.add(userId)) {
+                    users.add(userId);
+                }
+            }
+            List<CompletableFuture<Void>> writes = new ArrayList<>(users.size());
+            for (String userId : users) {
+                writes.add(Futures.blocking(() -> seed(userId)));
+            }
+            Futures.allOf(writes).join();
+            exclusiveStartKey = page.hasLastEvaluatedKey() ? page.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null && context.getRemainingTimeInMillis() > TIME_RESERVE_MILLIS);
+
+        Metrics.count("Users", seeded.size());
+        context.getLogger().log("Seeded task summaries of " + seeded.size() + " user(s), "
+                + (exclusiveStartKey != null ? "more to scan" : "scan complete"));
+        Map<String, Object> result = new HashMap<>();
+        result.put("users", seeded.size());
+        result.put("cursor", exclusiveStartKey != null ? CursorUtils.encode(exclusiveStartKey) : null);
+        return result;
+    }
+
+    private void seed(String userId) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String lastSequenceNumber = summaries.lastSequenceNumber(userId);
+            if (summaries.reset(userId, count(userId), lastSequenceNumber)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Summary of " + userId + " kept changing; gave up after "
+                + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Tasks per status, read from the table rather than UserStatusIndex, which only offers
+     * eventually consistent reads. Tasks without a Status are left out, as they are by
+     * {@link TaskSummaryHandler}.
+     */
+    private Map<String, Long> count(String userId) {
+        Map<String, Long> counts = new HashMap<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            QueryResponse page = dynamoDbClient.query(QueryRequest.builder()
+                    .tableName(tableName)
+                    .keyConditionExpression("#uid = :uid")
+                    .projectionExpression("#st")
+                    .expressionAttributeNames(Map.of("#uid", TaskItemCodec.USER_ID, "#st", TaskItemCodec.STATUS))
+                    .expressionAttributeValues(Map.of(":uid", AttributeValue.fromS(userId)))
+                    .consistentRead(true)
+                    .exclusiveStartKey(exclusiveStartKey)
+                    .build());
+            for (Map<String, AttributeValue> item : page.items()) {
+                AttributeValue status = item.get(TaskItemCodec.STATUS);
+                if (status != null) {
+                    counts.merge(status.s(), 1L, Long::sum);
+                }
+            }
+            exclusiveStartKey = page.hasLastEvaluatedKey() ? page.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null);
+        return counts;
+    }
+
+    private ScanRequest scan(Map<String, AttributeValue> exclusiveStartKey) {
+        return ScanRequest.builder()
+                .tableName(tableName)
+                .projectionExpression("#uid")
+                .expressionAttributeNames(Map.of("#uid", TaskItemCodec.USER_ID))
+                .exclusiveStartKey(exclusiveStartKey)
+                .build();
+    }
+}
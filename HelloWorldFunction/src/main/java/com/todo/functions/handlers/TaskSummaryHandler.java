@@ -0,0 +1,111 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.todo.metrics.Metrics;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.StatusChange;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskSummaryStore;
+import com.todo.utils.Futures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lambda handler that keeps the per-user task counts of GET /tasks/summary in step with the
+ * table, reading the same stream as {@link StreamProcessorHandler}.
+ * Each record's Status is compared between its old and new image: an insert counts +1 for
+ * the new status, a removal (including TTL deletes) -1 for the old one, and a status change
+ * both. The changes of a batch are grouped by user and applied as one write per user, the
+ * users in parallel. A user whose write fails is reported from their first record, so Lambda
+ * retries from there; records already applied are skipped by the store on redelivery.
+ * The store's per-user watermark can also skip records of a user whose partition was split
+ * across shards, so the counts can drift; {@link TaskSummaryBackfill} recounts them.
+ */
+public class TaskSummaryHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
+
+    private final TaskSummaryStore summaries;
+
+    public TaskSummaryHandler() {
+        this(TaskRepositories.summariesFromEnv());
+    }
+
+    public TaskSummaryHandler(TaskSummaryStore summaries) {
+        this.summaries = summaries;
+    }
+
+    @Override
+    public StreamsEventResponse handleRequest(DynamodbEvent event, Context context) {
+        Metrics.begin("TaskSummary", context);
+        try {
+            Metrics.count("Items", event.getRecords().size());
+            return process(event, context);
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private StreamsEventResponse process(DynamodbEvent event, Context context) {
+        Map<String, List<StatusChange>> changesByUser = new LinkedHashMap<>();
+        // Sequence number of each user's first change, as delivered, for reporting a failure
+        Map<String, String> firstSequenceNumbers = new HashMap<>();
+        int changes = 0;
+        for (DynamodbEvent.DynamodbStreamRecord record : event.getRecords()) {
+            String sequenceNumber = record.getDynamodb().getSequenceNumber();
+            String oldStatus = statusOf(record.getDynamodb().getOldImage());
+            String newStatus = statusOf(record.getDynamodb().getNewImage());
+            if (Objects.equals(oldStatus, newStatus)) {
+                continue;
+            }
+            String userId = record.getDynamodb().getKeys().get(TaskItemCodec.USER_ID).getS();
+            List<StatusChange> userChanges = changesByUser.computeIfAbsent(userId, id -> new ArrayList<>());
+            firstSequenceNumbers.putIfAbsent(userId, sequenceNumber);
+            if (oldStatus != null) {
+                userChanges.add(new StatusChange(sequenceNumber, oldStatus, -1));
+                changes++;
+            }
+            if (newStatus != null) {
+                userChanges.add(new StatusChange(sequenceNumber, newStatus, 1));
+                changes++;
+            }
+        }
+
+        List<String> users = new ArrayList<>(changesByUser.keySet());
+        List<CompletableFuture<String>> writes = new ArrayList<>(users.size());
+        for (String userId : users) {
+            List<StatusChange> userChanges = changesByUser.get(userId);
+            writes.add(Futures.blocking(() -> {
+                summaries.apply(userId, userChanges);
+                return (String) null;
+            }).exceptionally(error -> {
+                context.getLogger().log("Error in TaskSummaryHandler: " + userId + ": " + Futures.cause(error).getMessage());
+                return firstSequenceNumbers.get(userId);
+            }));
+        }
+
+        List<StreamsEventResponse.BatchItemFailure> failures = new ArrayList<>();
+        for (String failedFrom : Futures.allOf(writes).join()) {
+            if (failedFrom != null) {
+                failures.add(new StreamsEventResponse.BatchItemFailure(failedFrom));
+            }
+        }
+
+        Metrics.count("StatusChanges", changes);
+        Metrics.count("SummaryWrites", users.size() - failures.size());
+        return new StreamsEventResponse(failures);
+    }
+
+    private static String statusOf(Map<String, AttributeValue> image) {
+        AttributeValue status = image != null ? image.get(TaskItemCodec.STATUS) : null;
+        return status != null ? status.getS() : null;
+    }
+}
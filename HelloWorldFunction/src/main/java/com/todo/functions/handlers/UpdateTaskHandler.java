@@ -5,35 +5,57 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.TaskRepositories;
+import com.todo.repository.TaskRepository;
 import com.todo.utils.CorsUtils;   // ✅ include CORS helper
+import com.todo.utils.JsonUtils;
+import com.todo.utils.ResponseCache;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Lambda handler for updating a Task.
  * Triggered by PUT /tasks/{taskId}
+ * A "version" in the body makes the update conditional on the stored Version, so a client
+ * editing a stale copy gets 409 instead of overwriting someone else's change. The updated
+ * task is returned (ALL_NEW), so clients do not need a GET after every PUT.
  */
 public class UpdateTaskHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private final DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-    private final String tableName = System.getenv("TABLE_NAME");
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TaskRepository repository;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+    private final ResponseCache cache;
+
+    public UpdateTaskHandler() {
+        this(TaskRepositories.fromEnv(), ResponseCache.fromEnv());
+    }
+
+    public UpdateTaskHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, ResponseCache.fromEnv());
+    }
+
+    public UpdateTaskHandler(DynamoDbClient dynamoDbClient, String tableName, ResponseCache cache) {
+        this(new DynamoDbTaskRepository(dynamoDbClient, tableName), cache);
+    }
+
+    /** {@code cache} is the read handlers' cache; the caller's entries are dropped after every write. */
+    public UpdateTaskHandler(TaskRepository repository, ResponseCache cache) {
+        this.repository = repository;
+        this.cache = cache;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
         try {
-            // ✅ Handle CORS preflight
-            if (CorsUtils.isPreflightRequest(request.getHttpMethod())) {
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(200)
-                        .withHeaders(CorsUtils.createCorsHeaders())
-                        .withBody("");
-            }
-
             String taskId = request.getPathParameters().get("taskId");
 
             // ✅ Get userId from Cognito claims safely
@@ -44,53 +66,43 @@ public class UpdateTaskHandler implements RequestHandler<APIGatewayProxyRequestE
             // ✅ Parse request body
             Map<String, Object> body = objectMapper.readValue(request.getBody(), Map.class);
 
-            Map<String, String> expressionNames = new HashMap<>();
-            StringBuilder updateExpr = new StringBuilder("SET ");
-            Map<String, AttributeValue> expressionValues = new HashMap<>();
+            String description = body.containsKey("description") ? body.get("description").toString() : null;
+            String status = body.containsKey("status") ? body.get("status").toString() : null;
 
-            if (body.containsKey("description")) {
-                expressionNames.put("#desc", "Description");
-                expressionValues.put(":desc", AttributeValue.builder().s(body.get("description").toString()).build());
-                updateExpr.append("#desc = :desc, ");
+            // ✅ Return 400 if no fields to update
+            if (description == null && status == null) {
+                return error(400, "No valid fields provided for update");
             }
 
-            if (body.containsKey("status")) {
-                expressionNames.put("#st", "Status");
-                expressionValues.put(":st", AttributeValue.builder().s(body.get("status").toString()).build());
-                updateExpr.append("#st = :st, ");
+            Long expectedVersion;
+            try {
+                expectedVersion = parseVersion(body.get("version"));
+            } catch (IllegalArgumentException e) {
+                return error(400, e.getMessage());
             }
 
-            // ✅ Return 400 if no fields to update
-            if (expressionValues.isEmpty()) {
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(400)
-                        .withHeaders(CorsUtils.createCorsHeaders())
-                        .withBody("{\"error\":\"No valid fields provided for update\"}");
+            // Every mutation moves the version on, which is what cached reads revalidate against
+            Map<String, AttributeValue> attributes;
+            try {
+                attributes = repository.update(userId, taskId, description, status, expectedVersion);
+            } catch (ConditionalCheckFailedException e) {
+                return conflictOrNotFound(userId, taskId);
+            } finally {
+                cache.invalidate(userId);
             }
 
-            // Remove trailing comma
-            String finalUpdateExpr = updateExpr.toString().replaceAll(", $", "");
-
-            // Build key
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("UserId", AttributeValue.builder().s(userId).build());
-            key.put("TaskId", AttributeValue.builder().s(taskId).build());
-
-            // Execute update
-            dynamoDbClient.updateItem(UpdateItemRequest.builder()
-                    .tableName(tableName)
-                    .key(key)
-                    .updateExpression(finalUpdateExpr)
-                    .expressionAttributeNames(expressionNames)
-                    .expressionAttributeValues(expressionValues)
-                    .returnValues("UPDATED_NEW") // optional, for debugging
-                    .build());
+            // The response is exactly what GET /tasks/{taskId} would render, so seed its cache entry
+            Task task = TaskItemCodec.fromItem(attributes);
+            ResponseCache.Entry entry = cache.put(ResponseCache.key(userId, "task", taskId),
+                    objectMapper.writeValueAsString(task), task.getVersion().toString());
 
             // ✅ Success response with CORS
+            Map<String, String> headers = CorsUtils.createCorsHeaders();
+            headers.put("ETag", entry.etag);
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
-                    .withHeaders(CorsUtils.createCorsHeaders())
-                    .withBody("{\"message\":\"Task updated successfully\"}");
+                    .withHeaders(headers)
+                    .withBody(entry.body);
 
         } catch (Exception e) {
             context.getLogger().log("Error in UpdateTaskHandler: " + e.getMessage());
@@ -100,4 +112,40 @@ public class UpdateTaskHandler implements RequestHandler<APIGatewayProxyRequestE
                     .withBody("{\"error\":\"Could not update task\"}");
         }
     }
+
+    /**
+     * The condition failed: either the task does not exist or its Version moved on. Only
+     * this path pays for the extra read that tells the two apart.
+     */
+    private APIGatewayProxyResponseEvent conflictOrNotFound(String userId, String taskId) {
+        Long current = repository.version(userId, taskId, true);
+        if (current == null) {
+            return error(404, "Task not found");
+        }
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(409)
+                .withHeaders(CorsUtils.createCorsHeaders())
+                .withBody("{\"error\":\"Task was modified by another request\",\"version\":" + current + "}");
+    }
+
+    private static Long parseVersion(Object version) {
+        if (version == null) {
+            return null;
+        }
+        if (version instanceof Number) {
+            return ((Number) version).longValue();
+        }
+        try {
+            return Long.valueOf(version.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("version must be a number");
+        }
+    }
+
+    private static APIGatewayProxyResponseEvent error(int statusCode, String message) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(CorsUtils.createCorsHeaders())
+                .withBody(JsonUtils.errorBody(message));
+    }
 }
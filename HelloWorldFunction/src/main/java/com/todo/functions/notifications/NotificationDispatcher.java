@@ -0,0 +1,202 @@
+package com.todo.functions.notifications;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.metrics.Metrics;
+import com.todo.model.Notification;
+import com.todo.priming.HandlerPrimer;
+import com.todo.priming.Priming;
+import com.todo.utils.AwsClients;
+import com.todo.utils.Futures;
+import com.todo.utils.JsonUtils;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lambda handler draining the notification queue into SNS.
+ * The SQS event source buffers messages for up to NotificationWindowSeconds, so one batch
+ * covers a whole window. Notifications of the same kind for the same user are merged into a
+ * single digest, and digests go out in PublishBatch calls of 10. If SNS rejects a digest,
+ * every message that contributed to it is reported back for redelivery.
+ * With SDK_CLIENT_MODE=async the batches are published through SnsAsyncClient and only the
+ * handler thread waits for them.
+ */
+public class NotificationDispatcher implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    static final int SNS_BATCH_SIZE = 10;
+    // Keeps a digest well below the 256 KB SNS message limit
+    static final int MAX_TASKS_PER_DIGEST = 50;
+
+    private final SnsClient snsClient;
+    private final SnsAsyncClient asyncClient;
+    private final String topicArn;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+
+    public NotificationDispatcher() {
+        this(AwsClients.asyncMode() ? null : AwsClients.sns(),
+                AwsClients.asyncMode() ? AwsClients.snsAsync() : null,
+                System.getenv("TOPIC_ARN"));
+    }
+
+    public NotificationDispatcher(SnsClient snsClient, String topicArn) {
+        this(snsClient, null, topicArn);
+    }
+
+    public NotificationDispatcher(SnsAsyncClient asyncClient, String topicArn) {
+        this(null, asyncClient, topicArn);
+    }
+
+    private NotificationDispatcher(SnsClient snsClient, SnsAsyncClient asyncClient, String topicArn) {
+        this.snsClient = snsClient;
+        this.asyncClient = asyncClient;
+        this.topicArn = topicArn;
+        Priming.register(new HandlerPrimer(objectMapper));
+    }
+
+    @Override
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        Metrics.begin("NotificationDispatcher", context);
+        try {
+            Metrics.count("Items", event.getRecords().size());
+            return process(event, context);
+        } finally {
+            Metrics.end();
+        }
+    }
+
+    private SQSBatchResponse process(SQSEvent event, Context context) {
+        Map<String, Digest> digests = new LinkedHashMap<>();
+        for (SQSEvent.SQSMessage message : event.getRecords()) {
+            Notification notification;
+            try {
+                notification = objectMapper.readValue(message.getBody(), Notification.class);
+            } catch (Exception e) {
+                // Redelivering a message we cannot read would never succeed
+                context.getLogger().log("Dropping malformed notification " + message.getMessageId() + ": " + e.getMessage());
+                continue;
+            }
+            digests.computeIfAbsent(notification.getType() + ":" + notification.getUserId(), key -> new Digest())
+                    .add(message.getMessageId(), notification);
+        }
+
+        List<Digest> pending = new ArrayList<>(digests.values());
+        List<PublishBatchRequestEntry> entries = new ArrayList<>(pending.size());
+        for (Digest digest : pending) {
+            PublishBatchRequestEntry.Builder entry = PublishBatchRequestEntry.builder()
+                    .id(Integer.toString(entries.size()))
+                    .message(digest.message());
+            if (digest.subject() != null) {
+                entry.subject(digest.subject());
+            }
+            entries.add(entry.build());
+        }
+
+        List<CompletableFuture<List<String>>> batches = new ArrayList<>();
+        for (int start = 0; start < entries.size(); start += SNS_BATCH_SIZE) {
+            List<PublishBatchRequestEntry> batch = entries.subList(start, Math.min(start + SNS_BATCH_SIZE, entries.size()));
+            batches.add(publishBatch(batch, context));
+        }
+
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        for (List<String> failedEntryIds : Futures.allOf(batches).join()) {
+            for (String entryId : failedEntryIds) {
+                for (String messageId : pending.get(Integer.parseInt(entryId)).messageIds) {
+                    failures.add(new SQSBatchResponse.BatchItemFailure(messageId));
+                }
+            }
+        }
+
+        Metrics.count("Published", entries.size());
+        context.getLogger().log("Coalesced " + event.getRecords().size() + " notification(s) into "
+                + entries.size() + " message(s), " + batches.size() + " PublishBatch call(s)");
+        return new SQSBatchResponse(failures);
+    }
+
+    /** Publishes one batch and returns the ids of the entries SNS did not accept. */
+    private CompletableFuture<List<String>> publishBatch(List<PublishBatchRequestEntry> batch, Context context) {
+        PublishBatchRequest request = PublishBatchRequest.builder()
+                .topicArn(topicArn)
+                .publishBatchRequestEntries(batch)
+                .build();
+        CompletableFuture<PublishBatchResponse> call = asyncClient != null
+                ? Futures.attempt(() -> asyncClient.publishBatch(request))
+                : Futures.blocking(() -> snsClient.publishBatch(request));
+        return call.handle((response, error) -> {
+            List<String> failedEntryIds = new ArrayList<>();
+            if (error != null) {
+                context.getLogger().log("Failed to publish SNS batch: " + Futures.cause(error).getMessage());
+                for (PublishBatchRequestEntry entry : batch) {
+                    failedEntryIds.add(entry.id());
+                }
+            } else if (response.hasFailed()) {
+                for (BatchResultErrorEntry failed : response.failed()) {
+                    context.getLogger().log("SNS rejected notification " + failed.id() + ": " + failed.code());
+                    failedEntryIds.add(failed.id());
+                }
+            }
+            return failedEntryIds;
+        });
+    }
+
+    /** Everything one user is told about one kind of event within the window. */
+    private static final class Digest {
+        final List<String> messageIds = new ArrayList<>();
+        final List<Notification> notifications = new ArrayList<>();
+
+        void add(String messageId, Notification notification) {
+            messageIds.add(messageId);
+            notifications.add(notification);
+        }
+
+        String subject() {
+            Notification first = notifications.get(0);
+            if (!Notification.TASK_EXPIRED.equals(first.getType())) {
+                return null;
+            }
+            return notifications.size() == 1 ? "Task Expired" : notifications.size() + " Tasks Expired";
+        }
+
+        String message() {
+            Notification first = notifications.get(0);
+            if (Notification.SIGNED_IN.equals(first.getType())) {
+                return notifications.size() == 1
+                        ? String.format("User %s has successfully signed in. Email: %s", first.getUserId(), first.getEmail())
+                        : String.format("User %s has successfully signed in %d times. Email: %s",
+                                first.getUserId(), notifications.size(), first.getEmail());
+            }
+            if (notifications.size() == 1) {
+                return String.format("Task %s has expired! Deadline: %s", first.getTaskId(), deadlineOf(first));
+            }
+            StringBuilder message = new StringBuilder()
+                    .append(notifications.size()).append(" tasks have expired:\n");
+            int listed = Math.min(notifications.size(), MAX_TASKS_PER_DIGEST);
+            for (int i = 0; i < listed; i++) {
+                Notification notification = notifications.get(i);
+                message.append("- Task ").append(notification.getTaskId())
+                        .append(" (deadline ").append(deadlineOf(notification)).append(")\n");
+            }
+            if (notifications.size() > listed) {
+                message.append("...and ").append(notifications.size() - listed).append(" more\n");
+            }
+            return message.toString();
+        }
+
+        private static Object deadlineOf(Notification notification) {
+            return notification.getDeadline() != null ? Instant.ofEpochMilli(notification.getDeadline()) : "unknown";
+        }
+    }
+}
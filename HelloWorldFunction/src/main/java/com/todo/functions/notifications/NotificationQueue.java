@@ -0,0 +1,110 @@
+package com.todo.functions.notifications;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.Notification;
+import com.todo.utils.Futures;
+import com.todo.utils.JsonUtils;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Producer side of the notification pipeline. Callers hand over notifications and return
+ * immediately; delivery, coalescing and SNS fan-out happen in {@link NotificationDispatcher}.
+ */
+public class NotificationQueue {
+
+    static final int SQS_BATCH_SIZE = 10;
+
+    private final SqsClient sqsClient;
+    private final SqsAsyncClient asyncClient;
+    private final String queueUrl;
+    private final ObjectMapper objectMapper = JsonUtils.objectMapper();
+
+    public NotificationQueue(SqsClient sqsClient, String queueUrl) {
+        this.sqsClient = sqsClient;
+        this.asyncClient = null;
+        this.queueUrl = queueUrl;
+    }
+
+    public NotificationQueue(SqsAsyncClient asyncClient, String queueUrl) {
+        this.sqsClient = null;
+        this.asyncClient = asyncClient;
+        this.queueUrl = queueUrl;
+    }
+
+    public void send(Notification notification) {
+        SendMessageRequest request = SendMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .messageBody(serialize(notification))
+                .build();
+        if (asyncClient != null) {
+            asyncClient.sendMessage(request).join();
+        } else {
+            sqsClient.sendMessage(request);
+        }
+    }
+
+    /**
+     * Enqueues notifications in SendMessageBatch calls of 10, issued concurrently.
+     * Returns how many could not be enqueued.
+     */
+    public int sendAll(List<Notification> notifications) {
+        return sendAllAsync(notifications).join();
+    }
+
+    /** {@link #sendAll} without waiting; the future completes once every batch has returned. */
+    public CompletableFuture<Integer> sendAllAsync(List<Notification> notifications) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            entries.add(SendMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(entries.size()))
+                    .messageBody(serialize(notification))
+                    .build());
+        }
+
+        List<CompletableFuture<Integer>> batches = new ArrayList<>();
+        for (int start = 0; start < entries.size(); start += SQS_BATCH_SIZE) {
+            List<SendMessageBatchRequestEntry> batch = entries.subList(start, Math.min(start + SQS_BATCH_SIZE, entries.size()));
+            batches.add(sendBatch(batch));
+        }
+        return Futures.allOf(batches).thenApply(counts -> {
+            int failed = 0;
+            for (int count : counts) {
+                failed += count;
+            }
+            return failed;
+        });
+    }
+
+    private CompletableFuture<Integer> sendBatch(List<SendMessageBatchRequestEntry> batch) {
+        SendMessageBatchRequest request = SendMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(batch)
+                .build();
+        CompletableFuture<SendMessageBatchResponse> call = asyncClient != null
+                ? Futures.attempt(() -> asyncClient.sendMessageBatch(request))
+                : Futures.blocking(() -> sqsClient.sendMessageBatch(request));
+        return call.handle((response, error) -> {
+            if (error != null) {
+                return batch.size();
+            }
+            return response.hasFailed() ? response.failed().size() : 0;
+        });
+    }
+
+    private String serialize(Notification notification) {
+        try {
+            return objectMapper.writeValueAsString(notification);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Could not serialize notification", e);
+        }
+    }
+}
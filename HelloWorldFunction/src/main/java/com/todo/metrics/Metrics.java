@@ -0,0 +1,51 @@
+package com.todo.metrics;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+
+/**
+ * Container-wide entry point to the {@link MetricsLogger} that writes to stdout, where Lambda
+ * forwards each line to CloudWatch Logs and extracts the metrics. Handlers bracket their work
+ * with {@link #begin} and {@link #end}; anything in between, handlers or the SDK interceptor,
+ * records through the static helpers.
+ */
+public final class Metrics {
+
+    // Straight to the file descriptor: System.out would add its own lock and line flushing
+    private static volatile MetricsLogger logger = new MetricsLogger(new FileOutputStream(FileDescriptor.out));
+
+    private Metrics() {}
+
+    public static void begin(String function, Context context) {
+        logger.begin(function, context != null ? context.getAwsRequestId() : null);
+    }
+
+    public static void end() {
+        logger.end();
+    }
+
+    public static void millis(String name, double value) {
+        logger.record(name, MetricsLogger.Unit.MILLISECONDS, value);
+    }
+
+    public static void count(String name, double value) {
+        logger.record(name, MetricsLogger.Unit.COUNT, value);
+    }
+
+    public static void bytes(String name, long value) {
+        logger.record(name, MetricsLogger.Unit.BYTES, value);
+    }
+
+    public static void property(String key, String value) {
+        logger.property(key, value);
+    }
+
+    /** Replaces the stdout logger, e.g. to capture the lines in a test. Returns the previous one. */
+    public static MetricsLogger use(MetricsLogger replacement) {
+        MetricsLogger previous = logger;
+        logger = replacement;
+        return previous;
+    }
+}
@@ -0,0 +1,213 @@
+package com.todo.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the metrics of one invocation and writes them as a single CloudWatch Embedded
+ * Metric Format line when the invocation ends. Lambda runs one invocation per container at
+ * a time, so one logger is reused for the life of the container: values recorded from any
+ * thread between {@link #begin} and {@link #end} belong to the running invocation, and
+ * nothing is recorded outside of one.
+ * The line is assembled in buffers that are kept between invocations and written with a
+ * single call, so emission costs one write per invocation and no per-value objects.
+ */
+public class MetricsLogger {
+
+    public static final String NAMESPACE = "TodoApp";
+    public static final String DIMENSION = "Function";
+
+    // EMF rejects directives with more than 100 metrics or 100 values per metric
+    static final int MAX_METRICS = 100;
+    static final int MAX_VALUES = 100;
+
+    private final OutputStream out;
+    private final String namespace;
+
+    // Series are kept in first-recorded order and reused; a series with no values is skipped
+    private final Map<String, Series> byName = new HashMap<>();
+    private final List<Series> series = new ArrayList<>();
+    private final List<String> properties = new ArrayList<>();
+    private final StringBuilder line = new StringBuilder(1024);
+    private byte[] bytes = new byte[1024];
+
+    private boolean active;
+    private boolean coldStart = true;
+    private String function;
+    private long startNanos;
+
+    public MetricsLogger(OutputStream out) {
+        this(out, NAMESPACE);
+    }
+
+    public MetricsLogger(OutputStream out, String namespace) {
+        this.out = out;
+        this.namespace = namespace;
+    }
+
+    /** Starts collecting for an invocation of {@code function}, discarding anything left over. */
+    public synchronized void begin(String function, String requestId) {
+        for (Series s : series) {
+            s.size = 0;
+        }
+        properties.clear();
+        this.function = function;
+        this.active = true;
+        this.startNanos = System.nanoTime();
+        if (requestId != null) {
+            property("RequestId", requestId);
+        }
+    }
+
+    public synchronized void record(String name, Unit unit, double value) {
+        if (!active || Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        Series s = byName.get(name);
+        if (s == null) {
+            if (series.size() >= MAX_METRICS) {
+                return;
+            }
+            s = new Series(name, unit);
+            byName.put(name, s);
+            series.add(s);
+        }
+        s.add(value);
+    }
+
+    /** Adds a searchable field to the log line that is not published as a metric. */
+    public synchronized void property(String key, String value) {
+        if (active && value != null) {
+            properties.add(key);
+            properties.add(value);
+        }
+    }
+
+    /** Records Duration and ColdStart and writes the invocation's line. */
+    public synchronized void end() {
+        if (!active) {
+            return;
+        }
+        record("Duration", Unit.MILLISECONDS, (System.nanoTime() - startNanos) / 1_000_000.0);
+        record("ColdStart", Unit.COUNT, coldStart ? 1 : 0);
+        coldStart = false;
+        active = false;
+        render();
+        try {
+            out.write(bytes, 0, encode());
+            out.flush();
+        } catch (IOException e) {
+            // Metrics must never fail the invocation
+        }
+    }
+
+    private void render() {
+        line.setLength(0);
+        line.append("{\"_aws\":{\"Timestamp\":").append(System.currentTimeMillis())
+                .append(",\"CloudWatchMetrics\":[{\"Namespace\":");
+        string(namespace);
+        line.append(",\"Dimensions\":[[\"").append(DIMENSION).append("\"]],\"Metrics\":[");
+        boolean first = true;
+        for (Series s : series) {
+            if (s.size == 0) {
+                continue;
+            }
+            line.append(first ? "" : ",").append("{\"Name\":");
+            string(s.name);
+            line.append(",\"Unit\":\"").append(s.unit.emfName).append("\"}");
+            first = false;
+        }
+        line.append("]}]},\"").append(DIMENSION).append("\":");
+        string(function);
+        for (Series s : series) {
+            if (s.size == 0) {
+                continue;
+            }
+            line.append(',');
+            string(s.name);
+            line.append(':');
+            if (s.size == 1) {
+                line.append(s.values[0]);
+            } else {
+                line.append('[');
+                for (int i = 0; i < s.size; i++) {
+                    line.append(i == 0 ? "" : ",").append(s.values[i]);
+                }
+                line.append(']');
+            }
+        }
+        for (int i = 0; i < properties.size(); i += 2) {
+            line.append(',');
+            string(properties.get(i));
+            line.append(':');
+            string(properties.get(i + 1));
+        }
+        line.append("}\n");
+    }
+
+    // Non-ASCII is escaped, so the line can be copied into the byte buffer char by char
+    private void string(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private int encode() {
+        int length = line.length();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) line.charAt(i);
+        }
+        return length;
+    }
+
+    public enum Unit {
+        MILLISECONDS("Milliseconds"),
+        COUNT("Count"),
+        BYTES("Bytes");
+
+        final String emfName;
+
+        Unit(String emfName) {
+            this.emfName = emfName;
+        }
+    }
+
+    private static final class Series {
+        final String name;
+        final Unit unit;
+        double[] values = new double[4];
+        int size;
+
+        Series(String name, Unit unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        void add(double value) {
+            if (size == MAX_VALUES) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, MAX_VALUES));
+            }
+            values[size++] = value;
+        }
+    }
+}
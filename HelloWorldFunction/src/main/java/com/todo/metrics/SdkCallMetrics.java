@@ -0,0 +1,116 @@
+package com.todo.metrics;
+
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.List;
+
+/**
+ * Registered on every SDK client in AwsClients. Records each call's latency, retries
+ * included, as {@code <Service>.<Operation>} in milliseconds, counts failed calls as
+ * SdkErrors, and asks DynamoDB for the capacity each request consumed so it can be recorded
+ * as ConsumedCapacityUnits.
+ */
+public class SdkCallMetrics implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START_NANOS = new ExecutionAttribute<>("TodoCallStartNanos");
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        return withConsumedCapacity(context.request());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        recordLatency(executionAttributes);
+        double units = consumedCapacity(context.response());
+        if (units > 0) {
+            Metrics.count("ConsumedCapacityUnits", units);
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        recordLatency(executionAttributes);
+        Metrics.count("SdkErrors", 1);
+    }
+
+    private static void recordLatency(ExecutionAttributes executionAttributes) {
+        Long start = executionAttributes.getAttribute(START_NANOS);
+        if (start == null) {
+            return;
+        }
+        Metrics.millis(executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME) + "."
+                        + executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME),
+                (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    /** Adds ReturnConsumedCapacity=TOTAL to the DynamoDB requests the handlers send, unless already set. */
+    static SdkRequest withConsumedCapacity(SdkRequest request) {
+        if (request.getValueForField("ReturnConsumedCapacity", String.class).isPresent()) {
+            return request;
+        }
+        if (request instanceof QueryRequest) {
+            return ((QueryRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof GetItemRequest) {
+            return ((GetItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof PutItemRequest) {
+            return ((PutItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof UpdateItemRequest) {
+            return ((UpdateItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof DeleteItemRequest) {
+            return ((DeleteItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof BatchGetItemRequest) {
+            return ((BatchGetItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof BatchWriteItemRequest) {
+            return ((BatchWriteItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        return request;
+    }
+
+    /** Capacity units reported by a DynamoDB response; batch operations report one entry per table. */
+    static double consumedCapacity(SdkResponse response) {
+        Object consumed = response.getValueForField("ConsumedCapacity", Object.class).orElse(null);
+        if (consumed instanceof ConsumedCapacity) {
+            return units((ConsumedCapacity) consumed);
+        }
+        double total = 0;
+        if (consumed instanceof List) {
+            for (Object entry : (List<?>) consumed) {
+                if (entry instanceof ConsumedCapacity) {
+                    total += units((ConsumedCapacity) entry);
+                }
+            }
+        }
+        return total;
+    }
+
+    private static double units(ConsumedCapacity capacity) {
+        return capacity.capacityUnits() != null ? capacity.capacityUnits() : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.todo.model;
+
+/**
+ * A user-facing event waiting to be delivered through SNS.
+ * Producers put these on the notification queue; NotificationDispatcher coalesces them.
+ */
+public class Notification {
+
+    public static final String TASK_EXPIRED = "TASK_EXPIRED";
+    public static final String SIGNED_IN = "SIGNED_IN";
+
+    private String type;
+    private String userId;
+    private String taskId;
+    private Long deadline;
+    private String email;
+
+    // Default constructor (needed for JSON serialization)
+    public Notification() {}
+
+    public static Notification taskExpired(String userId, String taskId, long deadline) {
+        Notification notification = new Notification();
+        notification.type = TASK_EXPIRED;
+        notification.userId = userId;
+        notification.taskId = taskId;
+        notification.deadline = deadline;
+        return notification;
+    }
+
+    public static Notification signedIn(String userName, String email) {
+        Notification notification = new Notification();
+        notification.type = SIGNED_IN;
+        notification.userId = userName;
+        notification.email = email;
+        return notification;
+    }
+
+    // --- Getters and Setters ---
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getTaskId() { return taskId; }
+    public void setTaskId(String taskId) { this.taskId = taskId; }
+
+    public Long getDeadline() { return deadline; }
+    public void setDeadline(Long deadline) { this.deadline = deadline; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+}
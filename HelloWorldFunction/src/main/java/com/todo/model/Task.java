@@ -1,7 +1,6 @@
 package com.todo.model;
 
 import java.time.Instant;
-import java.util.UUID;
 
 /**
  * Represents a Task stored in DynamoDB.
@@ -15,13 +14,14 @@ public class Task {
     private String status;
     private Long deadline;
     private Long expireAt;
+    private Long version;
 
     // Default constructor (needed for DynamoDB / JSON serialization)
     public Task() {}
 
     // Constructor for new tasks
     public Task(String userId, String description) {
-        this.taskId = UUID.randomUUID().toString();
+        this.taskId = TaskIdGenerator.newTaskId();
         this.userId = userId;
         this.description = description;
         this.status = "Pending";
@@ -31,6 +31,8 @@ public class Task {
 
         // ExpireAt used for DynamoDB TTL (optional but helpful for cleanup)
         this.expireAt = this.deadline / 1000; // TTL requires seconds, not millis
+
+        this.version = TaskItemCodec.INITIAL_VERSION;
     }
 
     // --- Getters and Setters ---
@@ -51,4 +53,7 @@ public class Task {
 
     public Long getExpireAt() { return expireAt; }
     public void setExpireAt(Long expireAt) { this.expireAt = expireAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
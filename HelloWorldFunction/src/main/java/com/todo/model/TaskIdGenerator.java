@@ -0,0 +1,140 @@
+package com.todo.model;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Generates time-ordered task IDs in the ULID format: 26 Crockford base32 characters, a
+ * 48-bit millisecond timestamp followed by 80 random bits. IDs sort lexicographically by
+ * creation time, so TaskId as the sort key lists a user's tasks in creation order and a
+ * creation-time range is a TaskId range ({@link #minTaskId}, {@link #maxTaskId}).
+ *
+ * Each thread keeps its own random source and last timestamp, so generating an ID takes no
+ * lock. Within one millisecond a thread increments the random part instead of drawing a new
+ * one, which keeps its IDs strictly increasing. Tasks created before this format have
+ * random UUIDs as IDs; those stay valid but carry no creation time ({@link #isTimeOrdered}).
+ *
+ * The random sources can be reseeded after a SnapStart restore so that restored containers
+ * do not replay the same ID sequence from the snapshot.
+ */
+public final class TaskIdGenerator {
+
+    static final int LENGTH = 26;
+    private static final int TIME_LENGTH = 10;
+    /** Latest timestamp a ULID can hold. */
+    public static final long MAX_TIME = (1L << 48) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    // Bumped by reseed(); threads compare it with the generation of their random source
+    private static volatile int generation;
+    private static volatile Supplier<? extends Random> randomSource = SecureRandom::new;
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TaskIdGenerator() {}
+
+    public static String newTaskId() {
+        return STATE.get().next(System.currentTimeMillis());
+    }
+
+    /** Replaces the random source of every thread with a freshly seeded one. */
+    public static void reseed() {
+        generation++;
+    }
+
+    /**
+     * Where threads take their random source from when they (re)seed; null restores the
+     * default SecureRandom. Takes effect like {@link #reseed}. Lets tests observe reseeding.
+     */
+    public static void useRandomSource(Supplier<? extends Random> source) {
+        randomSource = source != null ? source : SecureRandom::new;
+        generation++;
+    }
+
+    /** The smallest ID that can be generated at {@code millis}. */
+    public static String minTaskId(long millis) {
+        return encode(millis, 0, 0);
+    }
+
+    /** The largest ID that can be generated at {@code millis}. */
+    public static String maxTaskId(long millis) {
+        return encode(millis, 0xFFFF, -1L);
+    }
+
+    /** True for IDs in this format, false for the random UUIDs of older tasks. */
+    public static boolean isTimeOrdered(String taskId) {
+        if (taskId == null || taskId.length() != LENGTH || taskId.charAt(0) > '7') {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            if (decode(taskId.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Creation time in epoch millis of a time-ordered ID. */
+    public static long createdAt(String taskId) {
+        long millis = 0;
+        for (int i = 0; i < TIME_LENGTH; i++) {
+            millis = (millis << 5) | decode(taskId.charAt(i));
+        }
+        return millis;
+    }
+
+    // Timestamp in the first 10 characters, then the 80 random bits (16 high, 64 low) in the last 16
+    private static String encode(long millis, int randomHigh, long randomLow) {
+        char[] chars = new char[LENGTH];
+        long low = randomLow;
+        long high = randomHigh;
+        for (int i = LENGTH - 1; i >= TIME_LENGTH; i--) {
+            chars[i] = ALPHABET[(int) (low & 31)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        for (int i = TIME_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (millis & 31)];
+            millis >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static int decode(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        for (int i = 10; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class State {
+        private int generation = -1;
+        private Random random;
+        private long lastMillis = -1;
+        private int randomHigh;
+        private long randomLow;
+
+        String next(long millis) {
+            if (generation != TaskIdGenerator.generation) {
+                generation = TaskIdGenerator.generation;
+                random = randomSource.get();
+                lastMillis = -1;
+            }
+            if (millis > lastMillis) {
+                lastMillis = millis;
+                randomHigh = random.nextInt() & 0xFFFF;
+                randomLow = random.nextLong();
+            } else if (++randomLow == 0 && (randomHigh = (randomHigh + 1) & 0xFFFF) == 0) {
+                // Same millisecond (or the clock stepped back) and the random part wrapped: borrow the next one
+                lastMillis++;
+            }
+            return encode(lastMillis, randomHigh, randomLow);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.todo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts between {@link Task} and its DynamoDB item representation.
+ * Every handler goes through this class so the attribute names cannot drift apart.
+ */
+public final class TaskItemCodec {
+
+    public static final String USER_ID = "UserId";
+    public static final String TASK_ID = "TaskId";
+    public static final String DESCRIPTION = "Description";
+    public static final String STATUS = "Status";
+    public static final String DEADLINE = "Deadline";
+    public static final String EXPIRE_AT = "ExpireAt";
+    public static final String DEADLINE_BUCKET = "DeadlineBucket";
+    /**
+     * A counter the table advances on every mutation ({@code if_not_exists(Version, 0) + 1}),
+     * so two writes never leave the same value however close together they are.
+     */
+    public static final String VERSION = "Version";
+    public static final long INITIAL_VERSION = 1;
+    /** Status#TaskId, the UserStatusIndex sort key; present whenever Status is. */
+    public static final String STATUS_TASK_ID = "StatusTaskId";
+
+    /** Sparse GSI (DeadlineBucket, Deadline) holding only tasks that are still waiting to expire. */
+    public static final String DEADLINE_INDEX = "DeadlineIndex";
+
+    /**
+     * GSI (UserId, StatusTaskId) used to list one user's tasks in a single state, in TaskId
+     * order, optionally within a TaskId range.
+     */
+    public static final String USER_STATUS_INDEX = "UserStatusIndex";
+
+    public static final String DEFAULT_DESCRIPTION = "";
+    public static final String DEFAULT_STATUS = "Pending";
+    public static final String EXPIRED_STATUS = "EXPIRED";
+
+    // Written by an earlier GetTasksHandler/CreateTaskHandler mismatch; still read for old items
+    private static final String LEGACY_EXPIRE_AT = "expireAt";
+
+    private static final int ITEM_CAPACITY = 16;
+    private static final long BUCKET_MILLIS = 60_000;
+
+    private TaskItemCodec() {}
+
+    public static Map<String, AttributeValue> key(String userId, String taskId) {
+        Map<String, AttributeValue> key = new HashMap<>(4);
+        key.put(USER_ID, AttributeValue.fromS(userId));
+        key.put(TASK_ID, AttributeValue.fromS(taskId));
+        return key;
+    }
+
+    public static Map<String, AttributeValue> toItem(Task task) {
+        Map<String, AttributeValue> item = new HashMap<>(ITEM_CAPACITY);
+        item.put(USER_ID, AttributeValue.fromS(task.getUserId()));
+        item.put(TASK_ID, AttributeValue.fromS(task.getTaskId()));
+        if (task.getDescription() != null) {
+            item.put(DESCRIPTION, AttributeValue.fromS(task.getDescription()));
+        }
+        if (task.getStatus() != null) {
+            item.put(STATUS, AttributeValue.fromS(task.getStatus()));
+            item.put(STATUS_TASK_ID, AttributeValue.fromS(statusTaskId(task.getStatus(), task.getTaskId())));
+        }
+        if (task.getDeadline() != null) {
+            item.put(DEADLINE, AttributeValue.fromN(Long.toString(task.getDeadline())));
+            if (awaitsExpiry(task.getStatus())) {
+                item.put(DEADLINE_BUCKET, AttributeValue.fromN(Long.toString(deadlineBucket(task.getDeadline()))));
+            }
+        }
+        if (task.getExpireAt() != null) {
+            item.put(EXPIRE_AT, AttributeValue.fromN(Long.toString(task.getExpireAt())));
+        }
+        if (task.getVersion() != null) {
+            item.put(VERSION, AttributeValue.fromN(Long.toString(task.getVersion())));
+        }
+        return item;
+    }
+
+    /** The minute a deadline (epoch millis) falls in, used as the DeadlineIndex partition key. */
+    public static long deadlineBucket(long deadlineMillis) {
+        return Math.floorDiv(deadlineMillis, BUCKET_MILLIS);
+    }
+
+    /**
+     * Only Pending tasks expire; any other status (Done, EXPIRED, ...) is final as far as the
+     * deadline is concerned. Items without a Status read as Pending.
+     */
+    public static boolean awaitsExpiry(String status) {
+        return status == null || DEFAULT_STATUS.equals(status);
+    }
+
+    /**
+     * The UserStatusIndex sort key of a task: its status and ID joined by '#', so that one
+     * status is a key prefix and its tasks sort by TaskId within it.
+     */
+    public static String statusTaskId(String status, String taskId) {
+        return status + '#' + taskId;
+    }
+
+    /** The StatusTaskId an item should carry, or null if it has no Status. */
+    public static String statusTaskIdOf(Map<String, AttributeValue> item) {
+        AttributeValue status = item.get(STATUS);
+        return status != null ? statusTaskId(status.s(), item.get(TASK_ID).s()) : null;
+    }
+
+    /** The DeadlineIndex bucket an item belongs in, or null if it should not be in the index. */
+    public static Long deadlineBucketOf(Map<String, AttributeValue> item) {
+        AttributeValue deadline = item.get(DEADLINE);
+        AttributeValue status = item.get(STATUS);
+        if (deadline == null || !awaitsExpiry(status != null ? status.s() : null)) {
+            return null;
+        }
+        return deadlineBucket(Long.parseLong(deadline.n()));
+    }
+
+    public static Task fromItem(Map<String, AttributeValue> item) {
+        Task task = newTaskWithDefaults();
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            AttributeValue value = attribute.getValue();
+            switch (attribute.getKey()) {
+                case USER_ID: task.setUserId(value.s()); break;
+                case TASK_ID: task.setTaskId(value.s()); break;
+                case DESCRIPTION: task.setDescription(value.s()); break;
+                case STATUS: task.setStatus(value.s()); break;
+                case DEADLINE: task.setDeadline(parseLong(value.n())); break;
+                case EXPIRE_AT: task.setExpireAt(parseLong(value.n())); break;
+                case VERSION: task.setVersion(parseLong(value.n())); break;
+                case LEGACY_EXPIRE_AT:
+                    if (task.getExpireAt() == null) {
+                        task.setExpireAt(parseLong(value.n()));
+                    }
+                    break;
+                default: break;
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Writes an item as the JSON object Jackson would produce for {@code fromItem(item)},
+     * without building the Task. Used to stream large listings straight into the response.
+     */
+    public static void writeJson(Map<String, AttributeValue> item, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeString(generator, "taskId", item.get(TASK_ID), null);
+        writeString(generator, "userId", item.get(USER_ID), null);
+        writeString(generator, "description", item.get(DESCRIPTION), DEFAULT_DESCRIPTION);
+        writeString(generator, "status", item.get(STATUS), DEFAULT_STATUS);
+        writeNumber(generator, "deadline", item.get(DEADLINE));
+        writeNumber(generator, "expireAt", item.containsKey(EXPIRE_AT) ? item.get(EXPIRE_AT) : item.get(LEGACY_EXPIRE_AT));
+        writeNumber(generator, "version", item.get(VERSION));
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, String field, AttributeValue value, String defaultValue)
+            throws IOException {
+        generator.writeStringField(field, value != null ? value.s() : defaultValue);
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, AttributeValue value) throws IOException {
+        generator.writeFieldName(field);
+        if (value != null && value.n() != null) {
+            // Numbers are written by toItem as plain longs, so the text can be copied as is
+            generator.writeNumber(value.n());
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    /** Same as {@link #fromItem} for the image types carried by DynamoDB stream events. */
+    public static Task fromStreamImage(Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> image) {
+        Task task = newTaskWithDefaults();
+        for (Map.Entry<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> attribute : image.entrySet()) {
+            com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue value = attribute.getValue();
+            switch (attribute.getKey()) {
+                case USER_ID: task.setUserId(value.getS()); break;
+                case TASK_ID: task.setTaskId(value.getS()); break;
+                case DESCRIPTION: task.setDescription(value.getS()); break;
+                case STATUS: task.setStatus(value.getS()); break;
+                case DEADLINE: task.setDeadline(parseLong(value.getN())); break;
+                case EXPIRE_AT: task.setExpireAt(parseLong(value.getN())); break;
+                case VERSION: task.setVersion(parseLong(value.getN())); break;
+                case LEGACY_EXPIRE_AT:
+                    if (task.getExpireAt() == null) {
+                        task.setExpireAt(parseLong(value.getN()));
+                    }
+                    break;
+                default: break;
+            }
+        }
+        return task;
+    }
+
+    private static Task newTaskWithDefaults() {
+        Task task = new Task();
+        task.setDescription(DEFAULT_DESCRIPTION);
+        task.setStatus(DEFAULT_STATUS);
+        return task;
+    }
+
+    private static Long parseLong(String number) {
+        return number != null ? Long.valueOf(number) : null;
+    }
+}
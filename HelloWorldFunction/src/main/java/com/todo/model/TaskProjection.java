@@ -0,0 +1,126 @@
+package com.todo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A client-chosen subset of task fields, from a "fields=taskId,description" parameter.
+ * Translates to a DynamoDB ProjectionExpression so only those attributes are read, and
+ * renders items with just those fields.
+ */
+public final class TaskProjection {
+
+    private static final Map<String, String> ATTRIBUTES_BY_FIELD = Map.of(
+            "taskId", TaskItemCodec.TASK_ID,
+            "userId", TaskItemCodec.USER_ID,
+            "description", TaskItemCodec.DESCRIPTION,
+            "status", TaskItemCodec.STATUS,
+            "deadline", TaskItemCodec.DEADLINE,
+            "expireAt", TaskItemCodec.EXPIRE_AT,
+            "version", TaskItemCodec.VERSION);
+
+    private final List<String> fields;
+    private final List<String> attributes;
+    private final String expression;
+    private final Map<String, String> expressionAttributeNames;
+
+    private TaskProjection(List<String> fields) {
+        this.fields = Collections.unmodifiableList(fields);
+        this.attributes = new ArrayList<>(fields.size());
+        this.expressionAttributeNames = new HashMap<>();
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            String attribute = ATTRIBUTES_BY_FIELD.get(fields.get(i));
+            String placeholder = "#p" + i;
+            attributes.add(attribute);
+            expressionAttributeNames.put(placeholder, attribute);
+            if (i > 0) {
+                expression.append(", ");
+            }
+            expression.append(placeholder);
+        }
+        this.expression = expression.toString();
+    }
+
+    /**
+     * Parses a comma-separated field list. Returns null when no projection was requested and
+     * throws IllegalArgumentException for unknown fields. Key fields are always included so
+     * that results can be matched back to their keys.
+     */
+    public static TaskProjection parse(String fieldsParam) {
+        if (fieldsParam == null || fieldsParam.isBlank()) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        fields.add("taskId");
+        for (String field : fieldsParam.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!ATTRIBUTES_BY_FIELD.containsKey(trimmed)) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed);
+            }
+            if (!fields.contains(trimmed)) {
+                fields.add(trimmed);
+            }
+        }
+        return new TaskProjection(fields);
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    public Map<String, String> expressionAttributeNames() {
+        return expressionAttributeNames;
+    }
+
+    public List<String> fields() {
+        return fields;
+    }
+
+    /** Item attribute names of {@link #fields()}, in the same order. */
+    public List<String> attributes() {
+        return Collections.unmodifiableList(attributes);
+    }
+
+    /** Renders only the projected fields; attributes missing from the item are omitted. */
+    public Map<String, Object> toJson(Map<String, AttributeValue> item) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            AttributeValue value = item.get(attributes.get(i));
+            if (value == null) {
+                continue;
+            }
+            json.put(fields.get(i), value.n() != null ? (Object) Long.valueOf(value.n()) : value.s());
+        }
+        return json;
+    }
+
+    /** Streaming form of {@link #toJson} for writing listings directly into the response. */
+    public void writeJson(Map<String, AttributeValue> item, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < fields.size(); i++) {
+            AttributeValue value = item.get(attributes.get(i));
+            if (value == null) {
+                continue;
+            }
+            generator.writeFieldName(fields.get(i));
+            if (value.n() != null) {
+                generator.writeNumber(value.n());
+            } else {
+                generator.writeString(value.s());
+            }
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,42 @@
+package com.todo.priming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.crac.Context;
+import org.crac.Resource;
+
+/**
+ * CRaC resource registered by each handler. Before the snapshot it warms the
+ * handler's ObjectMapper, the SDK request builders and TLS; after a restore it
+ * refreshes the random ID source and credentials.
+ */
+public class HandlerPrimer implements Resource {
+
+    private final ObjectMapper objectMapper;
+
+    public HandlerPrimer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) throws Exception {
+        Priming.primeTaskJson(objectMapper);
+        Priming.primeDynamoDbRequests();
+        Priming.primeTls();
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        Priming.afterRestore();
+    }
+
+    // Handlers sharing a mapper (e.g. behind TaskApiRouter) only need to be primed once
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof HandlerPrimer && ((HandlerPrimer) other).objectMapper == objectMapper;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(objectMapper);
+    }
+}
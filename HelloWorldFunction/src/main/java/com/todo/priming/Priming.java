@@ -0,0 +1,107 @@
+package com.todo.priming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.Task;
+import com.todo.model.TaskIdGenerator;
+import com.todo.model.TaskItemCodec;
+import com.todo.utils.AwsClients;
+import com.todo.utils.CursorUtils;
+import org.crac.Core;
+import org.crac.Resource;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Warm-up routines run before a SnapStart snapshot is taken, and the matching
+ * clean-up run after each restore. Nothing in here talks to AWS.
+ */
+public final class Priming {
+
+    private static final String PRIMING_TABLE = "priming";
+
+    // The CRaC context only holds weak references to registered resources
+    private static final List<Resource> registered = new CopyOnWriteArrayList<>();
+
+    private Priming() {}
+
+    public static synchronized void register(Resource resource) {
+        if (registered.contains(resource)) {
+            return;
+        }
+        registered.add(resource);
+        Core.getGlobalContext().register(resource);
+    }
+
+    /** Exercises Jackson introspection of Task and of the request-body maps the handlers read. */
+    public static void primeTaskJson(ObjectMapper objectMapper) throws Exception {
+        Task task = new Task("priming-user", "priming");
+        String json = objectMapper.writeValueAsString(task);
+        objectMapper.readValue(json, Task.class);
+        objectMapper.readValue(json, Map.class);
+        objectMapper.writeValueAsString(List.of(task));
+    }
+
+    /**
+     * Builds one of every DynamoDB request the handlers send, which loads the SDK model
+     * and marshalling field metadata without issuing a call.
+     */
+    public static void primeDynamoDbRequests() {
+        Task task = new Task("priming-user", "priming");
+        Map<String, AttributeValue> item = TaskItemCodec.toItem(task);
+        TaskItemCodec.fromItem(item);
+        Map<String, AttributeValue> key = TaskItemCodec.key(task.getUserId(), task.getTaskId());
+
+        GetItemRequest.builder().tableName(PRIMING_TABLE).key(key).build().toString();
+        DeleteItemRequest.builder().tableName(PRIMING_TABLE).key(key).build().toString();
+        PutItemRequest.builder().tableName(PRIMING_TABLE).item(item).build().toString();
+        QueryRequest.builder()
+                .tableName(PRIMING_TABLE)
+                .keyConditionExpression("#uid = :uid")
+                .expressionAttributeNames(Map.of("#uid", TaskItemCodec.USER_ID))
+                .expressionAttributeValues(Map.of(":uid", key.get(TaskItemCodec.USER_ID)))
+                .limit(1)
+                .exclusiveStartKey(CursorUtils.decode(CursorUtils.encode(key)))
+                .build()
+                .toString();
+        UpdateItemRequest.builder()
+                .tableName(PRIMING_TABLE)
+                .key(key)
+                .updateExpression("SET #st = :st")
+                .expressionAttributeNames(Map.of("#st", TaskItemCodec.STATUS))
+                .expressionAttributeValues(Map.of(":st", AttributeValue.fromS(TaskItemCodec.DEFAULT_STATUS)))
+                .returnValues("UPDATED_NEW")
+                .build()
+                .toString();
+    }
+
+    /**
+     * Loads JSSE, the default trust store and the key-exchange code by producing a
+     * ClientHello on an unconnected engine. The handshake itself has to happen after
+     * restore, since sockets cannot survive the snapshot.
+     */
+    public static void primeTls() throws Exception {
+        SSLEngine engine = SSLContext.getDefault().createSSLEngine("dynamodb.amazonaws.com", 443);
+        engine.setUseClientMode(true);
+        ByteBuffer out = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+        engine.beginHandshake();
+        engine.wrap(ByteBuffer.allocate(0), out);
+        engine.closeOutbound();
+    }
+
+    /** Refreshes state that must differ between containers restored from the same snapshot. */
+    public static void afterRestore() {
+        TaskIdGenerator.reseed();
+        AwsClients.refreshCredentials();
+    }
+}
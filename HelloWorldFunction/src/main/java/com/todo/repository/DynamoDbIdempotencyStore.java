@@ -0,0 +1,102 @@
+package com.todo.repository;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Idempotency records in their own DynamoDB table, keyed by IdempotencyKey and removed by
+ * TTL on ExpireAt. Claims are conditional puts; a lost claim reads the winner back with a
+ * consistent read. A release is a delete on condition that the item is still the claim being
+ * released: no StatusCode yet, and the ExpireAt that claim was written with.
+ */
+public class DynamoDbIdempotencyStore implements IdempotencyStore {
+
+    static final String KEY = "IdempotencyKey";
+    static final String REQUEST_HASH = "RequestHash";
+    static final String STATUS_CODE = "StatusCode";
+    static final String RESPONSE_BODY = "ResponseBody";
+    static final String EXPIRE_AT = "ExpireAt";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public DynamoDbIdempotencyStore(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public IdempotencyRecord claim(IdempotencyRecord record, long nowMillis) {
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(toItem(record))
+                    .conditionExpression("attribute_not_exists(#key) OR #exp <= :now")
+                    .expressionAttributeNames(Map.of("#key", KEY, "#exp", EXPIRE_AT))
+                    .expressionAttributeValues(Map.of(":now", AttributeValue.fromN(Long.toString(nowMillis / 1000))))
+                    .build());
+            return null;
+        } catch (ConditionalCheckFailedException e) {
+            Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of(KEY, AttributeValue.fromS(record.key())))
+                    .consistentRead(true)
+                    .build()).item();
+            // Released between our put and this read: report it as in progress and let the client retry
+            return item != null && !item.isEmpty() ? fromItem(item) : record;
+        }
+    }
+
+    @Override
+    public void complete(IdempotencyRecord record) {
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(tableName)
+                .item(toItem(record))
+                .build());
+    }
+
+    @Override
+    public void release(IdempotencyRecord claim) {
+        try {
+            dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of(KEY, AttributeValue.fromS(claim.key())))
+                    .conditionExpression("attribute_not_exists(#code) AND #exp = :exp")
+                    .expressionAttributeNames(Map.of("#code", STATUS_CODE, "#exp", EXPIRE_AT))
+                    .expressionAttributeValues(Map.of(":exp", AttributeValue.fromN(Long.toString(claim.expireAt()))))
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            // Another request holds the key now, or this one finished after all
+        }
+    }
+
+    static Map<String, AttributeValue> toItem(IdempotencyRecord record) {
+        Map<String, AttributeValue> item = new HashMap<>(8);
+        item.put(KEY, AttributeValue.fromS(record.key()));
+        item.put(REQUEST_HASH, AttributeValue.fromS(record.requestHash()));
+        item.put(EXPIRE_AT, AttributeValue.fromN(Long.toString(record.expireAt())));
+        if (!record.isInProgress()) {
+            item.put(STATUS_CODE, AttributeValue.fromN(Integer.toString(record.statusCode())));
+            item.put(RESPONSE_BODY, AttributeValue.fromS(record.responseBody()));
+        }
+        return item;
+    }
+
+    static IdempotencyRecord fromItem(Map<String, AttributeValue> item) {
+        AttributeValue statusCode = item.get(STATUS_CODE);
+        AttributeValue responseBody = item.get(RESPONSE_BODY);
+        return new IdempotencyRecord(
+                item.get(KEY).s(),
+                item.get(REQUEST_HASH).s(),
+                statusCode != null ? Integer.parseInt(statusCode.n()) : 0,
+                responseBody != null ? responseBody.s() : null,
+                Long.parseLong(item.get(EXPIRE_AT).n()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.todo.repository;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sweep checkpoint as one item in a small state table keyed by SweepName. Both writes
+ * are conditional on the value they replace, so a slow run cannot move the checkpoint back
+ * over a newer one.
+ */
+public class DynamoDbSweepCheckpointStore implements SweepCheckpointStore {
+
+    static final String SWEEP_NAME = "SweepName";
+    static final String SWEPT_THROUGH = "SweptThrough";
+    static final String DEADLINE_SWEEP = "DeadlineIndex";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public DynamoDbSweepCheckpointStore(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public Long sweptThrough() {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key())
+                .consistentRead(true)
+                .build()).item();
+        AttributeValue value = item != null ? item.get(SWEPT_THROUGH) : null;
+        return value != null ? Long.parseLong(value.n()) : null;
+    }
+
+    @Override
+    public boolean advance(Long expected, long bucket) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":to", AttributeValue.fromN(Long.toString(bucket)));
+        String condition = "attribute_not_exists(#swept)";
+        if (expected != null) {
+            values.put(":expected", AttributeValue.fromN(Long.toString(expected)));
+            condition = "#swept = :expected";
+        }
+        return set(condition, values);
+    }
+
+    @Override
+    public void rewind(long bucket) {
+        set("attribute_not_exists(#swept) OR #swept >= :bucket", Map.of(
+                ":to", AttributeValue.fromN(Long.toString(bucket - 1)),
+                ":bucket", AttributeValue.fromN(Long.toString(bucket))));
+    }
+
+    private boolean set(String condition, Map<String, AttributeValue> values) {
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(key())
+                    .updateExpression("SET #swept = :to")
+                    .conditionExpression(condition)
+                    .expressionAttributeNames(Map.of("#swept", SWEPT_THROUGH))
+                    .expressionAttributeValues(values)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, AttributeValue> key() {
+        return Map.of(SWEEP_NAME, AttributeValue.fromS(DEADLINE_SWEEP));
+    }
+}
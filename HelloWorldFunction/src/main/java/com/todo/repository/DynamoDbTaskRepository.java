@@ -0,0 +1,533 @@
+package com.todo.repository;
+
+import com.todo.model.TaskItemCodec;
+import com.todo.model.TaskProjection;
+import com.todo.utils.ConcurrencyUtils;
+import com.todo.utils.Futures;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The tasks table in DynamoDB. Built with a {@link DynamoDbAsyncClient} only expiries are
+ * supported, and {@link #expireAsync} does not hold a thread while the update is in flight.
+ */
+public class DynamoDbTaskRepository implements TaskRepository {
+
+    static final int MAX_ATTEMPTS = 5;
+
+    private static final int DESCRIPTION = 1;
+    private static final int STATUS = 2;
+    private static final int VERSIONED = 4;
+    private static final int DEADLINE = 8;
+    // The new status is not Pending, so the task leaves the DeadlineIndex
+    private static final int CLOSED = 16;
+
+    // Version is a counter the table advances itself, so no two writes can store the same one
+    private static final String NEXT_VERSION = "#ver = if_not_exists(#ver, :zero) + :one";
+    private static final AttributeValue ZERO = AttributeValue.fromN("0");
+    private static final AttributeValue ONE = AttributeValue.fromN("1");
+
+    // One template per combination of updated fields and version check, built once per container
+    private static final UpdateTemplate[] TEMPLATES = new UpdateTemplate[32];
+
+    static {
+        for (int mask = 0; mask < TEMPLATES.length; mask++) {
+            TEMPLATES[mask] = new UpdateTemplate(mask);
+        }
+    }
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbAsyncClient asyncClient;
+    private final String tableName;
+
+    public DynamoDbTaskRepository(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.asyncClient = null;
+        this.tableName = tableName;
+    }
+
+    public DynamoDbTaskRepository(DynamoDbAsyncClient asyncClient, String tableName) {
+        this.dynamoDbClient = null;
+        this.asyncClient = asyncClient;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public Map<String, AttributeValue> get(String userId, String taskId) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(TaskItemCodec.key(userId, taskId))
+                .build()).item();
+        return item != null && !item.isEmpty() ? item : null;
+    }
+
+    @Override
+    public Long version(String userId, String taskId, boolean consistentRead) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(TaskItemCodec.key(userId, taskId))
+                .projectionExpression("#ver")
+                .expressionAttributeNames(Map.of("#ver", TaskItemCodec.VERSION))
+                .consistentRead(consistentRead)
+                .build()).item();
+        AttributeValue version = item != null ? item.get(TaskItemCodec.VERSION) : null;
+        return version != null ? Long.valueOf(version.n()) : null;
+    }
+
+    /**
+     * Reads every key with BatchGetItem, retrying whatever DynamoDB returns as unprocessed
+     * with jittered backoff, up to MAX_ATTEMPTS calls.
+     */
+    @Override
+    public Map<String, Map<String, AttributeValue>> getAll(String userId, Collection<String> taskIds,
+                                                          TaskProjection projection) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(taskIds.size());
+        for (String taskId : taskIds) {
+            keys.add(TaskItemCodec.key(userId, taskId));
+        }
+
+        KeysAndAttributes.Builder template = KeysAndAttributes.builder();
+        if (projection != null) {
+            template.projectionExpression(projection.expression())
+                    .expressionAttributeNames(projection.expressionAttributeNames());
+        }
+
+        Map<String, Map<String, AttributeValue>> itemsByTaskId = new HashMap<>(taskIds.size() * 2);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && !keys.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                ConcurrencyUtils.backoff(attempt);
+            }
+            KeysAndAttributes keysAndAttributes = template.keys(keys).build();
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(builder -> builder
+                    .requestItems(Map.of(tableName, keysAndAttributes)));
+            if (response.hasResponses()) {
+                for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                    itemsByTaskId.put(item.get(TaskItemCodec.TASK_ID).s(), item);
+                }
+            }
+            KeysAndAttributes unprocessed = response.hasUnprocessedKeys()
+                    ? response.unprocessedKeys().get(tableName)
+                    : null;
+            keys = unprocessed != null && unprocessed.hasKeys() ? unprocessed.keys() : List.of();
+        }
+        return keys.isEmpty() ? itemsByTaskId : null;
+    }
+
+    @Override
+    public Page query(PageQuery query, boolean versionsOnly) {
+        QueryResponse response = dynamoDbClient.query(request(query, versionsOnly));
+        return new Page(response.items(), response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null);
+    }
+
+    /**
+     * The base table for the full list, the UserId+StatusTaskId index when filtered by status.
+     * TaskId and Version are always read so the page can be fingerprinted, even when the
+     * client asked for other fields only.
+     *
+     * A creation-time range is a TaskId range, part of the key condition either way: on
+     * TaskId for the base table, on StatusTaskId (Status#TaskId) for the index, so both list
+     * in TaskId order and honour newestFirst. DynamoDB does not allow a filter on the key
+     * attribute it is querying, so the older UUID-keyed tasks whose IDs happen to sort into
+     * the range are returned too and left for the caller to skip.
+     */
+    private QueryRequest request(PageQuery pageQuery, boolean versionsOnly) {
+        Map<String, String> expressionAttributesNames = new HashMap<>();
+        expressionAttributesNames.put("#uid", TaskItemCodec.USER_ID);
+
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":uid", AttributeValue.fromS(pageQuery.userId()));
+
+        QueryRequest.Builder query = QueryRequest.builder()
+                .tableName(tableName)
+                .limit(pageQuery.limit())
+                .scanIndexForward(!pageQuery.newestFirst())
+                .exclusiveStartKey(pageQuery.exclusiveStartKey());
+        String status = pageQuery.status();
+        if (status != null) {
+            String prefix = TaskItemCodec.statusTaskId(status, "");
+            expressionAttributesNames.put("#stid", TaskItemCodec.STATUS_TASK_ID);
+            query.indexName(TaskItemCodec.USER_STATUS_INDEX);
+            if (pageQuery.hasCreatedRange()) {
+                expressionAttributeValues.put(":from", AttributeValue.fromS(prefix + pageQuery.fromTaskId()));
+                expressionAttributeValues.put(":to", AttributeValue.fromS(prefix + pageQuery.toTaskId()));
+                query.keyConditionExpression("#uid = :uid AND #stid BETWEEN :from AND :to");
+            } else {
+                expressionAttributeValues.put(":prefix", AttributeValue.fromS(prefix));
+                query.keyConditionExpression("#uid = :uid AND begins_with(#stid, :prefix)");
+            }
+            if (status.indexOf('#') >= 0) {
+                // "A#B#<id>" also begins with "A#"; only a status with a '#' can collide like that
+                expressionAttributesNames.put("#st", TaskItemCodec.STATUS);
+                expressionAttributeValues.put(":st", AttributeValue.fromS(status));
+                query.filterExpression("#st = :st");
+            }
+        } else if (pageQuery.hasCreatedRange()) {
+            expressionAttributesNames.put("#tid", TaskItemCodec.TASK_ID);
+            expressionAttributeValues.put(":from", AttributeValue.fromS(pageQuery.fromTaskId()));
+            expressionAttributeValues.put(":to", AttributeValue.fromS(pageQuery.toTaskId()));
+            query.keyConditionExpression("#uid = :uid AND #tid BETWEEN :from AND :to");
+        } else {
+            query.keyConditionExpression("#uid = :uid");
+        }
+
+        TaskProjection projection = pageQuery.projection();
+        if (versionsOnly) {
+            expressionAttributesNames.put("#tid", TaskItemCodec.TASK_ID);
+            expressionAttributesNames.put("#ver", TaskItemCodec.VERSION);
+            query.projectionExpression("#tid, #ver");
+        } else if (projection != null) {
+            // The projection always starts with taskId; add Version unless it was asked for
+            expressionAttributesNames.putAll(projection.expressionAttributeNames());
+            String expression = projection.expression();
+            if (!projection.fields().contains("version")) {
+                expressionAttributesNames.put("#ver", TaskItemCodec.VERSION);
+                expression += ", #ver";
+            }
+            query.projectionExpression(expression);
+        }
+        return query.expressionAttributeNames(expressionAttributesNames)
+                .expressionAttributeValues(expressionAttributeValues)
+                .build();
+    }
+
+    @Override
+    public void put(Map<String, AttributeValue> item) {
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .build());
+    }
+
+    @Override
+    public void delete(String userId, String taskId) {
+        dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                .tableName(tableName)
+                .key(TaskItemCodec.key(userId, taskId))
+                .build());
+    }
+
+    @Override
+    public Map<String, AttributeValue> update(String userId, String taskId, String description, String status,
+                                              Long deadline, Long expectedVersion) {
+        int mask = 0;
+        Map<String, AttributeValue> expressionValues = new HashMap<>(8);
+        if (description != null) {
+            mask |= DESCRIPTION;
+            expressionValues.put(":desc", AttributeValue.fromS(description));
+        }
+        if (status != null) {
+            mask |= STATUS;
+            expressionValues.put(":st", AttributeValue.fromS(status));
+            expressionValues.put(":stid", AttributeValue.fromS(TaskItemCodec.statusTaskId(status, taskId)));
+            if (!TaskItemCodec.awaitsExpiry(status)) {
+                mask |= CLOSED;
+            }
+        }
+        if (deadline != null) {
+            mask |= DEADLINE;
+            expressionValues.put(":dl", AttributeValue.fromN(Long.toString(deadline)));
+            expressionValues.put(":exp", AttributeValue.fromN(Long.toString(deadline / 1000)));
+            if ((mask & CLOSED) == 0) {
+                expressionValues.put(":bk", AttributeValue.fromN(Long.toString(TaskItemCodec.deadlineBucket(deadline))));
+            }
+        }
+        if (expectedVersion != null) {
+            mask |= VERSIONED;
+            expressionValues.put(":expected", AttributeValue.fromN(Long.toString(expectedVersion)));
+        }
+        expressionValues.put(":zero", ZERO);
+        expressionValues.put(":one", ONE);
+
+        UpdateTemplate template = TEMPLATES[mask];
+        Map<String, AttributeValue> updated = dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(TaskItemCodec.key(userId, taskId))
+                .updateExpression(template.updateExpression)
+                .conditionExpression(template.conditionExpression)
+                .expressionAttributeNames(template.expressionAttributeNames)
+                .expressionAttributeValues(expressionValues)
+                .returnValues(ReturnValue.ALL_NEW)
+                .build()).attributes();
+
+        // Reopening a task without a new deadline, or moving the deadline of a task that is
+        // not Pending, depends on what was stored; fix the index keys up from the result
+        if (!reindex(updated)) {
+            return updated;
+        }
+        Map<String, AttributeValue> reindexed = new HashMap<>(updated);
+        Long bucket = TaskItemCodec.deadlineBucketOf(updated);
+        if (bucket != null) {
+            reindexed.put(TaskItemCodec.DEADLINE_BUCKET, AttributeValue.fromN(Long.toString(bucket)));
+        } else {
+            reindexed.remove(TaskItemCodec.DEADLINE_BUCKET);
+        }
+        String statusTaskId = TaskItemCodec.statusTaskIdOf(updated);
+        if (statusTaskId != null) {
+            reindexed.put(TaskItemCodec.STATUS_TASK_ID, AttributeValue.fromS(statusTaskId));
+        }
+        return reindexed;
+    }
+
+    /**
+     * Brings an item's index keys in line with its Status and Deadline: a Pending task with a
+     * deadline is filed under its DeadlineIndex bucket, anything else is taken out, and a task
+     * with a Status carries its StatusTaskId. The write is conditional on the attributes the
+     * decision was made from, so it never undoes a concurrent change. Returns whether anything
+     * was changed; no request is made when the keys were already right.
+     */
+    public boolean reindex(Map<String, AttributeValue> item) {
+        Long wantedBucket = TaskItemCodec.deadlineBucketOf(item);
+        AttributeValue storedBucket = item.get(TaskItemCodec.DEADLINE_BUCKET);
+        boolean bucketRight = wantedBucket == null
+                ? storedBucket == null
+                : storedBucket != null && wantedBucket.toString().equals(storedBucket.n());
+        String wantedStatusTaskId = TaskItemCodec.statusTaskIdOf(item);
+        AttributeValue storedStatusTaskId = item.get(TaskItemCodec.STATUS_TASK_ID);
+        boolean statusTaskIdRight = wantedStatusTaskId == null
+                ? storedStatusTaskId == null
+                : storedStatusTaskId != null && wantedStatusTaskId.equals(storedStatusTaskId.s());
+        if (bucketRight && statusTaskIdRight) {
+            return false;
+        }
+
+        Map<String, String> names = new HashMap<>(4);
+        Map<String, AttributeValue> values = new HashMap<>(4);
+        names.put("#bk", TaskItemCodec.DEADLINE_BUCKET);
+        String condition = unchanged("#dl", TaskItemCodec.DEADLINE, item, names, values)
+                + " AND " + unchanged("#st", TaskItemCodec.STATUS, item, names, values)
+                + " AND " + unchanged("#bk", TaskItemCodec.DEADLINE_BUCKET, item, names, values);
+        List<String> set = new ArrayList<>(2);
+        List<String> remove = new ArrayList<>(2);
+        if (!bucketRight) {
+            if (wantedBucket != null) {
+                values.put(":newbk", AttributeValue.fromN(Long.toString(wantedBucket)));
+                set.add("#bk = :newbk");
+            } else {
+                remove.add("#bk");
+            }
+        }
+        if (!statusTaskIdRight) {
+            names.put("#stid", TaskItemCodec.STATUS_TASK_ID);
+            if (wantedStatusTaskId != null) {
+                values.put(":newstid", AttributeValue.fromS(wantedStatusTaskId));
+                set.add("#stid = :newstid");
+            } else {
+                remove.add("#stid");
+            }
+        }
+        String update = (set.isEmpty() ? "" : "SET " + String.join(", ", set))
+                + (set.isEmpty() || remove.isEmpty() ? "" : " ")
+                + (remove.isEmpty() ? "" : "REMOVE " + String.join(", ", remove));
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(TaskItemCodec.key(item.get(TaskItemCodec.USER_ID).s(), item.get(TaskItemCodec.TASK_ID).s()))
+                    .updateExpression(update)
+                    .conditionExpression(condition)
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /** A condition that {@code attribute} still has the value it has in {@code item}, or is still absent. */
+    private static String unchanged(String placeholder, String attribute, Map<String, AttributeValue> item,
+                                    Map<String, String> names, Map<String, AttributeValue> values) {
+        names.put(placeholder, attribute);
+        AttributeValue value = item.get(attribute);
+        if (value == null) {
+            return "attribute_not_exists(" + placeholder + ")";
+        }
+        String valuePlaceholder = ":" + placeholder.substring(1);
+        values.put(valuePlaceholder, value);
+        return placeholder + " = " + valuePlaceholder;
+    }
+
+    @Override
+    public boolean expire(String userId, String taskId, long nowMillis) {
+        if (asyncClient != null) {
+            try {
+                return expireAsync(userId, taskId, nowMillis).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            dynamoDbClient.updateItem(expiry(userId, taskId, nowMillis));
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> expireAsync(String userId, String taskId, long nowMillis) {
+        UpdateItemRequest request = expiry(userId, taskId, nowMillis);
+        CompletableFuture<UpdateItemResponse> call = asyncClient != null
+                ? Futures.attempt(() -> asyncClient.updateItem(request))
+                : Futures.blocking(() -> dynamoDbClient.updateItem(request));
+        return call.handle((response, error) -> {
+            if (error == null) {
+                return true;
+            }
+            Throwable cause = Futures.cause(error);
+            if (cause instanceof ConditionalCheckFailedException) {
+                return false;
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    private UpdateItemRequest expiry(String userId, String taskId, long nowMillis) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(TaskItemCodec.key(userId, taskId))
+                .updateExpression("SET #st = :expired, #stid = :stid, " + NEXT_VERSION + " REMOVE #bk")
+                .conditionExpression("(#st = :pending OR attribute_not_exists(#st)) AND #dl <= :now")
+                .expressionAttributeNames(Map.of(
+                        "#st", TaskItemCodec.STATUS,
+                        "#stid", TaskItemCodec.STATUS_TASK_ID,
+                        "#dl", TaskItemCodec.DEADLINE,
+                        "#bk", TaskItemCodec.DEADLINE_BUCKET,
+                        "#ver", TaskItemCodec.VERSION))
+                .expressionAttributeValues(Map.of(
+                        ":expired", AttributeValue.fromS(TaskItemCodec.EXPIRED_STATUS),
+                        ":stid", AttributeValue.fromS(TaskItemCodec.statusTaskId(TaskItemCodec.EXPIRED_STATUS, taskId)),
+                        ":pending", AttributeValue.fromS(TaskItemCodec.DEFAULT_STATUS),
+                        ":now", AttributeValue.fromN(Long.toString(nowMillis)),
+                        ":zero", ZERO,
+                        ":one", ONE))
+                .build();
+    }
+
+    /** Queries one bucket of the sparse DeadlineIndex, following LastEvaluatedKey to the end. */
+    @Override
+    public List<Map<String, AttributeValue>> dueForExpiry(long deadlineBucket, long nowMillis) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            QueryResponse response = dynamoDbClient.query(QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(TaskItemCodec.DEADLINE_INDEX)
+                    .keyConditionExpression("#bk = :bk AND #dl <= :now")
+                    .expressionAttributeNames(Map.of(
+                            "#bk", TaskItemCodec.DEADLINE_BUCKET,
+                            "#dl", TaskItemCodec.DEADLINE))
+                    .expressionAttributeValues(Map.of(
+                            ":bk", AttributeValue.fromN(Long.toString(deadlineBucket)),
+                            ":now", AttributeValue.fromN(Long.toString(nowMillis))))
+                    .exclusiveStartKey(exclusiveStartKey)
+                    .build());
+            items.addAll(response.items());
+            exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null);
+        return items;
+    }
+
+    /**
+     * One BatchWriteItem per attempt, retrying whatever DynamoDB hands back as unprocessed
+     * with jittered backoff, up to MAX_ATTEMPTS calls.
+     */
+    @Override
+    public Set<String> writeAll(List<WriteRequest> writes) {
+        List<WriteRequest> remaining = new ArrayList<>(writes);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                ConcurrencyUtils.backoff(attempt);
+            }
+            List<WriteRequest> requestItems = List.copyOf(remaining);
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(builder -> builder
+                    .requestItems(Map.of(tableName, requestItems)));
+            remaining.clear();
+            if (response.hasUnprocessedItems()) {
+                remaining.addAll(response.unprocessedItems().getOrDefault(tableName, List.of()));
+            }
+        }
+        Set<String> unprocessedIds = new HashSet<>();
+        for (WriteRequest write : remaining) {
+            unprocessedIds.add(taskIdOf(write));
+        }
+        return unprocessedIds;
+    }
+
+    static String taskIdOf(WriteRequest write) {
+        return write.putRequest() != null
+                ? write.putRequest().item().get(TaskItemCodec.TASK_ID).s()
+                : write.deleteRequest().key().get(TaskItemCodec.TASK_ID).s();
+    }
+
+    /**
+     * Update and condition expressions for one combination of fields. Only the values change
+     * between requests, so the strings and the name map are shared.
+     */
+    private static final class UpdateTemplate {
+        final String updateExpression;
+        final String conditionExpression;
+        final Map<String, String> expressionAttributeNames;
+
+        UpdateTemplate(int mask) {
+            Map<String, String> names = new HashMap<>(8);
+            StringBuilder update = new StringBuilder("SET ");
+            if ((mask & DESCRIPTION) != 0) {
+                names.put("#desc", TaskItemCodec.DESCRIPTION);
+                update.append("#desc = :desc, ");
+            }
+            if ((mask & STATUS) != 0) {
+                names.put("#st", TaskItemCodec.STATUS);
+                names.put("#stid", TaskItemCodec.STATUS_TASK_ID);
+                update.append("#st = :st, #stid = :stid, ");
+            }
+            if ((mask & DEADLINE) != 0) {
+                names.put("#dl", TaskItemCodec.DEADLINE);
+                names.put("#exp", TaskItemCodec.EXPIRE_AT);
+                update.append("#dl = :dl, #exp = :exp, ");
+                if ((mask & CLOSED) == 0) {
+                    names.put("#bk", TaskItemCodec.DEADLINE_BUCKET);
+                    update.append("#bk = :bk, ");
+                }
+            }
+            names.put("#ver", TaskItemCodec.VERSION);
+            update.append(NEXT_VERSION);
+            if ((mask & CLOSED) != 0) {
+                names.put("#bk", TaskItemCodec.DEADLINE_BUCKET);
+                update.append(" REMOVE #bk");
+            }
+            if ((mask & VERSIONED) != 0) {
+                conditionExpression = "#ver = :expected";
+            } else {
+                // No version supplied: still never create a task by updating it
+                names.put("#tid", TaskItemCodec.TASK_ID);
+                conditionExpression = "attribute_exists(#tid)";
+            }
+            this.updateExpression = update.toString();
+            this.expressionAttributeNames = Map.copyOf(names);
+        }
+    }
+}
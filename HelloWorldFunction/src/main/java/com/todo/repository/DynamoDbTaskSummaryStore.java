@@ -0,0 +1,187 @@
+package com.todo.repository;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task summaries in their own DynamoDB table, one item per user: a top-level number per
+ * status ("Count#Pending", ...) and LastSequenceNumber, the last stream record applied.
+ *
+ * A batch of changes is one UpdateItem that ADDs the summed deltas and moves
+ * LastSequenceNumber forward, on condition that the stored number is older than the first
+ * change. When that fails the batch was (at least partly) applied before, so the stored
+ * number is read back, the changes it covers are dropped and the rest is applied on
+ * condition that the number has not moved again.
+ *
+ * The watermark is per user, but DynamoDB Streams only orders the records of one item. A
+ * hot user's partition can be split by sort key, and then that user's records arrive from
+ * sibling shards whose sequence numbers are not comparable. Whichever shard is behind has
+ * its changes taken for redeliveries and dropped, so the counts drift.
+ * TaskSummaryBackfill recounts from the table and repairs them.
+ */
+public class DynamoDbTaskSummaryStore implements TaskSummaryStore {
+
+    static final String USER_ID = "UserId";
+    static final String COUNT_PREFIX = "Count#";
+    static final String LAST_SEQUENCE_NUMBER = "LastSequenceNumber";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public DynamoDbTaskSummaryStore(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public Map<String, Long> counts(String userId) {
+        Map<String, Long> counts = new HashMap<>();
+        Map<String, AttributeValue> item = read(userId, false);
+        if (item == null) {
+            return counts;
+        }
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            if (attribute.getKey().startsWith(COUNT_PREFIX)) {
+                counts.put(attribute.getKey().substring(COUNT_PREFIX.length()), Long.parseLong(attribute.getValue().n()));
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public void apply(String userId, List<StatusChange> changes) {
+        List<StatusChange> pending = changes;
+        String expected = null;
+        boolean checked = false;
+        for (int attempt = 0; attempt < DynamoDbTaskRepository.MAX_ATTEMPTS; attempt++) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                dynamoDbClient.updateItem(update(userId, pending, expected, checked));
+                return;
+            } catch (ConditionalCheckFailedException e) {
+                Map<String, AttributeValue> item = read(userId, true);
+                AttributeValue stored = item != null ? item.get(LAST_SEQUENCE_NUMBER) : null;
+                expected = stored != null ? stored.s() : null;
+                checked = true;
+                pending = after(changes, expected);
+            }
+        }
+        throw new IllegalStateException("Summary of " + userId + " kept changing; gave up after "
+                + DynamoDbTaskRepository.MAX_ATTEMPTS + " attempts");
+    }
+
+    @Override
+    public String lastSequenceNumber(String userId) {
+        Map<String, AttributeValue> item = read(userId, true);
+        AttributeValue stored = item != null ? item.get(LAST_SEQUENCE_NUMBER) : null;
+        return stored != null ? stored.s() : null;
+    }
+
+    /** One PutItem, so counts of statuses the user no longer has are dropped too. */
+    @Override
+    public boolean reset(String userId, Map<String, Long> counts, String lastSequenceNumber) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(USER_ID, AttributeValue.fromS(userId));
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            item.put(COUNT_PREFIX + count.getKey(), AttributeValue.fromN(Long.toString(count.getValue())));
+        }
+        PutItemRequest.Builder put = PutItemRequest.builder()
+                .tableName(tableName)
+                .expressionAttributeNames(Map.of("#seq", LAST_SEQUENCE_NUMBER));
+        if (lastSequenceNumber != null) {
+            item.put(LAST_SEQUENCE_NUMBER, AttributeValue.fromS(lastSequenceNumber));
+            put.conditionExpression("#seq = :expected")
+                    .expressionAttributeValues(Map.of(":expected", AttributeValue.fromS(lastSequenceNumber)));
+        } else {
+            put.conditionExpression("attribute_not_exists(#seq)");
+        }
+        try {
+            dynamoDbClient.putItem(put.item(item).build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Before the stored number is known the condition is that it precedes the first change;
+     * afterwards, that it is still {@code expected} (or still missing).
+     */
+    private UpdateItemRequest update(String userId, List<StatusChange> changes, String expected, boolean checked) {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        for (StatusChange change : changes) {
+            deltas.merge(change.status(), (long) change.delta(), Long::sum);
+        }
+
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        names.put("#seq", LAST_SEQUENCE_NUMBER);
+        values.put(":seq", AttributeValue.fromS(changes.get(changes.size() - 1).sequenceNumber()));
+
+        StringBuilder add = new StringBuilder();
+        int i = 0;
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            if (delta.getValue() == 0) {
+                continue;
+            }
+            names.put("#c" + i, COUNT_PREFIX + delta.getKey());
+            values.put(":d" + i, AttributeValue.fromN(Long.toString(delta.getValue())));
+            add.append(add.length() == 0 ? "ADD " : ", ").append("#c").append(i).append(" :d").append(i);
+            i++;
+        }
+
+        String condition;
+        if (!checked) {
+            values.put(":first", AttributeValue.fromS(changes.get(0).sequenceNumber()));
+            condition = "attribute_not_exists(#seq) OR #seq < :first";
+        } else if (expected == null) {
+            condition = "attribute_not_exists(#seq)";
+        } else {
+            values.put(":expected", AttributeValue.fromS(expected));
+            condition = "#seq = :expected";
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(USER_ID, AttributeValue.fromS(userId)))
+                .updateExpression((add.length() > 0 ? add + " " : "") + "SET #seq = :seq")
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    private Map<String, AttributeValue> read(String userId, boolean consistentRead) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(USER_ID, AttributeValue.fromS(userId)))
+                .consistentRead(consistentRead)
+                .build()).item();
+        return item != null && !item.isEmpty() ? item : null;
+    }
+
+    private static List<StatusChange> after(List<StatusChange> changes, String sequenceNumber) {
+        if (sequenceNumber == null) {
+            return changes;
+        }
+        List<StatusChange> later = new ArrayList<>(changes.size());
+        for (StatusChange change : changes) {
+            if (change.sequenceNumber().compareTo(sequenceNumber) > 0) {
+                later.add(change);
+            }
+        }
+        return later;
+    }
+}
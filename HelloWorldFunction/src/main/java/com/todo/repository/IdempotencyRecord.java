@@ -0,0 +1,56 @@
+package com.todo.repository;
+
+/**
+ * What is stored under one Idempotency-Key: a hash of the request it was first used with and,
+ * once that request has finished, the response sent for it. A record without a status code is
+ * still in progress. {@code expireAt} is in epoch seconds, like the table's TTL attribute.
+ */
+public final class IdempotencyRecord {
+
+    private final String key;
+    private final String requestHash;
+    private final int statusCode;
+    private final String responseBody;
+    private final long expireAt;
+
+    public IdempotencyRecord(String key, String requestHash, int statusCode, String responseBody, long expireAt) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.expireAt = expireAt;
+    }
+
+    public static IdempotencyRecord inProgress(String key, String requestHash, long expireAt) {
+        return new IdempotencyRecord(key, requestHash, 0, null, expireAt);
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public String requestHash() {
+        return requestHash;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    public String responseBody() {
+        return responseBody;
+    }
+
+    public long expireAt() {
+        return expireAt;
+    }
+
+    public boolean isInProgress() {
+        return statusCode == 0;
+    }
+
+    /** DynamoDB deletes expired items lazily, so an expired record is treated as absent. */
+    public boolean isExpired(long nowMillis) {
+        return expireAt * 1000 <= nowMillis;
+    }
+}
@@ -0,0 +1,25 @@
+package com.todo.repository;
+
+/**
+ * Records of the Idempotency-Keys clients sent, so a retried request can be answered with the
+ * response of the first attempt instead of being executed again.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims {@code record.key()} for a new request with a conditional put that succeeds only
+     * if no unexpired record exists. Returns null when the claim was made, or the record that
+     * is already stored.
+     */
+    IdempotencyRecord claim(IdempotencyRecord record, long nowMillis);
+
+    /** Replaces the in-progress record with the finished one. */
+    void complete(IdempotencyRecord record);
+
+    /**
+     * Drops a claim whose request failed, so a retry can run it again. Only the claim itself
+     * is dropped: if it has lapsed and been replaced by another request's claim, or has been
+     * completed, the stored record is left alone.
+     */
+    void release(IdempotencyRecord claim);
+}
@@ -0,0 +1,40 @@
+package com.todo.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Idempotency records in the container's memory, the counterpart of
+ * {@link InMemoryTaskRepository}. Expired records are replaced on the next claim instead of
+ * being swept.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final ConcurrentHashMap<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+
+    @Override
+    public IdempotencyRecord claim(IdempotencyRecord record, long nowMillis) {
+        while (true) {
+            IdempotencyRecord existing = records.putIfAbsent(record.key(), record);
+            if (existing == null) {
+                return null;
+            }
+            if (!existing.isExpired(nowMillis)) {
+                return existing;
+            }
+            if (records.replace(record.key(), existing, record)) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void complete(IdempotencyRecord record) {
+        records.put(record.key(), record);
+    }
+
+    @Override
+    public void release(IdempotencyRecord claim) {
+        records.computeIfPresent(claim.key(),
+                (key, existing) -> existing.isInProgress() && existing.expireAt() == claim.expireAt() ? null : existing);
+    }
+}
@@ -0,0 +1,24 @@
+package com.todo.repository;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/** The sweep checkpoint in the container's memory, alongside {@link InMemoryTaskRepository}. */
+public class InMemorySweepCheckpointStore implements SweepCheckpointStore {
+
+    private final AtomicReference<Long> sweptThrough = new AtomicReference<>();
+
+    @Override
+    public Long sweptThrough() {
+        return sweptThrough.get();
+    }
+
+    @Override
+    public boolean advance(Long expected, long bucket) {
+        return sweptThrough.compareAndSet(expected, bucket);
+    }
+
+    @Override
+    public void rewind(long bucket) {
+        sweptThrough.accumulateAndGet(bucket - 1, (current, rewound) -> current == null ? rewound : Math.min(current, rewound));
+    }
+}
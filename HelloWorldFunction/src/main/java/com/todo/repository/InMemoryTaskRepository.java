@@ -0,0 +1,283 @@
+package com.todo.repository;
+
+import com.todo.model.TaskIdGenerator;
+import com.todo.model.TaskItemCodec;
+import com.todo.model.TaskProjection;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Tasks held in the container's memory, for running the functions on a laptop or under
+ * {@code sam local} without a table. Each user's tasks sit in their own skip list sorted by
+ * TaskId, so a page is a walk from the cursor like a DynamoDB Query. Stored items are
+ * immutable maps; conditional writes swap the whole item with compare-and-set and retry on
+ * a lost race, so concurrent updates never interleave or lose a field.
+ */
+public class InMemoryTaskRepository implements TaskRepository {
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<String, Map<String, AttributeValue>>> partitions =
+            new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, AttributeValue> get(String userId, String taskId) {
+        NavigableMap<String, Map<String, AttributeValue>> partition = partitions.get(userId);
+        return partition != null ? partition.get(taskId) : null;
+    }
+
+    @Override
+    public Long version(String userId, String taskId, boolean consistentRead) {
+        Map<String, AttributeValue> item = get(userId, taskId);
+        AttributeValue version = item != null ? item.get(TaskItemCodec.VERSION) : null;
+        return version != null ? Long.valueOf(version.n()) : null;
+    }
+
+    @Override
+    public Map<String, Map<String, AttributeValue>> getAll(String userId, Collection<String> taskIds,
+                                                          TaskProjection projection) {
+        Map<String, Map<String, AttributeValue>> itemsByTaskId = new HashMap<>(taskIds.size() * 2);
+        for (String taskId : taskIds) {
+            Map<String, AttributeValue> item = get(userId, taskId);
+            if (item != null) {
+                itemsByTaskId.put(taskId, projection != null ? project(item, projection.attributes(), null) : item);
+            }
+        }
+        return itemsByTaskId;
+    }
+
+    /**
+     * Walks the partition from the cursor. As with DynamoDB, a page that fills up to the
+     * limit carries a LastEvaluatedKey even if no task follows it. A status query stands in
+     * for the UserId+StatusTaskId index: it only sees items whose StatusTaskId is that status
+     * and their TaskId, walks them in TaskId order like the index does, and its key includes
+     * StatusTaskId. Newest-first pages walk the same skip list in descending order.
+     */
+    @Override
+    public Page query(PageQuery query, boolean versionsOnly) {
+        NavigableMap<String, Map<String, AttributeValue>> partition = partitions.get(query.userId());
+        if (partition == null) {
+            return new Page(List.of(), null);
+        }
+        if (query.hasCreatedRange()) {
+            partition = partition.subMap(query.fromTaskId(), true, query.toTaskId(), true);
+        }
+        if (query.newestFirst()) {
+            partition = partition.descendingMap();
+        }
+        Map<String, AttributeValue> startKey = query.exclusiveStartKey();
+        if (startKey != null) {
+            partition = partition.tailMap(startKey.get(TaskItemCodec.TASK_ID).s(), false);
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>(Math.min(query.limit(), 64));
+        Map<String, AttributeValue> last = null;
+        for (Map<String, AttributeValue> item : partition.values()) {
+            if (query.status() != null && !inStatusIndex(item, query.status())) {
+                continue;
+            }
+            if (query.hasCreatedRange() && !TaskIdGenerator.isTimeOrdered(item.get(TaskItemCodec.TASK_ID).s())) {
+                continue;
+            }
+            items.add(project(item, query.projection(), versionsOnly));
+            if (items.size() == query.limit()) {
+                last = item;
+                break;
+            }
+        }
+        if (last == null) {
+            return new Page(items, null);
+        }
+        Map<String, AttributeValue> lastEvaluatedKey = TaskItemCodec.key(query.userId(), last.get(TaskItemCodec.TASK_ID).s());
+        if (query.status() != null) {
+            lastEvaluatedKey.put(TaskItemCodec.STATUS_TASK_ID, last.get(TaskItemCodec.STATUS_TASK_ID));
+        }
+        return new Page(items, lastEvaluatedKey);
+    }
+
+    @Override
+    public void put(Map<String, AttributeValue> item) {
+        partitions.computeIfAbsent(item.get(TaskItemCodec.USER_ID).s(), userId -> new ConcurrentSkipListMap<>())
+                .put(item.get(TaskItemCodec.TASK_ID).s(), Map.copyOf(item));
+    }
+
+    @Override
+    public void delete(String userId, String taskId) {
+        ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition = partitions.get(userId);
+        if (partition != null) {
+            partition.remove(taskId);
+        }
+    }
+
+    @Override
+    public Map<String, AttributeValue> update(String userId, String taskId, String description, String status,
+                                              Long deadline, Long expectedVersion) {
+        ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition = partitions.get(userId);
+        while (true) {
+            Map<String, AttributeValue> current = partition != null ? partition.get(taskId) : null;
+            if (current == null || (expectedVersion != null && !hasVersion(current, expectedVersion))) {
+                throw conditionFailed();
+            }
+            Map<String, AttributeValue> updated = new HashMap<>(current);
+            if (description != null) {
+                updated.put(TaskItemCodec.DESCRIPTION, AttributeValue.fromS(description));
+            }
+            if (status != null) {
+                updated.put(TaskItemCodec.STATUS, AttributeValue.fromS(status));
+                updated.put(TaskItemCodec.STATUS_TASK_ID, AttributeValue.fromS(TaskItemCodec.statusTaskId(status, taskId)));
+            }
+            if (deadline != null) {
+                updated.put(TaskItemCodec.DEADLINE, AttributeValue.fromN(Long.toString(deadline)));
+                updated.put(TaskItemCodec.EXPIRE_AT, AttributeValue.fromN(Long.toString(deadline / 1000)));
+            }
+            Long bucket = TaskItemCodec.deadlineBucketOf(updated);
+            if (bucket != null) {
+                updated.put(TaskItemCodec.DEADLINE_BUCKET, AttributeValue.fromN(Long.toString(bucket)));
+            } else {
+                updated.remove(TaskItemCodec.DEADLINE_BUCKET);
+            }
+            updated.put(TaskItemCodec.VERSION, nextVersion(current));
+            Map<String, AttributeValue> next = Map.copyOf(updated);
+            if (partition.replace(taskId, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public boolean expire(String userId, String taskId, long nowMillis) {
+        ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition = partitions.get(userId);
+        while (true) {
+            Map<String, AttributeValue> current = partition != null ? partition.get(taskId) : null;
+            if (current == null || !awaitsExpiry(current) || !isDue(current, nowMillis)) {
+                return false;
+            }
+            Map<String, AttributeValue> updated = new HashMap<>(current);
+            updated.put(TaskItemCodec.STATUS, AttributeValue.fromS(TaskItemCodec.EXPIRED_STATUS));
+            updated.put(TaskItemCodec.STATUS_TASK_ID,
+                    AttributeValue.fromS(TaskItemCodec.statusTaskId(TaskItemCodec.EXPIRED_STATUS, taskId)));
+            updated.put(TaskItemCodec.VERSION, nextVersion(current));
+            updated.remove(TaskItemCodec.DEADLINE_BUCKET);
+            if (partition.replace(taskId, current, Map.copyOf(updated))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> expireAsync(String userId, String taskId, long nowMillis) {
+        try {
+            return CompletableFuture.completedFuture(expire(userId, taskId, nowMillis));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Scans every partition; there is no deadline index to query. */
+    @Override
+    public List<Map<String, AttributeValue>> dueForExpiry(long deadlineBucket, long nowMillis) {
+        String bucket = Long.toString(deadlineBucket);
+        List<Map<String, AttributeValue>> due = new ArrayList<>();
+        for (ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition : partitions.values()) {
+            for (Map<String, AttributeValue> item : partition.values()) {
+                AttributeValue itemBucket = item.get(TaskItemCodec.DEADLINE_BUCKET);
+                if (itemBucket != null && bucket.equals(itemBucket.n()) && isDue(item, nowMillis)) {
+                    due.add(Map.of(
+                            TaskItemCodec.USER_ID, item.get(TaskItemCodec.USER_ID),
+                            TaskItemCodec.TASK_ID, item.get(TaskItemCodec.TASK_ID),
+                            TaskItemCodec.DEADLINE, item.get(TaskItemCodec.DEADLINE)));
+                }
+            }
+        }
+        return due;
+    }
+
+    /** Every write is applied at once, so nothing is ever left unprocessed. */
+    @Override
+    public Set<String> writeAll(List<WriteRequest> writes) {
+        for (WriteRequest write : writes) {
+            if (write.putRequest() != null) {
+                put(write.putRequest().item());
+            } else {
+                Map<String, AttributeValue> key = write.deleteRequest().key();
+                delete(key.get(TaskItemCodec.USER_ID).s(), key.get(TaskItemCodec.TASK_ID).s());
+            }
+        }
+        return Set.of();
+    }
+
+    /** Number of tasks held across all users. */
+    public int size() {
+        int size = 0;
+        for (ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition : partitions.values()) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    /** What a query returns for one item: the same attributes DynamoDB would project. */
+    private static Map<String, AttributeValue> project(Map<String, AttributeValue> item, TaskProjection projection,
+                                                       boolean versionsOnly) {
+        if (versionsOnly) {
+            return project(item, List.of(TaskItemCodec.TASK_ID), TaskItemCodec.VERSION);
+        }
+        return projection != null ? project(item, projection.attributes(), TaskItemCodec.VERSION) : item;
+    }
+
+    private static Map<String, AttributeValue> project(Map<String, AttributeValue> item, List<String> attributes,
+                                                       String extra) {
+        Map<String, AttributeValue> projected = new HashMap<>(attributes.size() * 2 + 2);
+        for (String attribute : attributes) {
+            AttributeValue value = item.get(attribute);
+            if (value != null) {
+                projected.put(attribute, value);
+            }
+        }
+        if (extra != null && item.containsKey(extra)) {
+            projected.put(extra, item.get(extra));
+        }
+        return projected;
+    }
+
+    private static boolean inStatusIndex(Map<String, AttributeValue> item, String status) {
+        AttributeValue value = item.get(TaskItemCodec.STATUS_TASK_ID);
+        return value != null && TaskItemCodec.statusTaskId(status, item.get(TaskItemCodec.TASK_ID).s()).equals(value.s());
+    }
+
+    private static boolean awaitsExpiry(Map<String, AttributeValue> item) {
+        AttributeValue status = item.get(TaskItemCodec.STATUS);
+        return TaskItemCodec.awaitsExpiry(status != null ? status.s() : null);
+    }
+
+    private static boolean hasVersion(Map<String, AttributeValue> item, long version) {
+        AttributeValue value = item.get(TaskItemCodec.VERSION);
+        return value != null && Long.parseLong(value.n()) == version;
+    }
+
+    /** Same as {@code if_not_exists(Version, 0) + 1} in the DynamoDB engine. */
+    private static AttributeValue nextVersion(Map<String, AttributeValue> item) {
+        AttributeValue value = item.get(TaskItemCodec.VERSION);
+        return AttributeValue.fromN(Long.toString((value != null ? Long.parseLong(value.n()) : 0) + 1));
+    }
+
+    private static boolean isDue(Map<String, AttributeValue> item, long nowMillis) {
+        AttributeValue deadline = item.get(TaskItemCodec.DEADLINE);
+        return deadline != null && Long.parseLong(deadline.n()) <= nowMillis;
+    }
+
+    private static ConditionalCheckFailedException conditionFailed() {
+        return ConditionalCheckFailedException.builder()
+                .message("The conditional request failed")
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.todo.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Task summaries in the container's memory, the counterpart of {@link InMemoryTaskRepository}.
+ * They are only fed by {@code TaskSummaryHandler}; {@code sam local} runs no stream consumers,
+ * so there they stay empty.
+ */
+public class InMemoryTaskSummaryStore implements TaskSummaryStore {
+
+    private final ConcurrentHashMap<String, Summary> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Long> counts(String userId) {
+        Summary summary = summaries.get(userId);
+        if (summary == null) {
+            return Map.of();
+        }
+        synchronized (summary) {
+            return Map.copyOf(summary.counts);
+        }
+    }
+
+    @Override
+    public void apply(String userId, List<StatusChange> changes) {
+        Summary summary = summaries.computeIfAbsent(userId, id -> new Summary());
+        synchronized (summary) {
+            // A status change is two changes with the same sequence number, so compare with
+            // what was applied before this call
+            String applied = summary.lastSequenceNumber;
+            for (StatusChange change : changes) {
+                if (applied != null && change.sequenceNumber().compareTo(applied) <= 0) {
+                    continue;
+                }
+                summary.counts.merge(change.status(), (long) change.delta(), Long::sum);
+                summary.lastSequenceNumber = change.sequenceNumber();
+            }
+        }
+    }
+
+    @Override
+    public String lastSequenceNumber(String userId) {
+        Summary summary = summaries.get(userId);
+        if (summary == null) {
+            return null;
+        }
+        synchronized (summary) {
+            return summary.lastSequenceNumber;
+        }
+    }
+
+    @Override
+    public boolean reset(String userId, Map<String, Long> counts, String lastSequenceNumber) {
+        Summary summary = summaries.computeIfAbsent(userId, id -> new Summary());
+        synchronized (summary) {
+            if (!Objects.equals(summary.lastSequenceNumber, lastSequenceNumber)) {
+                return false;
+            }
+            summary.counts.clear();
+            summary.counts.putAll(counts);
+            return true;
+        }
+    }
+
+    private static final class Summary {
+        final Map<String, Long> counts = new HashMap<>();
+        String lastSequenceNumber;
+    }
+}
@@ -0,0 +1,83 @@
+package com.todo.repository;
+
+import com.todo.model.TaskIdGenerator;
+import com.todo.model.TaskProjection;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * One page of a user's tasks: all of them, or only those in {@code status}, starting after
+ * {@code exclusiveStartKey} and limited to the projected fields when a projection is given.
+ * Tasks come in TaskId order, which for time-ordered IDs is creation order; newest first
+ * when {@code newestFirst} is set. With {@code createdAfter} (inclusive) or
+ * {@code createdBefore} (exclusive), in epoch millis, the page is the TaskId range of tasks
+ * created in that range. Older tasks with UUIDs that sort into it may come along; they carry
+ * no creation time and callers skip them ({@link TaskIdGenerator#isTimeOrdered}).
+ */
+public final class PageQuery {
+
+    private final String userId;
+    private final String status;
+    private final int limit;
+    private final Map<String, AttributeValue> exclusiveStartKey;
+    private final TaskProjection projection;
+    private final boolean newestFirst;
+    private final Long createdAfter;
+    private final Long createdBefore;
+
+    public PageQuery(String userId, String status, int limit, Map<String, AttributeValue> exclusiveStartKey,
+                     TaskProjection projection) {
+        this(userId, status, limit, exclusiveStartKey, projection, false, null, null);
+    }
+
+    public PageQuery(String userId, String status, int limit, Map<String, AttributeValue> exclusiveStartKey,
+                     TaskProjection projection, boolean newestFirst, Long createdAfter, Long createdBefore) {
+        this.userId = userId;
+        this.status = status;
+        this.limit = limit;
+        this.exclusiveStartKey = exclusiveStartKey;
+        this.projection = projection;
+        this.newestFirst = newestFirst;
+        this.createdAfter = createdAfter;
+        this.createdBefore = createdBefore;
+    }
+
+    public String userId() {
+        return userId;
+    }
+
+    public String status() {
+        return status;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public Map<String, AttributeValue> exclusiveStartKey() {
+        return exclusiveStartKey;
+    }
+
+    public TaskProjection projection() {
+        return projection;
+    }
+
+    public boolean newestFirst() {
+        return newestFirst;
+    }
+
+    public boolean hasCreatedRange() {
+        return createdAfter != null || createdBefore != null;
+    }
+
+    /** Lowest TaskId in the created range. */
+    public String fromTaskId() {
+        return TaskIdGenerator.minTaskId(createdAfter != null ? createdAfter : 0);
+    }
+
+    /** Highest TaskId in the created range. */
+    public String toTaskId() {
+        return TaskIdGenerator.maxTaskId(createdBefore != null ? createdBefore - 1 : TaskIdGenerator.MAX_TIME);
+    }
+}
@@ -0,0 +1,40 @@
+package com.todo.repository;
+
+/**
+ * One step of a task status counter: +1 or -1 for {@code status}, from the stream record with
+ * {@code sequenceNumber}. Sequence numbers are numeric strings of varying length; they are
+ * zero-padded here so that they compare correctly as strings.
+ */
+public final class StatusChange {
+
+    static final int SEQUENCE_NUMBER_LENGTH = 40;
+
+    private final String sequenceNumber;
+    private final String status;
+    private final int delta;
+
+    public StatusChange(String sequenceNumber, String status, int delta) {
+        this.sequenceNumber = pad(sequenceNumber);
+        this.status = status;
+        this.delta = delta;
+    }
+
+    public String sequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public String status() {
+        return status;
+    }
+
+    public int delta() {
+        return delta;
+    }
+
+    static String pad(String sequenceNumber) {
+        if (sequenceNumber.length() >= SEQUENCE_NUMBER_LENGTH) {
+            return sequenceNumber;
+        }
+        return "0".repeat(SEQUENCE_NUMBER_LENGTH - sequenceNumber.length()) + sequenceNumber;
+    }
+}
@@ -0,0 +1,24 @@
+package com.todo.repository;
+
+/**
+ * How far the expiry sweep has got through the DeadlineIndex: the last minute bucket whose
+ * due tasks have all been expired. The sweeper resumes from the bucket after it, so a run
+ * that is skipped, fails or falls behind does not leave older buckets unswept.
+ */
+public interface SweepCheckpointStore {
+
+    /** The last bucket swept, or null before the first sweep. */
+    Long sweptThrough();
+
+    /**
+     * Moves the checkpoint to {@code bucket} if it is still {@code expected} (null: not set),
+     * so two overlapping runs cannot move it past each other. False if it had moved.
+     */
+    boolean advance(Long expected, long bucket);
+
+    /**
+     * Moves the checkpoint back, if needed, so that {@code bucket} is swept again; used after
+     * tasks have been filed under buckets the sweep has already passed.
+     */
+    void rewind(long bucket);
+}
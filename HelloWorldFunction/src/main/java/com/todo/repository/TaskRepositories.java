@@ -0,0 +1,85 @@
+package com.todo.repository;
+
+import com.todo.utils.AwsClients;
+
+/**
+ * Picks the task storage engine for this function from TASK_REPOSITORY: "memory" keeps
+ * tasks in the container (one store shared by every handler in it, gone when the container
+ * is recycled); anything else, including unset, uses the DynamoDB table named by TABLE_NAME.
+ * Idempotency-Key records, task summaries and the expiry sweep checkpoint follow the same choice.
+ */
+public final class TaskRepositories {
+
+    private TaskRepositories() {}
+
+    public static TaskRepository fromEnv() {
+        return fromEnv(false);
+    }
+
+    /** With {@code preferAsync} the DynamoDB engine expires tasks through the async client. */
+    public static TaskRepository fromEnv(boolean preferAsync) {
+        if (inMemory()) {
+            return MemoryHolder.REPOSITORY;
+        }
+        String tableName = System.getenv("TABLE_NAME");
+        return preferAsync
+                ? new DynamoDbTaskRepository(AwsClients.dynamoDbAsync(), tableName)
+                : new DynamoDbTaskRepository(AwsClients.dynamoDb(), tableName);
+    }
+
+    /** True when this function is configured with TASK_REPOSITORY=memory. */
+    public static boolean inMemory() {
+        return "memory".equalsIgnoreCase(System.getenv("TASK_REPOSITORY"));
+    }
+
+    /**
+     * The store for Idempotency-Key records: in memory alongside an in-memory repository,
+     * otherwise the table named by IDEMPOTENCY_TABLE_NAME. Null when no table is configured,
+     * in which case the header is ignored.
+     */
+    public static IdempotencyStore idempotencyFromEnv() {
+        if (inMemory()) {
+            return MemoryHolder.IDEMPOTENCY;
+        }
+        String tableName = System.getenv("IDEMPOTENCY_TABLE_NAME");
+        return tableName != null && !tableName.isEmpty()
+                ? new DynamoDbIdempotencyStore(AwsClients.dynamoDb(), tableName)
+                : null;
+    }
+
+    /**
+     * The per-user status counters: in memory alongside an in-memory repository, otherwise
+     * the table named by SUMMARY_TABLE_NAME. Null when no table is configured.
+     */
+    public static TaskSummaryStore summariesFromEnv() {
+        if (inMemory()) {
+            return MemoryHolder.SUMMARIES;
+        }
+        String tableName = System.getenv("SUMMARY_TABLE_NAME");
+        return tableName != null && !tableName.isEmpty()
+                ? new DynamoDbTaskSummaryStore(AwsClients.dynamoDb(), tableName)
+                : null;
+    }
+
+    /**
+     * Where the expiry sweep records how far it has got: in memory alongside an in-memory
+     * repository, otherwise the table named by SWEEP_STATE_TABLE_NAME. Null when no table is
+     * configured, in which case each run only sweeps its lookback window.
+     */
+    public static SweepCheckpointStore sweepCheckpointFromEnv() {
+        if (inMemory()) {
+            return MemoryHolder.SWEEP_CHECKPOINT;
+        }
+        String tableName = System.getenv("SWEEP_STATE_TABLE_NAME");
+        return tableName != null && !tableName.isEmpty()
+                ? new DynamoDbSweepCheckpointStore(AwsClients.dynamoDb(), tableName)
+                : null;
+    }
+
+    private static final class MemoryHolder {
+        static final InMemoryTaskRepository REPOSITORY = new InMemoryTaskRepository();
+        static final InMemoryIdempotencyStore IDEMPOTENCY = new InMemoryIdempotencyStore();
+        static final InMemoryTaskSummaryStore SUMMARIES = new InMemoryTaskSummaryStore();
+        static final InMemorySweepCheckpointStore SWEEP_CHECKPOINT = new InMemorySweepCheckpointStore();
+    }
+}
@@ -0,0 +1,104 @@
+package com.todo.repository;
+
+import com.todo.model.TaskProjection;
+import com.todo.utils.Futures;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage of task items, one partition per user sorted by TaskId. Items keep the attribute
+ * names and value types of {@link com.todo.model.TaskItemCodec}, so handlers render and
+ * fingerprint them the same way whichever engine stores them. Implementations follow
+ * DynamoDB's semantics for pagination, projections and conditions.
+ */
+public interface TaskRepository {
+
+    /** The stored item, or null if there is none. */
+    Map<String, AttributeValue> get(String userId, String taskId);
+
+    /**
+     * Only the Version of a task, for revalidating cached copies and telling a version
+     * conflict from a missing task. Null if the task does not exist or predates Version.
+     */
+    Long version(String userId, String taskId, boolean consistentRead);
+
+    /**
+     * The items that exist among {@code taskIds}, keyed by TaskId. Returns null if some keys
+     * could still not be read after retrying, so the caller can ask the client to retry.
+     */
+    Map<String, Map<String, AttributeValue>> getAll(String userId, Collection<String> taskIds, TaskProjection projection);
+
+    /**
+     * One page of a user's tasks in TaskId order. Items always carry TaskId and Version so
+     * a page can be fingerprinted; with {@code versionsOnly} they carry nothing else.
+     */
+    Page query(PageQuery query, boolean versionsOnly);
+
+    void put(Map<String, AttributeValue> item);
+
+    void delete(String userId, String taskId);
+
+    /**
+     * Sets the given fields (null leaves a field unchanged), advances Version by one, and
+     * returns the whole updated item. With {@code expectedVersion} the stored Version must match;
+     * without it the task must exist. A new {@code deadline} (epoch millis) also moves
+     * ExpireAt. The task is kept in the DeadlineIndex while it is Pending and has a deadline,
+     * and taken out as soon as it gets any other status.
+     *
+     * @throws ConditionalCheckFailedException if the condition does not hold
+     */
+    Map<String, AttributeValue> update(String userId, String taskId, String description, String status,
+                                       Long deadline, Long expectedVersion);
+
+    /** {@link #update} that leaves the deadline as it is. */
+    default Map<String, AttributeValue> update(String userId, String taskId, String description, String status,
+                                               Long expectedVersion) {
+        return update(userId, taskId, description, status, null, expectedVersion);
+    }
+
+    /**
+     * Marks a task EXPIRED and takes it out of the deadline index, if it is still Pending and
+     * its deadline is not after {@code nowMillis}. Returns whether it was changed.
+     */
+    boolean expire(String userId, String taskId, long nowMillis);
+
+    /** {@link #expire} as a future; by default the call runs on the shared I/O pool. */
+    default CompletableFuture<Boolean> expireAsync(String userId, String taskId, long nowMillis) {
+        return Futures.blocking(() -> expire(userId, taskId, nowMillis));
+    }
+
+    /** UserId, TaskId and Deadline of every task in a deadline bucket that is due at {@code nowMillis}. */
+    List<Map<String, AttributeValue>> dueForExpiry(long deadlineBucket, long nowMillis);
+
+    /**
+     * Applies up to 25 puts and deletes of distinct tasks, retrying what could not be
+     * written. Returns the TaskIds that were still not written after the last attempt.
+     */
+    Set<String> writeAll(List<WriteRequest> writes);
+
+    /** A page of items and the key to continue after, or null on the last page. */
+    final class Page {
+        private final List<Map<String, AttributeValue>> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+
+        public Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty() ? lastEvaluatedKey : null;
+        }
+
+        public List<Map<String, AttributeValue>> items() {
+            return items;
+        }
+
+        public Map<String, AttributeValue> lastEvaluatedKey() {
+            return lastEvaluatedKey;
+        }
+    }
+}
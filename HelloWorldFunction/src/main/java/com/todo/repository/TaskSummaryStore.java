@@ -0,0 +1,32 @@
+package com.todo.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user task counts by status, kept up to date from the table's stream so a summary is a
+ * single read instead of a walk over every task.
+ */
+public interface TaskSummaryStore {
+
+    /** Number of tasks per status; statuses with no tasks may be missing. */
+    Map<String, Long> counts(String userId);
+
+    /**
+     * Applies one user's changes, in stream order, as a single coalesced write. The summary
+     * remembers the last sequence number applied, and changes at or before it are skipped,
+     * so redelivered records are not counted twice. Records from sibling shards of one user
+     * can be skipped the same way, so the counts are approximate until recounted.
+     */
+    void apply(String userId, List<StatusChange> changes);
+
+    /** The last sequence number applied to a user's summary, read consistently; null if none. */
+    String lastSequenceNumber(String userId);
+
+    /**
+     * Replaces a user's counts with a baseline counted from the table, keeping
+     * {@code lastSequenceNumber} as the last change applied. Returns false without writing
+     * if a change was applied since that number was read, in which case the caller recounts.
+     */
+    boolean reset(String userId, Map<String, Long> counts, String lastSequenceNumber);
+}
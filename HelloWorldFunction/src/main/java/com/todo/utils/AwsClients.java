@@ -0,0 +1,213 @@
+package com.todo.utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import com.todo.metrics.SdkCallMetrics;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * One set of AWS SDK clients per JVM, shared by every handler in the container.
+ *
+ * Region and credentials are pinned from the Lambda environment so the SDK skips its
+ * provider-chain discovery, and all clients share a single URLConnection-based HTTP
+ * client instead of loading Apache HttpClient. Each client is built on first use.
+ *
+ * Functions that run with SDK_CLIENT_MODE=async use the async clients instead, which share
+ * one Netty event loop, so independent calls overlap without a thread per request.
+ * Every client reports its call latency and consumed capacity through {@link SdkCallMetrics}.
+ */
+public final class AwsClients {
+
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration SOCKET_TIMEOUT = Duration.ofSeconds(10);
+    private static final String MAX_CONNECTIONS = "50";
+    private static final int MAX_ASYNC_CONCURRENCY = 50;
+
+    private static final AtomicLong constructionNanos = new AtomicLong();
+    private static final PinnedCredentialsProvider credentials = new PinnedCredentialsProvider();
+
+    private AwsClients() {}
+
+    public static DynamoDbClient dynamoDb() {
+        return DynamoDbHolder.CLIENT;
+    }
+
+    public static SqsClient sqs() {
+        return SqsHolder.CLIENT;
+    }
+
+    public static SnsClient sns() {
+        return SnsHolder.CLIENT;
+    }
+
+    public static DynamoDbAsyncClient dynamoDbAsync() {
+        return DynamoDbAsyncHolder.CLIENT;
+    }
+
+    public static SqsAsyncClient sqsAsync() {
+        return SqsAsyncHolder.CLIENT;
+    }
+
+    public static SnsAsyncClient snsAsync() {
+        return SnsAsyncHolder.CLIENT;
+    }
+
+    /** True when this function is configured with SDK_CLIENT_MODE=async. */
+    public static boolean asyncMode() {
+        return "async".equalsIgnoreCase(System.getenv("SDK_CLIENT_MODE"));
+    }
+
+    /**
+     * Re-resolves the credentials source. Called after a SnapStart restore, where the
+     * credentials captured in the snapshot must not be reused.
+     */
+    public static void refreshCredentials() {
+        credentials.refresh();
+    }
+
+    /** Total time spent building clients in this JVM so far. */
+    public static long constructionMillis() {
+        return Duration.ofNanos(constructionNanos.get()).toMillis();
+    }
+
+    private static final class Shared {
+        static final Region REGION = resolveRegion();
+        static final SdkHttpClient HTTP_CLIENT = buildHttpClient();
+        static final ClientOverrideConfiguration OVERRIDES = ClientOverrideConfiguration.builder()
+                .addExecutionInterceptor(new SdkCallMetrics())
+                .build();
+
+        private static Region resolveRegion() {
+            String region = System.getenv("AWS_REGION");
+            return region != null && !region.isEmpty()
+                    ? Region.of(region)
+                    : new DefaultAwsRegionProviderChain().getRegion();
+        }
+
+        private static SdkHttpClient buildHttpClient() {
+            // HttpURLConnection keeps at most http.maxConnections idle sockets per host (default 5)
+            if (System.getProperty("http.maxConnections") == null) {
+                System.setProperty("http.maxConnections", MAX_CONNECTIONS);
+            }
+            return UrlConnectionHttpClient.builder()
+                    .connectionTimeout(CONNECTION_TIMEOUT)
+                    .socketTimeout(SOCKET_TIMEOUT)
+                    .build();
+        }
+    }
+
+    private static final class SharedAsync {
+        static final SdkAsyncHttpClient HTTP_CLIENT = NettyNioAsyncHttpClient.builder()
+                .connectionTimeout(CONNECTION_TIMEOUT)
+                .readTimeout(SOCKET_TIMEOUT)
+                .maxConcurrency(MAX_ASYNC_CONCURRENCY)
+                .build();
+    }
+
+    /**
+     * Credentials provider that picks its source once and can be told to pick again.
+     * Lambda normally exports the execution role's credentials as environment variables;
+     * restored SnapStart containers and local runs fall back to the default chain.
+     */
+    private static final class PinnedCredentialsProvider implements AwsCredentialsProvider {
+        private volatile AwsCredentialsProvider delegate = resolve();
+
+        private static AwsCredentialsProvider resolve() {
+            return System.getenv("AWS_ACCESS_KEY_ID") != null
+                    ? EnvironmentVariableCredentialsProvider.create()
+                    : DefaultCredentialsProvider.builder().reuseLastProviderEnabled(false).build();
+        }
+
+        void refresh() {
+            delegate = resolve();
+        }
+
+        @Override
+        public AwsCredentials resolveCredentials() {
+            return delegate.resolveCredentials();
+        }
+    }
+
+    private static final class DynamoDbHolder {
+        static final DynamoDbClient CLIENT = timed("DynamoDbClient", () -> DynamoDbClient.builder()
+                .region(Shared.REGION)
+                .credentialsProvider(credentials)
+                .httpClient(Shared.HTTP_CLIENT)
+                .overrideConfiguration(Shared.OVERRIDES)
+                .build());
+    }
+
+    private static final class SqsHolder {
+        static final SqsClient CLIENT = timed("SqsClient", () -> SqsClient.builder()
+                .region(Shared.REGION)
+                .credentialsProvider(credentials)
+                .httpClient(Shared.HTTP_CLIENT)
+                .overrideConfiguration(Shared.OVERRIDES)
+                .build());
+    }
+
+    private static final class SnsHolder {
+        static final SnsClient CLIENT = timed("SnsClient", () -> SnsClient.builder()
+                .region(Shared.REGION)
+                .credentialsProvider(credentials)
+                .httpClient(Shared.HTTP_CLIENT)
+                .overrideConfiguration(Shared.OVERRIDES)
+                .build());
+    }
+
+    private static final class DynamoDbAsyncHolder {
+        static final DynamoDbAsyncClient CLIENT = timed("DynamoDbAsyncClient", () -> DynamoDbAsyncClient.builder()
+                .region(Shared.REGION)
+                .credentialsProvider(credentials)
+                .httpClient(SharedAsync.HTTP_CLIENT)
+                .overrideConfiguration(Shared.OVERRIDES)
+                .build());
+    }
+
+    private static final class SqsAsyncHolder {
+        static final SqsAsyncClient CLIENT = timed("SqsAsyncClient", () -> SqsAsyncClient.builder()
+                .region(Shared.REGION)
+                .credentialsProvider(credentials)
+                .httpClient(SharedAsync.HTTP_CLIENT)
+                .overrideConfiguration(Shared.OVERRIDES)
+                .build());
+    }
+
+    private static final class SnsAsyncHolder {
+        static final SnsAsyncClient CLIENT = timed("SnsAsyncClient", () -> SnsAsyncClient.builder()
+                .region(Shared.REGION)
+                .credentialsProvider(credentials)
+                .httpClient(SharedAsync.HTTP_CLIENT)
+                .overrideConfiguration(Shared.OVERRIDES)
+                .build());
+    }
+
+    private static <T> T timed(String name, Supplier<T> factory) {
+        long start = System.nanoTime();
+        T client = factory.get();
+        long elapsed = System.nanoTime() - start;
+        constructionNanos.addAndGet(elapsed);
+        LambdaRuntime.getLogger().log(String.format("Constructed %s in %d ms (total client construction %d ms)%n",
+                name, Duration.ofNanos(elapsed).toMillis(), constructionMillis()));
+        return client;
+    }
+}
@@ -0,0 +1,49 @@
+package com.todo.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pool for fanning out blocking SDK calls, plus the jittered backoff used
+ * when retrying unprocessed batch entries. Fan-out itself goes through {@link Futures}.
+ */
+public class ConcurrencyUtils {
+
+    // Below the HTTP keep-alive pool size in AwsClients, so every worker can reuse a connection
+    private static final int IO_THREADS = 16;
+    private static final long BASE_BACKOFF_MILLIS = 25;
+    private static final long MAX_BACKOFF_MILLIS = 1_000;
+
+    private static final class Holder {
+        static final ExecutorService IO_EXECUTOR = Executors.newFixedThreadPool(IO_THREADS, daemonThreads());
+    }
+
+    public static ExecutorService ioExecutor() {
+        return Holder.IO_EXECUTOR;
+    }
+
+    /**
+     * Sleeps for a random time between zero and an exponentially growing cap
+     * ("full jitter"), so concurrent retries against a throttled table spread out.
+     */
+    public static void backoff(int attempt) {
+        long cap = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 10));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "todo-io-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -9,7 +9,8 @@ public class CorsUtils {
         Map<String, String> headers = new HashMap<>();
         headers.put("Access-Control-Allow-Origin", "*");
         headers.put("Access-Control-Allow-Methods", "GET,POST,PUT,DELETE,OPTIONS");
-        headers.put("Access-Control-Allow-Headers", "Content-Type,X-Amz-Date,Authorization,X-Api-Key,X-Amz-Security-Token,X-Amz-User-Agent,X-Requested-With");
+        headers.put("Access-Control-Allow-Headers", "Content-Type,X-Amz-Date,Authorization,X-Api-Key,X-Amz-Security-Token,X-Amz-User-Agent,X-Requested-With,If-None-Match,Idempotency-Key");
+        headers.put("Access-Control-Expose-Headers", "ETag,Idempotent-Replayed");
         headers.put("Access-Control-Allow-Credentials", "true");
         headers.put("Access-Control-Max-Age", "600");
         return headers;
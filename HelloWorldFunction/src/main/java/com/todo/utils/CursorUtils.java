@@ -0,0 +1,68 @@
+package com.todo.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes DynamoDB LastEvaluatedKey maps as opaque, URL-safe pagination cursors.
+ * Only string key attributes are supported, which covers every key in the tasks table.
+ */
+public class CursorUtils {
+
+    private static final ObjectMapper objectMapper = JsonUtils.objectMapper();
+    private static final TypeReference<LinkedHashMap<String, String>> CURSOR_TYPE = new TypeReference<>() {};
+
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        Map<String, String> plain = new LinkedHashMap<>();
+        lastEvaluatedKey.forEach((name, value) -> {
+            if (value.s() == null) {
+                throw new IllegalArgumentException("Unsupported cursor attribute: " + name);
+            }
+            plain.put(name, value.s());
+        });
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(plain);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode}. Throws IllegalArgumentException for
+     * anything that was not issued by us, so callers can answer with a 400.
+     */
+    public static Map<String, AttributeValue> decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        Map<String, String> plain;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            plain = objectMapper.readValue(new String(json, StandardCharsets.UTF_8), CURSOR_TYPE);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        if (plain == null || plain.isEmpty()) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        Map<String, AttributeValue> key = new HashMap<>();
+        plain.forEach((name, value) -> {
+            if (value == null) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            key.put(name, AttributeValue.builder().s(value).build());
+        });
+        return key;
+    }
+}
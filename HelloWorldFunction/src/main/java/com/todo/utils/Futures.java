@@ -0,0 +1,59 @@
+package com.todo.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Small composition layer shared by the sync and async SDK paths. Handlers describe their
+ * I/O as CompletableFutures; with async clients those complete on the SDK's event loop,
+ * with blocking clients {@link #blocking} runs the call on the shared I/O pool. Either way
+ * only the handler thread waits, once, at the end of the invocation.
+ */
+public final class Futures {
+
+    private Futures() {}
+
+    /** Runs a blocking SDK call on the shared I/O pool. */
+    public static <T> CompletableFuture<T> blocking(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, ConcurrencyUtils.ioExecutor());
+    }
+
+    /** {@link #blocking(Supplier)} for a call with no result. */
+    public static CompletableFuture<Void> blocking(Runnable call) {
+        return CompletableFuture.runAsync(call, ConcurrencyUtils.ioExecutor());
+    }
+
+    /** Completes with every result in submission order once all futures have completed. */
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<T> results = new ArrayList<>(futures.size());
+                    for (CompletableFuture<T> future : futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+    }
+
+    /** Starts {@code call} and turns an exception thrown before it returns into a failed future. */
+    public static <T> CompletableFuture<T> attempt(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** The exception a failed stage was completed with, without the CompletionException wrapper. */
+    public static Throwable cause(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
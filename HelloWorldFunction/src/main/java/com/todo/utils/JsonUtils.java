@@ -0,0 +1,34 @@
+package com.todo.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.util.Map;
+
+/**
+ * Holds the ObjectMapper shared by every handler in the container, so Jackson's
+ * serializer caches are built once rather than once per handler. Blackbird replaces
+ * reflective getter/setter calls with generated lambdas.
+ */
+public class JsonUtils {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new BlackbirdModule());
+
+    public static ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * {"error": message} as a response body. Messages can echo request input, so they are
+     * always escaped by Jackson rather than concatenated into the JSON.
+     */
+    public static String errorBody(String message) {
+        try {
+            return objectMapper.writeValueAsString(Map.of("error", message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write error body", e);
+        }
+    }
+}
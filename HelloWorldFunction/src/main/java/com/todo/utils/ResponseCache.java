@@ -0,0 +1,266 @@
+package com.todo.utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-container cache of serialized task responses, evicted by age and total size.
+ *
+ * Entries are keyed per user and carry a strong ETag plus a fingerprint built from the
+ * Version attribute of the items they were rendered from. Within the TTL an entry is served
+ * as is; after that the caller re-reads only the Version attributes and keeps the entry if
+ * the fingerprint still matches. Writes that go through this container invalidate the
+ * user's entries immediately; writes from other containers are picked up by revalidation.
+ */
+public class ResponseCache {
+
+    static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+    static final long DEFAULT_TTL_MILLIS = 5_000;
+    private static final int STATS_INTERVAL = 100;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong freshHits = new AtomicLong();
+    private final AtomicLong revalidatedHits = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong bytesServedFromCache = new AtomicLong();
+    private final AtomicLong bytesNotSent = new AtomicLong();
+
+    public ResponseCache(long maxBytes, long ttlMillis, LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /** Sized from TASK_CACHE_MAX_BYTES and TASK_CACHE_TTL_MILLIS; a size of 0 disables caching. */
+    public static ResponseCache fromEnv() {
+        return new ResponseCache(
+                longFromEnv("TASK_CACHE_MAX_BYTES", DEFAULT_MAX_BYTES),
+                longFromEnv("TASK_CACHE_TTL_MILLIS", DEFAULT_TTL_MILLIS),
+                System::currentTimeMillis);
+    }
+
+    public static String key(String userId, String... parts) {
+        StringBuilder key = new StringBuilder(userId).append(KEY_SEPARATOR);
+        for (String part : parts) {
+            key.append(part == null ? "" : part).append('|');
+        }
+        return key.toString();
+    }
+
+    /** Returns the cached entry, fresh or stale, or null. Counts as one lookup. */
+    public synchronized Entry get(String key) {
+        lookups.incrementAndGet();
+        return entries.get(key);
+    }
+
+    public boolean isFresh(Entry entry) {
+        return clock.getAsLong() - entry.storedAt < ttlMillis;
+    }
+
+    /**
+     * Stores a rendered body. The fingerprint identifies the item versions it was built from;
+     * pass null when it cannot be revalidated cheaply (e.g. items written before Version existed).
+     */
+    public synchronized Entry put(String key, String body, String fingerprint) {
+        Entry entry = new Entry(body, etag(body), fingerprint, clock.getAsLong());
+        if (maxBytes <= 0 || entry.weight > maxBytes) {
+            return entry;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.weight;
+        }
+        totalBytes += entry.weight;
+        evict();
+        return entry;
+    }
+
+    /** The fingerprint still matches the table: keep the body and restart its TTL. */
+    public synchronized Entry revalidated(String key, Entry stale) {
+        Entry entry = new Entry(stale.body, stale.etag, stale.fingerprint, clock.getAsLong());
+        if (entries.replace(key, stale, entry)) {
+            return entry;
+        }
+        return stale;
+    }
+
+    public synchronized void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.weight;
+        }
+    }
+
+    /** Drops every entry of one user; called after that user's tasks change. */
+    public synchronized void invalidate(String userId) {
+        String prefix = userId + KEY_SEPARATOR;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                totalBytes -= entry.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public void recordHit(Entry entry, boolean revalidated) {
+        (revalidated ? revalidatedHits : freshHits).incrementAndGet();
+        bytesServedFromCache.addAndGet(entry.body.length());
+        maybeReport();
+    }
+
+    public void recordMiss() {
+        maybeReport();
+    }
+
+    public void recordNotModified(Entry entry) {
+        notModified.incrementAndGet();
+        bytesNotSent.addAndGet(entry.body.length());
+    }
+
+    public double hitRatio() {
+        long total = lookups.get();
+        return total == 0 ? 0 : (double) (freshHits.get() + revalidatedHits.get()) / total;
+    }
+
+    public long bytesSaved() {
+        return bytesServedFromCache.get() + bytesNotSent.get();
+    }
+
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            totalBytes -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    private void maybeReport() {
+        long total = lookups.get();
+        if (total % STATS_INTERVAL != 0) {
+            return;
+        }
+        LambdaRuntime.getLogger().log(String.format(
+                "Response cache: %d lookups, hit ratio %.2f (%d fresh, %d revalidated), %d x 304, "
+                        + "%d bytes served from cache, %d bytes not sent, %d bytes cached%n",
+                total, hitRatio(), freshHits.get(), revalidatedHits.get(), notModified.get(),
+                bytesServedFromCache.get(), bytesNotSent.get(), sizeBytes()));
+    }
+
+    /** Strong ETag: a hash of the exact bytes that would be sent. */
+    public static String etag(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The ETag of {@code etag}'s representation sent with a Content-Encoding: the same
+     * opaque tag with the encoding appended, so a cache never confuses it with the identity body.
+     */
+    public static String encodedEtag(String etag, String encoding) {
+        return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+    }
+
+    /**
+     * True if an If-None-Match header value names {@code etag} (or is "*"), in its identity
+     * form or any of its {@link #encodedEtag encoded} forms: they all stand for the same content.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+            // "<tag>-<encoding>": the opaque part up to the closing quote, then the suffix
+            String opaque = etag.substring(0, etag.length() - 1);
+            if (trimmed.startsWith(opaque + "-") && trimmed.indexOf('"', opaque.length()) == trimmed.length() - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Header lookup that ignores case, since API Gateway passes client headers through as sent. */
+    public static String header(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static long longFromEnv(String name, long defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? Long.parseLong(value) : defaultValue;
+    }
+
+    public static final class Entry {
+        public final String body;
+        public final String etag;
+        public final String fingerprint;
+        final long storedAt;
+        // Approximate heap footprint of the body (UTF-16 chars)
+        final long weight;
+        // Last compressed rendering, so repeated hits do not compress again
+        private String encoding;
+        private String encodedBody;
+
+        Entry(String body, String etag, String fingerprint, long storedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.fingerprint = fingerprint;
+            this.storedAt = storedAt;
+            this.weight = 2L * body.length();
+        }
+
+        /** The body compressed with {@code encoding}, base64-encoded; computed once per entry and encoding. */
+        public synchronized String encoded(String encoding) {
+            if (!encoding.equals(this.encoding)) {
+                this.encodedBody = ResponseCompression.compressToBase64(body, encoding);
+                this.encoding = encoding;
+            }
+            return encodedBody;
+        }
+    }
+}
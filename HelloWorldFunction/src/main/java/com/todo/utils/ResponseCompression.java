@@ -0,0 +1,194 @@
+package com.todo.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Content-Encoding negotiation and compression for API responses.
+ *
+ * Bodies below {@link #minBytes()} are left alone: API Gateway and the base64 step cost more
+ * than the bytes saved. API Gateway only turns a base64 body back into bytes when the first
+ * type in the request's Accept header is one of the API's binary media types, which in
+ * template.yaml is {@link #BINARY_MEDIA_TYPE} alone; other requests get the body as is. Each thread keeps its Deflaters and output buffer, so compressing a
+ * response does not allocate native zlib state; gzip framing is written by hand because
+ * GZIPOutputStream always creates its own Deflater.
+ */
+public final class ResponseCompression {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    // Must match BinaryMediaTypes on the API in template.yaml
+    public static final String BINARY_MEDIA_TYPE = "application/json";
+
+    static final int DEFAULT_MIN_BYTES = 1024;
+
+    // Lambda CPU is scarce at small memory sizes, and repetitive task JSON compresses well at level 1
+    private static final int LEVEL = Deflater.BEST_SPEED;
+    private static final int INITIAL_BUFFER = 16 * 1024;
+    // A buffer grown past this by one huge response is not kept for the next one
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final int MIN_BYTES = minBytesFromEnv();
+
+    private static final ThreadLocal<Compressor> COMPRESSOR = ThreadLocal.withInitial(Compressor::new);
+
+    private ResponseCompression() {}
+
+    public static int minBytes() {
+        return MIN_BYTES;
+    }
+
+    /**
+     * Picks gzip or deflate from an Accept-Encoding header, honouring q=0. Returns null when
+     * the client accepts neither, in which case the body is sent as is.
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            float q = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case GZIP: gzip = q; break;
+                case DEFLATE: deflate = q; break;
+                case "*": any = q; break;
+                default: break;
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        // gzip wins ties: some clients mishandle raw vs zlib-wrapped deflate
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /**
+     * True if API Gateway will decode a base64 response to this request: the first media
+     * range in {@code accept}, without parameters, is {@link #BINARY_MEDIA_TYPE}.
+     */
+    public static boolean decodedByGateway(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        int end = accept.indexOf(',');
+        String first = end >= 0 ? accept.substring(0, end) : accept;
+        int params = first.indexOf(';');
+        if (params >= 0) {
+            first = first.substring(0, params);
+        }
+        return BINARY_MEDIA_TYPE.equalsIgnoreCase(first.trim());
+    }
+
+    /** Compresses {@code body} with the negotiated encoding and returns it base64-encoded. */
+    public static String compressToBase64(String body, String encoding) {
+        return Base64.getEncoder().encodeToString(compress(body.getBytes(StandardCharsets.UTF_8), encoding));
+    }
+
+    static byte[] compress(byte[] input, String encoding) {
+        Compressor compressor = COMPRESSOR.get();
+        if (GZIP.equals(encoding)) {
+            return compressor.gzip(input);
+        }
+        if (DEFLATE.equals(encoding)) {
+            return compressor.deflate(input);
+        }
+        throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+    }
+
+    private static int minBytesFromEnv() {
+        String value = System.getenv("RESPONSE_COMPRESSION_MIN_BYTES");
+        return value != null && !value.isEmpty() ? Integer.parseInt(value) : DEFAULT_MIN_BYTES;
+    }
+
+    /** Per-thread Deflaters and output buffer, reset between uses. */
+    private static final class Compressor {
+        private final Deflater raw = new Deflater(LEVEL, true);
+        private final Deflater zlib = new Deflater(LEVEL, false);
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[INITIAL_BUFFER];
+        private int length;
+
+        byte[] gzip(byte[] input) {
+            length = 0;
+            append(GZIP_HEADER, GZIP_HEADER.length);
+            run(raw, input);
+            crc.reset();
+            crc.update(input, 0, input.length);
+            writeIntLE((int) crc.getValue());
+            writeIntLE(input.length);
+            return result();
+        }
+
+        byte[] deflate(byte[] input) {
+            length = 0;
+            run(zlib, input);
+            return result();
+        }
+
+        private byte[] result() {
+            byte[] result = Arrays.copyOf(buffer, length);
+            if (buffer.length > MAX_RETAINED_BUFFER) {
+                buffer = new byte[INITIAL_BUFFER];
+            }
+            return result;
+        }
+
+        private void run(Deflater deflater, byte[] input) {
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+        }
+
+        private void append(byte[] bytes, int count) {
+            ensureCapacity(count);
+            System.arraycopy(bytes, 0, buffer, length, count);
+            length += count;
+        }
+
+        private void writeIntLE(int value) {
+            ensureCapacity(4);
+            buffer[length++] = (byte) value;
+            buffer[length++] = (byte) (value >>> 8);
+            buffer[length++] = (byte) (value >>> 16);
+            buffer[length++] = (byte) (value >>> 24);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+}
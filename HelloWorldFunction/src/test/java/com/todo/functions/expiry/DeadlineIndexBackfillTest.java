@@ -0,0 +1,95 @@
+package com.todo.functions.expiry;
+
+import com.todo.DiscardingContext;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.InMemorySweepCheckpointStore;
+import com.todo.utils.CursorUtils;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DeadlineIndexBackfillTest {
+
+    private static final long DEADLINE = 1_700_000_000_000L;
+
+    @Test
+    public void reindexesEveryPageAndRewindsTheSweepToTheOldestBucketFiled() {
+        long bucket = TaskItemCodec.deadlineBucket(DEADLINE);
+        Map<String, AttributeValue> lastKey = TaskItemCodec.key("user-1", "legacy-2");
+        List<ScanRequest> scans = new ArrayList<>();
+        List<UpdateItemRequest> updates = Collections.synchronizedList(new ArrayList<>());
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public ScanResponse scan(ScanRequest request) {
+                scans.add(request);
+                if (!request.hasExclusiveStartKey()) {
+                    return ScanResponse.builder()
+                            .items(item("legacy-1", null, DEADLINE + 60_000, null), item("legacy-2", "Pending", DEADLINE, null))
+                            .lastEvaluatedKey(lastKey)
+                            .build();
+                }
+                assertEquals(lastKey, request.exclusiveStartKey());
+                return ScanResponse.builder().items(item("done", "Done", DEADLINE - 60_000, bucket - 1)).build();
+            }
+
+            @Override
+            public UpdateItemResponse updateItem(UpdateItemRequest request) {
+                updates.add(request);
+                return UpdateItemResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        InMemorySweepCheckpointStore checkpoint = new InMemorySweepCheckpointStore();
+        checkpoint.advance(null, bucket + 10);
+
+        Map<String, Object> result = new DeadlineIndexBackfill(stubClient, "tasks", checkpoint)
+                .handleRequest(Map.of(), new DiscardingContext());
+
+        assertEquals(2, scans.size());
+        assertEquals(3, result.get("reindexed"));
+        assertNull(result.get("cursor"));
+        assertEquals(3, updates.size());
+        // Tasks with a Status are also given the StatusTaskId they were written without
+        assertEquals(1, updates.stream().filter(update -> update.updateExpression().equals("SET #stid = :newstid REMOVE #bk")).count());
+        assertEquals(1, updates.stream().filter(update -> update.updateExpression().equals("SET #bk = :newbk, #stid = :newstid")).count());
+        // The closed task's bucket is not one the sweep has to revisit
+        assertEquals(Long.valueOf(bucket - 1), checkpoint.sweptThrough());
+
+        // A cursor resumes the scan where an earlier invocation stopped
+        new DeadlineIndexBackfill(stubClient, "tasks", checkpoint)
+                .handleRequest(Map.of("cursor", CursorUtils.encode(lastKey)), new DiscardingContext());
+        assertEquals(3, scans.size());
+    }
+
+    private static Map<String, AttributeValue> item(String taskId, String status, long deadline, Long bucket) {
+        Map<String, AttributeValue> item = new HashMap<>(TaskItemCodec.key("user-1", taskId));
+        if (status != null) {
+            item.put(TaskItemCodec.STATUS, AttributeValue.fromS(status));
+        }
+        item.put(TaskItemCodec.DEADLINE, AttributeValue.fromN(Long.toString(deadline)));
+        if (bucket != null) {
+            item.put(TaskItemCodec.DEADLINE_BUCKET, AttributeValue.fromN(Long.toString(bucket)));
+        }
+        return item;
+    }
+}
@@ -0,0 +1,176 @@
+package com.todo.functions.expiry;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.todo.DiscardingContext;
+import com.todo.model.TaskItemCodec;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskExpiryHandlerTest {
+
+    @Test
+    public void failsTheRestOfAGroupAfterTheFirstErrorAndKeepsOtherGroupsGoing() {
+        List<String> updated = Collections.synchronizedList(new ArrayList<>());
+        DynamoDbClient stubDynamoDb = new DynamoDbClient() {
+            @Override
+            public UpdateItemResponse updateItem(UpdateItemRequest request) {
+                String taskId = request.key().get(TaskItemCodec.TASK_ID).s();
+                if (taskId.equals("b-2")) {
+                    throw new IllegalStateException("throttled");
+                }
+                if (taskId.equals("c-1")) {
+                    throw ConditionalCheckFailedException.builder().message("already expired").build();
+                }
+                updated.add(taskId);
+                return UpdateItemResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        AtomicInteger queued = new AtomicInteger();
+        SqsClient stubSqs = new SqsClient() {
+            @Override
+            public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+                queued.addAndGet(request.entries().size());
+                return SendMessageBatchResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "sqs";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        long past = System.currentTimeMillis() - 1_000;
+        long future = System.currentTimeMillis() + 600_000;
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>();
+        messages.add(message("a-1", "user-a", past));
+        messages.add(message("b-1", "user-b", past));
+        messages.add(message("a-2", "user-a", past));
+        messages.add(message("b-2", "user-b", past));
+        messages.add(message("b-3", "user-b", past));
+        messages.add(message("c-1", "user-c", past));
+        messages.add(message("c-2", "user-c", future));
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+
+        SQSBatchResponse response = new TaskExpiryHandler(stubDynamoDb, stubSqs, "tasks", "https://sqs.local/notifications")
+                .handleRequest(event, new DiscardingContext());
+
+        Set<String> failed = new TreeSet<>();
+        response.getBatchItemFailures().forEach(failure -> failed.add(failure.getItemIdentifier()));
+        assertEquals(Set.of("b-2", "b-3"), failed);
+
+        // Within a group the updates happen in queue order
+        assertTrue(updated.indexOf("a-1") < updated.indexOf("a-2"));
+        assertEquals(Set.of("a-1", "a-2", "b-1"), new TreeSet<>(updated));
+        // Already-expired (c-1) and not-yet-due (c-2) tasks are not notified
+        assertEquals(3, queued.get());
+    }
+
+    @Test
+    public void chainsAsyncUpdatesInGroupOrder() {
+        // Completes every call later on another thread, as the SDK's event loop would
+        Executor later = CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS);
+        List<String> updated = Collections.synchronizedList(new ArrayList<>());
+        DynamoDbAsyncClient stubDynamoDb = new DynamoDbAsyncClient() {
+            @Override
+            public CompletableFuture<UpdateItemResponse> updateItem(UpdateItemRequest request) {
+                String taskId = request.key().get(TaskItemCodec.TASK_ID).s();
+                return CompletableFuture.supplyAsync(() -> {
+                    if (taskId.equals("a-1")) {
+                        throw ConditionalCheckFailedException.builder().message("already expired").build();
+                    }
+                    if (taskId.equals("b-1")) {
+                        throw new IllegalStateException("throttled");
+                    }
+                    updated.add(taskId);
+                    return UpdateItemResponse.builder().build();
+                }, later);
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        AtomicInteger queued = new AtomicInteger();
+        SqsAsyncClient stubSqs = new SqsAsyncClient() {
+            @Override
+            public CompletableFuture<SendMessageBatchResponse> sendMessageBatch(SendMessageBatchRequest request) {
+                queued.addAndGet(request.entries().size());
+                return CompletableFuture.supplyAsync(() -> SendMessageBatchResponse.builder().build(), later);
+            }
+
+            @Override
+            public String serviceName() {
+                return "sqs";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        long past = System.currentTimeMillis() - 1_000;
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>();
+        messages.add(message("a-1", "user-a", past));
+        messages.add(message("b-1", "user-b", past));
+        messages.add(message("a-2", "user-a", past));
+        messages.add(message("b-2", "user-b", past));
+        messages.add(message("a-3", "user-a", past));
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+
+        SQSBatchResponse response = new TaskExpiryHandler(stubDynamoDb, stubSqs, "tasks", "https://sqs.local/notifications")
+                .handleRequest(event, new DiscardingContext());
+
+        Set<String> failed = new TreeSet<>();
+        response.getBatchItemFailures().forEach(failure -> failed.add(failure.getItemIdentifier()));
+        assertEquals(Set.of("b-1", "b-2"), failed);
+        assertEquals(List.of("a-2", "a-3"), updated);
+        assertEquals(2, queued.get());
+    }
+
+    private static SQSEvent.SQSMessage message(String taskId, String userId, long deadline) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(taskId);
+        message.setBody("{\"taskId\":\"" + taskId + "\",\"userId\":\"" + userId + "\",\"deadline\":\"" + deadline + "\"}");
+        message.setAttributes(Map.of("MessageGroupId", userId));
+        return message;
+    }
+}
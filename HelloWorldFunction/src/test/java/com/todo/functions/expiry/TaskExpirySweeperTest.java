@@ -0,0 +1,191 @@
+package com.todo.functions.expiry;
+
+import com.todo.DiscardingContext;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.DynamoDbTaskRepository;
+import com.todo.repository.InMemorySweepCheckpointStore;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskExpirySweeperTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void expiresDueTasksInTheLookbackWindowOnlyOnce() {
+        InMemoryTasksTable table = new InMemoryTasksTable();
+        table.put(task("due-now", NOW));
+        table.put(task("due-10m-ago", NOW - 10 * 60_000));
+        table.put(task("due-in-1h", NOW + 60 * 60_000));
+        table.put(task("due-2h-ago", NOW - 2 * 60 * 60_000));
+        Task expired = task("already-expired", NOW - 60_000);
+        expired.setStatus(TaskItemCodec.EXPIRED_STATUS);
+        table.put(expired);
+
+        AtomicInteger queued = new AtomicInteger();
+        TaskExpirySweeper sweeper = new TaskExpirySweeper(table, countingSqs(queued), "tasks", "https://sqs.local/notifications",
+                Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), 15);
+        sweeper.handleRequest(null, new DiscardingContext());
+
+        assertEquals(TaskItemCodec.EXPIRED_STATUS, table.status("due-now"));
+        assertEquals(TaskItemCodec.EXPIRED_STATUS, table.status("due-10m-ago"));
+        assertEquals(TaskItemCodec.DEFAULT_STATUS, table.status("due-in-1h"));
+        // Outside the lookback window
+        assertEquals(TaskItemCodec.DEFAULT_STATUS, table.status("due-2h-ago"));
+        assertFalse(table.indexed("due-now"));
+        assertTrue(table.indexed("due-in-1h"));
+        assertFalse(table.indexed("already-expired"));
+        assertEquals(2, queued.get());
+
+        // A second run finds nothing left to do
+        sweeper.handleRequest(null, new DiscardingContext());
+        assertEquals(2, queued.get());
+    }
+
+    @Test
+    public void catchesUpFromTheCheckpointAndHoldsItBeforeAFailedBucket() {
+        long currentBucket = TaskItemCodec.deadlineBucket(NOW);
+        InMemoryTasksTable table = new InMemoryTasksTable();
+        table.put(task("due-2h-ago", NOW - 120 * 60_000));
+        table.put(task("due-90m-ago", NOW - 90 * 60_000));
+        table.put(task("due-50m-ago", NOW - 50 * 60_000));
+        table.put(task("due-now", NOW));
+        table.failing.add("due-90m-ago");
+        InMemorySweepCheckpointStore checkpoint = new InMemorySweepCheckpointStore();
+        checkpoint.advance(null, currentBucket - 180);
+
+        AtomicInteger queued = new AtomicInteger();
+        TaskExpirySweeper sweeper = new TaskExpirySweeper(new DynamoDbTaskRepository(table, "tasks"), checkpoint,
+                countingSqs(queued), "https://sqs.local/notifications", Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), 15);
+        sweeper.handleRequest(null, new DiscardingContext());
+
+        // MAX_CATCH_UP_BUCKETS past the checkpoint, plus the lookback window
+        assertEquals(TaskItemCodec.EXPIRED_STATUS, table.status("due-2h-ago"));
+        assertEquals(TaskItemCodec.DEFAULT_STATUS, table.status("due-90m-ago"));
+        assertEquals(TaskItemCodec.DEFAULT_STATUS, table.status("due-50m-ago"));
+        assertEquals(TaskItemCodec.EXPIRED_STATUS, table.status("due-now"));
+        assertEquals(Long.valueOf(currentBucket - 91), checkpoint.sweptThrough());
+
+        table.failing.clear();
+        sweeper.handleRequest(null, new DiscardingContext());
+        assertEquals(TaskItemCodec.EXPIRED_STATUS, table.status("due-90m-ago"));
+        assertEquals(TaskItemCodec.EXPIRED_STATUS, table.status("due-50m-ago"));
+        assertEquals(Long.valueOf(currentBucket - 1), checkpoint.sweptThrough());
+        assertEquals(4, queued.get());
+    }
+
+    private static SqsClient countingSqs(AtomicInteger queued) {
+        return new SqsClient() {
+            @Override
+            public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+                queued.addAndGet(request.entries().size());
+                return SendMessageBatchResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "sqs";
+            }
+
+            @Override
+            public void close() {}
+        };
+    }
+
+    private static Task task(String taskId, long deadline) {
+        Task task = new Task();
+        task.setUserId("user-1");
+        task.setTaskId(taskId);
+        task.setDescription(taskId);
+        task.setStatus(TaskItemCodec.DEFAULT_STATUS);
+        task.setDeadline(deadline);
+        return task;
+    }
+
+    /** Tasks table with just enough of DynamoDB for the DeadlineIndex query and the expiry update. */
+    private static final class InMemoryTasksTable implements DynamoDbClient {
+
+        private final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+        // Task ids whose expiry update fails as if DynamoDB were unavailable
+        final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+        void put(Task task) {
+            items.put(task.getTaskId(), new HashMap<>(TaskItemCodec.toItem(task)));
+        }
+
+        String status(String taskId) {
+            return items.get(taskId).get(TaskItemCodec.STATUS).s();
+        }
+
+        boolean indexed(String taskId) {
+            return items.get(taskId).containsKey(TaskItemCodec.DEADLINE_BUCKET);
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest request) {
+            assertEquals(TaskItemCodec.DEADLINE_INDEX, request.indexName());
+            String bucket = request.expressionAttributeValues().get(":bk").n();
+            long now = Long.parseLong(request.expressionAttributeValues().get(":now").n());
+            List<Map<String, AttributeValue>> due = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items.values()) {
+                AttributeValue itemBucket = item.get(TaskItemCodec.DEADLINE_BUCKET);
+                if (itemBucket != null && itemBucket.n().equals(bucket)
+                        && Long.parseLong(item.get(TaskItemCodec.DEADLINE).n()) <= now) {
+                    due.add(item);
+                }
+            }
+            return QueryResponse.builder().items(due).build();
+        }
+
+        @Override
+        public synchronized UpdateItemResponse updateItem(UpdateItemRequest request) {
+            String taskId = request.key().get(TaskItemCodec.TASK_ID).s();
+            if (failing.contains(taskId)) {
+                throw DynamoDbException.builder().message("Service unavailable").statusCode(503).build();
+            }
+            Map<String, AttributeValue> item = items.get(taskId);
+            long now = Long.parseLong(request.expressionAttributeValues().get(":now").n());
+            if (!request.expressionAttributeValues().get(":pending").equals(item.get(TaskItemCodec.STATUS))
+                    || Long.parseLong(item.get(TaskItemCodec.DEADLINE).n()) > now) {
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+            item.put(TaskItemCodec.STATUS, request.expressionAttributeValues().get(":expired"));
+            item.remove(TaskItemCodec.DEADLINE_BUCKET);
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,107 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchGetTasksHandlerTest {
+
+    @Test
+    public void returnsProjectedTasksInRequestOrderAfterRetryingUnprocessedKeys() throws Exception {
+        List<BatchGetItemRequest> requests = new ArrayList<>();
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+                requests.add(request);
+                KeysAndAttributes keys = request.requestItems().get("tasks");
+                List<Map<String, AttributeValue>> found = new ArrayList<>();
+                List<Map<String, AttributeValue>> unprocessed = new ArrayList<>();
+                for (Map<String, AttributeValue> key : keys.keys()) {
+                    String taskId = key.get(TaskItemCodec.TASK_ID).s();
+                    if (taskId.equals("c") && requests.size() == 1) {
+                        unprocessed.add(key);
+                    } else if (!taskId.equals("missing")) {
+                        Task task = new Task();
+                        task.setUserId(key.get(TaskItemCodec.USER_ID).s());
+                        task.setTaskId(taskId);
+                        task.setDescription("task " + taskId);
+                        task.setStatus("Pending");
+                        found.add(TaskItemCodec.toItem(task));
+                    }
+                }
+                BatchGetItemResponse.Builder response = BatchGetItemResponse.builder()
+                        .responses(Map.of("tasks", found));
+                if (!unprocessed.isEmpty()) {
+                    response.unprocessedKeys(Map.of("tasks", keys.toBuilder().keys(unprocessed).build()));
+                }
+                return response.build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        APIGatewayProxyResponseEvent response = new GetTasksHandler(stubClient, "tasks").handleRequest(
+                new APIGatewayProxyRequestEvent()
+                        .withHttpMethod("GET")
+                        .withQueryStringParameters(Map.of("ids", "c,a,missing,b,a", "fields", "description"))
+                        .withRequestContext(requestContext),
+                null);
+
+        assertEquals(200, response.getStatusCode().intValue());
+        JsonNode body = new ObjectMapper().readTree(response.getBody());
+        JsonNode tasks = body.get("tasks");
+        assertEquals(3, tasks.size());
+        assertEquals("c", tasks.get(0).get("taskId").asText());
+        assertEquals("a", tasks.get(1).get("taskId").asText());
+        assertEquals("b", tasks.get(2).get("taskId").asText());
+        assertEquals("task a", tasks.get(1).get("description").asText());
+        assertFalse(tasks.get(1).has("status"));
+        assertEquals("missing", body.get("missing").get(0).asText());
+
+        assertEquals(2, requests.size());
+        KeysAndAttributes first = requests.get(0).requestItems().get("tasks");
+        assertEquals(4, first.keys().size());
+        assertEquals("#p0, #p1", first.projectionExpression());
+        assertTrue(first.expressionAttributeNames().containsValue(TaskItemCodec.DESCRIPTION));
+    }
+
+    @Test
+    public void rejectsTooManyIds() {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i <= BatchGetTasksHandler.MAX_IDS; i++) {
+            ids.append("t-").append(i).append(',');
+        }
+        APIGatewayProxyResponseEvent response = new BatchGetTasksHandler(null, "tasks").handleRequest(
+                new APIGatewayProxyRequestEvent()
+                        .withHttpMethod("GET")
+                        .withQueryStringParameters(Map.of("ids", ids.toString())),
+                null);
+
+        assertEquals(400, response.getStatusCode().intValue());
+    }
+}
@@ -0,0 +1,132 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.DiscardingContext;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.InMemoryTaskRepository;
+import com.todo.utils.ResponseCache;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchWriteTasksHandlerTest {
+
+    @Test
+    public void chunksRetriesUnprocessedItemsAndReportsPerItemResults() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger maxChunk = new AtomicInteger();
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+                calls.incrementAndGet();
+                List<WriteRequest> writes = request.requestItems().get("tasks");
+                maxChunk.accumulateAndGet(writes.size(), Math::max);
+                // Throttle the first entry of every full chunk once
+                if (writes.size() == BatchWriteTasksHandler.CHUNK_SIZE) {
+                    return BatchWriteItemResponse.builder()
+                            .unprocessedItems(Map.of("tasks", List.of(writes.get(0))))
+                            .build();
+                }
+                return BatchWriteItemResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        StringBuilder operations = new StringBuilder("[");
+        for (int i = 0; i < 60; i++) {
+            operations.append("{\"op\":\"create\",\"description\":\"task ").append(i).append("\"},");
+        }
+        operations.append("{\"op\":\"delete\",\"taskId\":\"t-1\"},");
+        operations.append("{\"op\":\"update\",\"taskId\":\"t-1\",\"description\":\"dup\"},");
+        operations.append("{\"op\":\"rename\"}]");
+
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        APIGatewayProxyResponseEvent response = new BatchWriteTasksHandler(stubClient, "tasks").handleRequest(
+                new APIGatewayProxyRequestEvent()
+                        .withHttpMethod("POST")
+                        .withBody("{\"operations\":" + operations + "}")
+                        .withRequestContext(requestContext),
+                null);
+
+        assertEquals(200, response.getStatusCode().intValue());
+        JsonNode results = new ObjectMapper().readTree(response.getBody()).get("results");
+        assertEquals(63, results.size());
+        for (int i = 0; i < 60; i++) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            assertEquals(201, results.get(i).get("statusCode").asInt());
+        }
+        assertEquals(200, results.get(60).get("statusCode").asInt());
+        assertEquals(400, results.get(61).get("statusCode").asInt());
+        assertEquals(400, results.get(62).get("statusCode").asInt());
+
+        // 3 chunks (25 + 25 + 11) plus one retry for each of the two full chunks
+        assertEquals(5, calls.get());
+        assertTrue(maxChunk.get() <= BatchWriteTasksHandler.CHUNK_SIZE);
+    }
+
+    @Test
+    public void updatesKeepOmittedFieldsAndHonourVersions() throws Exception {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        long deadline = System.currentTimeMillis() + 600_000;
+        for (String taskId : List.of("t-1", "t-2")) {
+            repository.put(Map.of(
+                    TaskItemCodec.USER_ID, AttributeValue.fromS("user-1"),
+                    TaskItemCodec.TASK_ID, AttributeValue.fromS(taskId),
+                    TaskItemCodec.DESCRIPTION, AttributeValue.fromS("original"),
+                    TaskItemCodec.STATUS, AttributeValue.fromS("Done"),
+                    TaskItemCodec.DEADLINE, AttributeValue.fromN(Long.toString(deadline)),
+                    TaskItemCodec.VERSION, AttributeValue.fromN("1")));
+        }
+
+        String operations = "["
+                + "{\"op\":\"update\",\"taskId\":\"t-1\",\"description\":\"edited\",\"version\":1},"
+                + "{\"op\":\"update\",\"taskId\":\"t-2\",\"description\":\"stale\",\"version\":0},"
+                + "{\"op\":\"update\",\"taskId\":\"t-3\",\"status\":\"Done\"},"
+                + "{\"op\":\"update\",\"taskId\":\"t-4\"}]";
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        APIGatewayProxyResponseEvent response = new BatchWriteTasksHandler(repository, new ResponseCache(0, 0, System::currentTimeMillis))
+                .handleRequest(new APIGatewayProxyRequestEvent()
+                        .withHttpMethod("POST")
+                        .withBody("{\"operations\":" + operations + "}")
+                        .withRequestContext(requestContext), new DiscardingContext());
+
+        JsonNode results = new ObjectMapper().readTree(response.getBody()).get("results");
+        assertEquals(200, results.get(0).get("statusCode").asInt());
+        assertEquals("Done", results.get(0).get("task").get("status").asText());
+        assertEquals(409, results.get(1).get("statusCode").asInt());
+        assertEquals(1, results.get(1).get("version").asLong());
+        assertFalse(results.get(1).has("task"));
+        assertEquals(404, results.get(2).get("statusCode").asInt());
+        assertEquals(400, results.get(3).get("statusCode").asInt());
+
+        Map<String, AttributeValue> edited = repository.get("user-1", "t-1");
+        assertEquals("edited", edited.get(TaskItemCodec.DESCRIPTION).s());
+        assertEquals("Done", edited.get(TaskItemCodec.STATUS).s());
+        assertEquals(Long.toString(deadline), edited.get(TaskItemCodec.DEADLINE).n());
+        assertEquals("original", repository.get("user-1", "t-2").get(TaskItemCodec.DESCRIPTION).s());
+        assertEquals(2, repository.size());
+    }
+}
@@ -0,0 +1,116 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.DiscardingContext;
+import com.todo.repository.IdempotencyRecord;
+import com.todo.repository.InMemoryIdempotencyStore;
+import com.todo.repository.InMemoryTaskRepository;
+import com.todo.utils.ResponseCache;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CreateTaskHandlerTest {
+
+    @Test
+    public void retriesWithTheSameKeyReplayTheFirstResponseWithoutWriting() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        AtomicInteger claims = new AtomicInteger();
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore() {
+            @Override
+            public IdempotencyRecord claim(IdempotencyRecord record, long nowMillis) {
+                claims.incrementAndGet();
+                return super.claim(record, nowMillis);
+            }
+        };
+        CreateTaskHandler handler = new CreateTaskHandler(repository, new ResponseCache(0, 0, System::currentTimeMillis), store);
+
+        APIGatewayProxyResponseEvent first = handler.handleRequest(
+                request("key-1", "{\"description\":\"write tests\"}"), new DiscardingContext());
+        assertEquals(201, first.getStatusCode().intValue());
+        assertNull(first.getHeaders().get("Idempotent-Replayed"));
+
+        APIGatewayProxyResponseEvent retry = handler.handleRequest(
+                request("key-1", "{\"description\":\"write tests\"}"), new DiscardingContext());
+        assertEquals(201, retry.getStatusCode().intValue());
+        assertEquals("true", retry.getHeaders().get("Idempotent-Replayed"));
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals(1, repository.size());
+        // The retry was answered from the warm container without claiming again
+        assertEquals(1, claims.get());
+
+        // Same key, different body
+        APIGatewayProxyResponseEvent reused = handler.handleRequest(
+                request("key-1", "{\"description\":\"something else\"}"), new DiscardingContext());
+        assertEquals(422, reused.getStatusCode().intValue());
+
+        // Keys are per user
+        APIGatewayProxyRequestEvent otherUser = request("key-1", "{\"description\":\"write tests\"}");
+        otherUser.getRequestContext().setAuthorizer(Map.of("claims", Map.of("sub", "user-2")));
+        assertEquals(201, handler.handleRequest(otherUser, new DiscardingContext()).getStatusCode().intValue());
+        assertEquals(2, repository.size());
+
+        // No key: every request writes
+        handler.handleRequest(request(null, "{\"description\":\"write tests\"}"), new DiscardingContext());
+        handler.handleRequest(request(null, "{\"description\":\"write tests\"}"), new DiscardingContext());
+        assertEquals(4, repository.size());
+    }
+
+    @Test
+    public void concurrentDuplicatesGet409AndAFailedWriteReleasesTheKey() {
+        AtomicInteger failures = new AtomicInteger(1);
+        List<APIGatewayProxyResponseEvent> duplicates = new ArrayList<>();
+        CreateTaskHandler[] handler = new CreateTaskHandler[1];
+        InMemoryTaskRepository repository = new InMemoryTaskRepository() {
+            @Override
+            public void put(Map<String, AttributeValue> item) {
+                // The same request arrives again while the first one is still writing
+                duplicates.add(handler[0].handleRequest(request("key-1", "{\"description\":\"x\"}"), new DiscardingContext()));
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("throttled");
+                }
+                super.put(item);
+            }
+        };
+        handler[0] = new CreateTaskHandler(repository, new ResponseCache(0, 0, System::currentTimeMillis),
+                new InMemoryIdempotencyStore());
+
+        APIGatewayProxyResponseEvent failed = handler[0].handleRequest(
+                request("key-1", "{\"description\":\"x\"}"), new DiscardingContext());
+        assertEquals(500, failed.getStatusCode().intValue());
+        assertEquals(409, duplicates.get(0).getStatusCode().intValue());
+
+        // The failed attempt gave the key back, so the retry runs
+        APIGatewayProxyResponseEvent retried = handler[0].handleRequest(
+                request("key-1", "{\"description\":\"x\"}"), new DiscardingContext());
+        assertEquals(201, retried.getStatusCode().intValue());
+        assertEquals(409, duplicates.get(1).getStatusCode().intValue());
+        assertEquals(1, repository.size());
+
+        assertEquals(400, handler[0].handleRequest(
+                request("", "{\"description\":\"x\"}"), new DiscardingContext()).getStatusCode().intValue());
+    }
+
+    private static APIGatewayProxyRequestEvent request(String idempotencyKey, String body) {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        Map<String, String> headers = new HashMap<>();
+        if (idempotencyKey != null) {
+            headers.put("idempotency-key", idempotencyKey);
+        }
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withHeaders(headers)
+                .withBody(body)
+                .withRequestContext(requestContext);
+    }
+}
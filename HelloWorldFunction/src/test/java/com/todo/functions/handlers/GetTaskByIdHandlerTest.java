@@ -0,0 +1,105 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.DiscardingContext;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.utils.ResponseCache;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class GetTaskByIdHandlerTest {
+
+    private static final long TTL = 5_000;
+
+    @Test
+    public void servesFromCacheRevalidatesByVersionAndAnswersIfNoneMatchWith304() {
+        Task task = new Task();
+        task.setUserId("user-1");
+        task.setTaskId("task-1");
+        task.setDescription("write tests");
+        task.setStatus(TaskItemCodec.DEFAULT_STATUS);
+        task.setVersion(1L);
+        Map<String, AttributeValue> stored = new HashMap<>(TaskItemCodec.toItem(task));
+
+        AtomicInteger fullReads = new AtomicInteger();
+        AtomicInteger versionReads = new AtomicInteger();
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public GetItemResponse getItem(GetItemRequest request) {
+                if (request.projectionExpression() != null) {
+                    versionReads.incrementAndGet();
+                    return GetItemResponse.builder().item(Map.of(TaskItemCodec.VERSION, stored.get(TaskItemCodec.VERSION))).build();
+                }
+                fullReads.incrementAndGet();
+                return GetItemResponse.builder().item(stored).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        GetTaskByIdHandler handler = new GetTaskByIdHandler(stubClient, "tasks",
+                new ResponseCache(1024 * 1024, TTL, now::get));
+
+        APIGatewayProxyResponseEvent first = handler.handleRequest(request(null), new DiscardingContext());
+        assertEquals(200, first.getStatusCode().intValue());
+        String etag = first.getHeaders().get("ETag");
+        assertNotNull(etag);
+
+        // Within the TTL nothing is read and a matching ETag gets an empty 304
+        APIGatewayProxyResponseEvent cached = handler.handleRequest(request(etag), new DiscardingContext());
+        assertEquals(304, cached.getStatusCode().intValue());
+        assertNull(cached.getBody());
+        assertEquals(etag, cached.getHeaders().get("ETag"));
+        assertEquals(1, fullReads.get());
+        assertEquals(0, versionReads.get());
+
+        // Past the TTL only the Version is read back
+        now.addAndGet(TTL);
+        APIGatewayProxyResponseEvent revalidated = handler.handleRequest(request(null), new DiscardingContext());
+        assertEquals(200, revalidated.getStatusCode().intValue());
+        assertEquals(first.getBody(), revalidated.getBody());
+        assertEquals(1, fullReads.get());
+        assertEquals(1, versionReads.get());
+
+        // A write from another container moves the version on
+        stored.put(TaskItemCodec.STATUS, AttributeValue.fromS("Done"));
+        stored.put(TaskItemCodec.VERSION, AttributeValue.fromN("2"));
+        now.addAndGet(TTL);
+        APIGatewayProxyResponseEvent changed = handler.handleRequest(request(etag), new DiscardingContext());
+        assertEquals(200, changed.getStatusCode().intValue());
+        assertNotEquals(etag, changed.getHeaders().get("ETag"));
+        assertEquals(2, fullReads.get());
+        assertEquals(2, versionReads.get());
+    }
+
+    private static APIGatewayProxyRequestEvent request(String ifNoneMatch) {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("GET")
+                .withPathParameters(Map.of("taskId", "task-1"))
+                .withHeaders(ifNoneMatch != null ? Map.of("if-none-match", ifNoneMatch) : Map.of())
+                .withRequestContext(requestContext);
+    }
+}
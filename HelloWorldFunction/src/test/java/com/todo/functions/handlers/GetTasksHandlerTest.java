@@ -0,0 +1,232 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.DiscardingContext;
+import com.todo.model.TaskIdGenerator;
+import com.todo.model.TaskItemCodec;
+import com.todo.utils.CursorUtils;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GetTasksHandlerTest {
+
+    @Test
+    public void readsOnlyTheRequestedStatusAndFieldsFromTheStatusIndex() throws Exception {
+        List<QueryRequest> queries = new ArrayList<>();
+        Map<String, AttributeValue> lastKey = Map.of(
+                TaskItemCodec.USER_ID, AttributeValue.fromS("user-1"),
+                TaskItemCodec.TASK_ID, AttributeValue.fromS("task-2"),
+                TaskItemCodec.STATUS_TASK_ID, AttributeValue.fromS("Pending#task-2"));
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                queries.add(request);
+                return QueryResponse.builder()
+                        .items(item("task-1"), item("task-2"))
+                        .lastEvaluatedKey(lastKey)
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        GetTasksHandler handler = new GetTasksHandler(stubClient, "tasks");
+
+        APIGatewayProxyResponseEvent response = handler.handleRequest(
+                request(Map.of("status", "Pending", "fields", "description", "limit", "2")), new DiscardingContext());
+
+        assertEquals(200, response.getStatusCode().intValue());
+        QueryRequest query = queries.get(0);
+        assertEquals(TaskItemCodec.USER_STATUS_INDEX, query.indexName());
+        // The index sorts on Status#TaskId, so one status is a key prefix listed in TaskId order
+        assertEquals("#uid = :uid AND begins_with(#stid, :prefix)", query.keyConditionExpression());
+        assertEquals("Pending#", query.expressionAttributeValues().get(":prefix").s());
+        assertNull(query.filterExpression());
+        assertEquals("#p0, #p1, #ver", query.projectionExpression());
+
+        JsonNode body = new ObjectMapper().readTree(response.getBody());
+        JsonNode first = body.get("tasks").get(0);
+        assertEquals(2, first.size());
+        assertEquals("task-1", first.get("taskId").asText());
+        assertEquals("task task-1", first.get("description").asText());
+
+        // A cursor from the Pending listing cannot be replayed against another status
+        String cursor = body.get("nextCursor").asText();
+        assertEquals(lastKey, CursorUtils.decode(cursor));
+        APIGatewayProxyResponseEvent mismatched = handler.handleRequest(
+                request(Map.of("status", "Done", "cursor", cursor)), new DiscardingContext());
+        assertEquals(400, mismatched.getStatusCode().intValue());
+
+        // The rejected field is echoed back escaped, not spliced into the JSON
+        APIGatewayProxyResponseEvent unknownField = handler.handleRequest(
+                request(Map.of("fields", "secret\"}")), new DiscardingContext());
+        assertEquals(400, unknownField.getStatusCode().intValue());
+        assertEquals("Unknown field: secret\"}", new ObjectMapper().readTree(unknownField.getBody()).get("error").asText());
+        assertEquals(1, queries.size());
+    }
+
+    @Test
+    public void listsNewestFirstAndTurnsCreatedRangesIntoTaskIdRanges() throws Exception {
+        long after = Instant.parse("2024-05-01T00:00:00Z").toEpochMilli();
+        String created = TaskIdGenerator.minTaskId(after + 60_000);
+        List<QueryRequest> queries = new ArrayList<>();
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                queries.add(request);
+                // A pre-ULID task whose UUID sorts into the range comes back with the page
+                return QueryResponse.builder().items(item(created), item("2b1c1c1e-0000-4000-8000-000000000000")).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        GetTasksHandler handler = new GetTasksHandler(stubClient, "tasks");
+
+        assertEquals(200, handler.handleRequest(request(Map.of()), new DiscardingContext()).getStatusCode().intValue());
+        assertFalse(queries.get(0).scanIndexForward());
+        assertEquals("#uid = :uid", queries.get(0).keyConditionExpression());
+
+        APIGatewayProxyResponseEvent ranged = handler.handleRequest(request(Map.of("createdAfter", "2024-05-01T00:00:00Z",
+                "createdBefore", Long.toString(after + 86_400_000L), "order", "oldest")), new DiscardingContext());
+        assertEquals(200, ranged.getStatusCode().intValue());
+        QueryRequest range = queries.get(1);
+        assertTrue(range.scanIndexForward());
+        assertEquals("#uid = :uid AND #tid BETWEEN :from AND :to", range.keyConditionExpression());
+        // TaskId is the table's sort key, and DynamoDB rejects filters on key attributes
+        assertNull(range.filterExpression());
+        assertFalse(range.expressionAttributeValues().containsKey(":idlen"));
+        assertEquals(TaskIdGenerator.minTaskId(after), range.expressionAttributeValues().get(":from").s());
+        assertEquals(TaskIdGenerator.maxTaskId(after + 86_400_000L - 1), range.expressionAttributeValues().get(":to").s());
+        JsonNode tasks = new ObjectMapper().readTree(ranged.getBody()).get("tasks");
+        assertEquals(1, tasks.size());
+        assertEquals(created, tasks.get(0).get("taskId").asText());
+
+        // With a status the range moves onto the index sort key, behind the status prefix
+        assertEquals(200, handler.handleRequest(request(Map.of("status", "Done", "createdAfter", "2024-05-01T00:00:00Z")),
+                new DiscardingContext()).getStatusCode().intValue());
+        QueryRequest statusRange = queries.get(2);
+        assertEquals(TaskItemCodec.USER_STATUS_INDEX, statusRange.indexName());
+        assertFalse(statusRange.scanIndexForward());
+        assertEquals("#uid = :uid AND #stid BETWEEN :from AND :to", statusRange.keyConditionExpression());
+        assertEquals("Done#" + TaskIdGenerator.minTaskId(after), statusRange.expressionAttributeValues().get(":from").s());
+        assertTrue(statusRange.expressionAttributeValues().get(":to").s().startsWith("Done#"));
+
+        // A cursor from one created range cannot be replayed against a range it lies outside of
+        String inMay = CursorUtils.encode(TaskItemCodec.key("user-1", created));
+        APIGatewayProxyResponseEvent outOfRange = handler.handleRequest(request(Map.of("cursor", inMay,
+                "createdAfter", "2024-06-01T00:00:00Z")), new DiscardingContext());
+        assertEquals(400, outOfRange.getStatusCode().intValue());
+        assertTrue(outOfRange.getBody().contains("Malformed cursor"));
+
+        assertEquals(400, handler.handleRequest(request(Map.of("createdAfter", "2024-05-02T00:00:00Z",
+                "createdBefore", "2024-05-01T00:00:00Z")), new DiscardingContext()).getStatusCode().intValue());
+        assertEquals(400, handler.handleRequest(request(Map.of("createdAfter", "yesterday")), new DiscardingContext())
+                .getStatusCode().intValue());
+        assertEquals(3, queries.size());
+    }
+
+    @Test
+    public void compressesLargePagesForClientsThatAcceptGzip() throws Exception {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(item(String.format("task-%03d", i)));
+        }
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                return QueryResponse.builder().items(items).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        GetTasksHandler handler = new GetTasksHandler(stubClient, "tasks");
+
+        APIGatewayProxyResponseEvent plain = handler.handleRequest(
+                request(Map.of()).withHeaders(Map.of("Accept-Encoding", "gzip;q=0, br")), new DiscardingContext());
+        assertNull(plain.getIsBase64Encoded());
+        assertFalse(plain.getHeaders().containsKey("Content-Encoding"));
+
+        // API Gateway only decodes base64 for the binary media type, so */* is answered uncompressed
+        APIGatewayProxyResponseEvent anyType = handler.handleRequest(
+                request(Map.of()).withHeaders(Map.of("Accept", "*/*", "Accept-Encoding", "gzip")), new DiscardingContext());
+        assertNull(anyType.getIsBase64Encoded());
+        assertEquals(plain.getBody(), anyType.getBody());
+
+        APIGatewayProxyResponseEvent gzipped = handler.handleRequest(
+                request(Map.of()).withHeaders(Map.of("Accept", "application/json", "Accept-Encoding", "gzip, deflate, br")),
+                new DiscardingContext());
+        assertTrue(gzipped.getIsBase64Encoded());
+        assertEquals("gzip", gzipped.getHeaders().get("Content-Encoding"));
+        String etag = plain.getHeaders().get("ETag");
+        assertEquals(etag.substring(0, etag.length() - 1) + "-gzip\"", gzipped.getHeaders().get("ETag"));
+        byte[] compressed = Base64.getDecoder().decode(gzipped.getBody());
+        assertTrue(compressed.length < plain.getBody().length() / 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(plain.getBody(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        // Either form revalidates, and the 304 names the representation that would have been sent
+        APIGatewayProxyResponseEvent notModified = handler.handleRequest(request(Map.of())
+                .withHeaders(Map.of("Accept", "application/json", "Accept-Encoding", "gzip", "If-None-Match", etag)),
+                new DiscardingContext());
+        assertEquals(304, notModified.getStatusCode().intValue());
+        assertEquals(gzipped.getHeaders().get("ETag"), notModified.getHeaders().get("ETag"));
+        notModified = handler.handleRequest(request(Map.of())
+                .withHeaders(Map.of("If-None-Match", gzipped.getHeaders().get("ETag"))), new DiscardingContext());
+        assertEquals(304, notModified.getStatusCode().intValue());
+        assertEquals(etag, notModified.getHeaders().get("ETag"));
+    }
+
+    private static Map<String, AttributeValue> item(String taskId) {
+        return Map.of(
+                TaskItemCodec.TASK_ID, AttributeValue.fromS(taskId),
+                TaskItemCodec.DESCRIPTION, AttributeValue.fromS("task " + taskId),
+                TaskItemCodec.VERSION, AttributeValue.fromN("1"));
+    }
+
+    private static APIGatewayProxyRequestEvent request(Map<String, String> queryParams) {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("GET")
+                .withQueryStringParameters(queryParams)
+                .withRequestContext(requestContext);
+    }
+}
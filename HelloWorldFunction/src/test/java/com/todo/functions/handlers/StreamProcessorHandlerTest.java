@@ -0,0 +1,147 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.todo.DiscardingContext;
+import com.todo.model.TaskItemCodec;
+import org.junit.Test;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamProcessorHandlerTest {
+
+    @Test
+    public void sendsDueTasksInBatchesOfTenAndReportsOnlyRejectedRecords() {
+        List<SendMessageBatchRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        SqsClient stubClient = new SqsClient() {
+            @Override
+            public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+                requests.add(request);
+                List<BatchResultErrorEntry> failed = new ArrayList<>();
+                for (SendMessageBatchRequestEntry entry : request.entries()) {
+                    if (entry.messageBody().contains("task-7\"")) {
+                        failed.add(BatchResultErrorEntry.builder().id(entry.id()).code("InternalError").senderFault(false).build());
+                    }
+                }
+                return SendMessageBatchResponse.builder().failed(failed).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "sqs";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        List<DynamodbEvent.DynamodbStreamRecord> records = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            records.add(record(i, i % 2 == 0 ? "INSERT" : "MODIFY"));
+        }
+        records.add(record(25, "REMOVE"));
+        DynamodbEvent.DynamodbStreamRecord notDue = record(26, "INSERT");
+        notDue.getDynamodb().getNewImage().put(TaskItemCodec.DEADLINE,
+                new AttributeValue().withN(Long.toString(System.currentTimeMillis() + 600_000)));
+        records.add(notDue);
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(records);
+
+        StreamsEventResponse response = new StreamProcessorHandler(stubClient, "https://sqs.local/expiry.fifo")
+                .handleRequest(event, new DiscardingContext());
+
+        assertEquals(3, requests.size());
+        Set<String> sent = new TreeSet<>();
+        for (SendMessageBatchRequest request : requests) {
+            assertTrue(request.entries().size() <= StreamProcessorHandler.SQS_BATCH_SIZE);
+            for (SendMessageBatchRequestEntry entry : request.entries()) {
+                assertEquals("user-1", entry.messageGroupId());
+                assertNull(entry.delaySeconds());
+                sent.add(entry.id());
+            }
+        }
+        assertEquals(25, sent.size());
+
+        assertEquals(1, response.getBatchItemFailures().size());
+        assertEquals(sequenceNumber(7), response.getBatchItemFailures().get(0).getItemIdentifier());
+    }
+
+    @Test
+    public void skipsUpdatesThatLeaveDeadlineAndStatusAlone() {
+        List<SendMessageBatchRequestEntry> sent = Collections.synchronizedList(new ArrayList<>());
+        SqsClient stubClient = new SqsClient() {
+            @Override
+            public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+                sent.addAll(request.entries());
+                return SendMessageBatchResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "sqs";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        DynamodbEvent.DynamodbStreamRecord descriptionEdit = record(0, "MODIFY");
+        descriptionEdit.getDynamodb().setOldImage(new HashMap<>(descriptionEdit.getDynamodb().getNewImage()));
+        descriptionEdit.getDynamodb().getNewImage().put(TaskItemCodec.DESCRIPTION, new AttributeValue().withS("edited"));
+
+        DynamodbEvent.DynamodbStreamRecord reopened = record(1, "MODIFY");
+        reopened.getDynamodb().setOldImage(new HashMap<>(reopened.getDynamodb().getNewImage()));
+        reopened.getDynamodb().getOldImage().put(TaskItemCodec.STATUS, new AttributeValue().withS("Done"));
+        reopened.getDynamodb().getNewImage().put(TaskItemCodec.STATUS, new AttributeValue().withS(TaskItemCodec.DEFAULT_STATUS));
+
+        DynamodbEvent.DynamodbStreamRecord expired = record(2, "MODIFY");
+        expired.getDynamodb().setOldImage(new HashMap<>(expired.getDynamodb().getNewImage()));
+        expired.getDynamodb().getNewImage().put(TaskItemCodec.STATUS, new AttributeValue().withS(TaskItemCodec.EXPIRED_STATUS));
+
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(descriptionEdit, reopened, expired));
+        StreamsEventResponse response = new StreamProcessorHandler(stubClient, "https://sqs.local/expiry")
+                .handleRequest(event, new DiscardingContext());
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).messageBody().contains("\"task-1\""));
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(int i, String eventName) {
+        Map<String, AttributeValue> image = new HashMap<>();
+        image.put(TaskItemCodec.USER_ID, new AttributeValue().withS("user-1"));
+        image.put(TaskItemCodec.TASK_ID, new AttributeValue().withS("task-" + i));
+        image.put(TaskItemCodec.DEADLINE, new AttributeValue().withN(Long.toString(System.currentTimeMillis() - 60_000)));
+
+        StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setNewImage(image);
+        streamRecord.setSequenceNumber(sequenceNumber(i));
+
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName(eventName);
+        record.setDynamodb(streamRecord);
+        return record;
+    }
+
+    private static String sequenceNumber(int i) {
+        return String.format("%021d", i + 1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.metrics.Metrics;
+import com.todo.metrics.MetricsLogger;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskApiRouterTest {
+
+    private final DynamoDbClient stubClient = new DynamoDbClient() {
+        @Override
+        public GetItemResponse getItem(GetItemRequest request) {
+            return GetItemResponse.builder().item(Map.of(
+                    "UserId", request.key().get("UserId"),
+                    "TaskId", request.key().get("TaskId"),
+                    "Status", AttributeValue.builder().s("Pending").build())).build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {}
+    };
+
+    private final TaskApiRouter router = new TaskApiRouter(stubClient, "tasks");
+
+    @Test
+    public void routesByResourceTemplate() {
+        APIGatewayProxyRequestEvent request = request("GET", "/tasks/{taskId}", "/tasks/task-1")
+                .withPathParameters(Map.of("taskId", "task-1"));
+        APIGatewayProxyResponseEvent response = router.handleRequest(request, null);
+        assertEquals(200, response.getStatusCode().intValue());
+        assertTrue(response.getBody().contains("\"taskId\":\"task-1\""));
+    }
+
+    @Test
+    public void fallsBackToRawPathAndExtractsTaskId() {
+        APIGatewayProxyResponseEvent response = router.handleRequest(request("GET", null, "/tasks/task-2"), null);
+        assertEquals(200, response.getStatusCode().intValue());
+        assertTrue(response.getBody().contains("\"taskId\":\"task-2\""));
+    }
+
+    @Test
+    public void answersPreflightAndUnknownRoutes() {
+        assertEquals(200, router.handleRequest(request("OPTIONS", "/tasks", "/tasks"), null).getStatusCode().intValue());
+        assertEquals(405, router.handleRequest(request("PATCH", "/tasks/{taskId}", "/tasks/a"), null).getStatusCode().intValue());
+        assertEquals(404, router.handleRequest(request("GET", null, "/projects"), null).getStatusCode().intValue());
+    }
+
+    @Test
+    public void emitsAMetricsLinePerRequest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricsLogger previous = Metrics.use(new MetricsLogger(out));
+        APIGatewayProxyResponseEvent response;
+        try {
+            response = router.handleRequest(request("GET", null, "/tasks/task-3"), null);
+        } finally {
+            Metrics.use(previous);
+        }
+
+        JsonNode line = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals("TaskApi", line.get("Function").asText());
+        assertEquals("GET /tasks/{taskId}", line.get("Route").asText());
+        assertEquals("200", line.get("StatusCode").asText());
+        assertEquals(response.getBody().length(), line.get("ResponseBytes").asInt());
+    }
+
+    private static APIGatewayProxyRequestEvent request(String method, String resource, String path) {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod(method)
+                .withResource(resource)
+                .withPath(path)
+                .withRequestContext(requestContext);
+    }
+}
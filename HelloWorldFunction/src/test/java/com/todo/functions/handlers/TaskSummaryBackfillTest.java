@@ -0,0 +1,91 @@
+package com.todo.functions.handlers;
+
+import com.todo.DiscardingContext;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.InMemoryTaskSummaryStore;
+import com.todo.repository.StatusChange;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSummaryBackfillTest {
+
+    @Test
+    public void replacesEachUsersCountsAndRecountsWhenTheStreamMovesMeanwhile() {
+        InMemoryTaskSummaryStore summaries = new InMemoryTaskSummaryStore();
+        // Counted from the stream only: a task created before the counters went Done
+        summaries.apply("user-1", List.of(new StatusChange("100", "Pending", -1), new StatusChange("100", "Done", 1)));
+
+        Map<String, List<Map<String, AttributeValue>>> tasks = Map.of(
+                "user-1", List.of(item("user-1", "task-1", "Pending"), item("user-1", "task-2", "Done"),
+                        item("user-1", "task-3", null)),
+                "user-2", List.of(item("user-2", "task-4", "Pending")));
+        List<QueryRequest> queries = Collections.synchronizedList(new ArrayList<>());
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public ScanResponse scan(ScanRequest request) {
+                List<Map<String, AttributeValue>> keys = new ArrayList<>();
+                tasks.values().forEach(userTasks -> userTasks.forEach(task ->
+                        keys.add(Map.of(TaskItemCodec.USER_ID, task.get(TaskItemCodec.USER_ID)))));
+                return ScanResponse.builder().items(keys).build();
+            }
+
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                assertTrue(request.consistentRead());
+                queries.add(request);
+                String userId = request.expressionAttributeValues().get(":uid").s();
+                if (userId.equals("user-1") && queries.stream().filter(query -> query.expressionAttributeValues()
+                        .get(":uid").s().equals("user-1")).count() == 1) {
+                    // The summary consumer applies a change while user-1 is being counted
+                    summaries.apply("user-1", List.of(new StatusChange("200", "Done", 1)));
+                }
+                return QueryResponse.builder().items(tasks.get(userId)).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        Map<String, Object> result = new TaskSummaryBackfill(stubClient, "tasks", summaries)
+                .handleRequest(Map.of(), new DiscardingContext());
+
+        assertEquals(2, result.get("users"));
+        assertNull(result.get("cursor"));
+        // user-1 was counted twice, user-2 once; tasks without a Status are not counted
+        assertEquals(3, queries.size());
+        assertEquals(Map.of("Pending", 1L, "Done", 1L), summaries.counts("user-1"));
+        assertEquals(Map.of("Pending", 1L), summaries.counts("user-2"));
+
+        // The stream picks up from the sequence number the baseline was counted against
+        summaries.apply("user-1", List.of(new StatusChange("200", "Done", 1), new StatusChange("300", "Pending", 1)));
+        assertEquals(Map.of("Pending", 2L, "Done", 1L), summaries.counts("user-1"));
+    }
+
+    private static Map<String, AttributeValue> item(String userId, String taskId, String status) {
+        Map<String, AttributeValue> item = new HashMap<>(TaskItemCodec.key(userId, taskId));
+        if (status != null) {
+            item.put(TaskItemCodec.STATUS, AttributeValue.fromS(status));
+        }
+        return item;
+    }
+}
@@ -0,0 +1,151 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.DiscardingContext;
+import com.todo.model.TaskItemCodec;
+import com.todo.repository.DynamoDbTaskSummaryStore;
+import com.todo.repository.InMemoryTaskSummaryStore;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSummaryHandlerTest {
+
+    @Test
+    public void countsStatusChangesPerUserAndIgnoresRedeliveredRecords() throws Exception {
+        InMemoryTaskSummaryStore summaries = new InMemoryTaskSummaryStore();
+        TaskSummaryHandler handler = new TaskSummaryHandler(summaries);
+
+        List<DynamodbEvent.DynamodbStreamRecord> first = List.of(
+                record(1, "user-1", "task-1", null, "Pending"),
+                record(2, "user-1", "task-2", null, "Pending"),
+                record(3, "user-2", "task-3", null, "Pending"),
+                record(4, "user-1", "task-1", "Pending", "Done"),
+                // Description edits leave the counts alone
+                record(5, "user-1", "task-2", "Pending", "Pending"),
+                record(6, "user-1", "task-3", null, "Pending"));
+        assertTrue(handler.handleRequest(event(first), new DiscardingContext()).getBatchItemFailures().isEmpty());
+        assertEquals(Map.of("Pending", 2L, "Done", 1L), summaries.counts("user-1"));
+        assertEquals(Map.of("Pending", 1L), summaries.counts("user-2"));
+
+        // Lambda retries from an earlier record: only record 7 is new
+        List<DynamodbEvent.DynamodbStreamRecord> retried = List.of(
+                record(4, "user-1", "task-1", "Pending", "Done"),
+                record(6, "user-1", "task-3", null, "Pending"),
+                record(7, "user-1", "task-1", "Done", null));
+        handler.handleRequest(event(retried), new DiscardingContext());
+        handler.handleRequest(event(retried), new DiscardingContext());
+        assertEquals(Map.of("Pending", 2L, "Done", 0L), summaries.counts("user-1"));
+
+        GetTaskSummaryHandler summaryHandler = new GetTaskSummaryHandler(summaries);
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        APIGatewayProxyResponseEvent response = summaryHandler.handleRequest(
+                new APIGatewayProxyRequestEvent().withHttpMethod("GET").withRequestContext(requestContext),
+                new DiscardingContext());
+        assertEquals(200, response.getStatusCode().intValue());
+        JsonNode body = new ObjectMapper().readTree(response.getBody());
+        assertEquals(2, body.get("counts").get("Pending").asLong());
+        assertEquals(0, body.get("counts").get(TaskItemCodec.EXPIRED_STATUS).asLong());
+        assertEquals(2, body.get("total").asLong());
+    }
+
+    @Test
+    public void coalescesABatchIntoOneAddPerUserAndSkipsWhatWasAppliedBefore() {
+        List<UpdateItemRequest> updates = Collections.synchronizedList(new ArrayList<>());
+        String applied = String.format("%040d", 200);
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public UpdateItemResponse updateItem(UpdateItemRequest request) {
+                updates.add(request);
+                // Records up to 2 were applied by an earlier, failed invocation
+                if (request.conditionExpression().contains(":first")) {
+                    throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+                }
+                return UpdateItemResponse.builder().build();
+            }
+
+            @Override
+            public GetItemResponse getItem(GetItemRequest request) {
+                assertTrue(request.consistentRead());
+                return GetItemResponse.builder()
+                        .item(Map.of("LastSequenceNumber", software.amazon.awssdk.services.dynamodb.model.AttributeValue.fromS(applied)))
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        TaskSummaryHandler handler = new TaskSummaryHandler(new DynamoDbTaskSummaryStore(stubClient, "summaries"));
+
+        StreamsEventResponse response = handler.handleRequest(event(List.of(
+                record(1, "user-1", "task-1", null, "Pending"),
+                record(2, "user-1", "task-2", null, "Pending"),
+                record(3, "user-1", "task-3", null, "Pending"),
+                record(4, "user-1", "task-4", null, "Pending"),
+                record(5, "user-1", "task-1", "Pending", "Done"))), new DiscardingContext());
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(2, updates.size());
+        UpdateItemRequest optimistic = updates.get(0);
+        assertEquals("ADD #c0 :d0, #c1 :d1 SET #seq = :seq", optimistic.updateExpression());
+        assertEquals("3", optimistic.expressionAttributeValues().get(":d0").n());
+        assertEquals("Count#Pending", optimistic.expressionAttributeNames().get("#c0"));
+
+        UpdateItemRequest remainder = updates.get(1);
+        assertEquals("#seq = :expected", remainder.conditionExpression());
+        assertEquals(applied, remainder.expressionAttributeValues().get(":expected").s());
+        assertEquals("1", remainder.expressionAttributeValues().get(":d0").n());
+        assertEquals("1", remainder.expressionAttributeValues().get(":d1").n());
+        assertEquals(String.format("%040d", 500), remainder.expressionAttributeValues().get(":seq").s());
+    }
+
+    private static DynamodbEvent event(List<DynamodbEvent.DynamodbStreamRecord> records) {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(records);
+        return event;
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(int sequence, String userId, String taskId,
+                                                             String oldStatus, String newStatus) {
+        StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setKeys(Map.of(
+                TaskItemCodec.USER_ID, new AttributeValue().withS(userId),
+                TaskItemCodec.TASK_ID, new AttributeValue().withS(taskId)));
+        if (oldStatus != null) {
+            streamRecord.setOldImage(Map.of(TaskItemCodec.STATUS, new AttributeValue().withS(oldStatus)));
+        }
+        if (newStatus != null) {
+            streamRecord.setNewImage(Map.of(TaskItemCodec.STATUS, new AttributeValue().withS(newStatus)));
+        }
+        streamRecord.setSequenceNumber(Integer.toString(sequence * 100));
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName(oldStatus == null ? "INSERT" : newStatus == null ? "REMOVE" : "MODIFY");
+        record.setDynamodb(streamRecord);
+        return record;
+    }
+}
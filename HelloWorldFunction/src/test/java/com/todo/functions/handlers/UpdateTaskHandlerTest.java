@@ -0,0 +1,123 @@
+package com.todo.functions.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.DiscardingContext;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateTaskHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void returnsTheUpdatedTaskAndRejectsStaleVersionsWith409() throws Exception {
+        Task task = new Task();
+        task.setUserId("user-1");
+        task.setTaskId("task-1");
+        task.setDescription("write tests");
+        task.setStatus(TaskItemCodec.DEFAULT_STATUS);
+        task.setVersion(1L);
+        Map<String, AttributeValue> stored = new HashMap<>(TaskItemCodec.toItem(task));
+
+        List<UpdateItemRequest> updates = new ArrayList<>();
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public UpdateItemResponse updateItem(UpdateItemRequest request) {
+                updates.add(request);
+                assertEquals(ReturnValue.ALL_NEW, request.returnValues());
+                Map<String, AttributeValue> values = request.expressionAttributeValues();
+                boolean exists = request.key().get(TaskItemCodec.TASK_ID).s().equals("task-1");
+                if (!exists || (values.containsKey(":expected") && !values.get(":expected").equals(stored.get(TaskItemCodec.VERSION)))) {
+                    throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+                }
+                if (values.containsKey(":desc")) {
+                    stored.put(TaskItemCodec.DESCRIPTION, values.get(":desc"));
+                }
+                if (values.containsKey(":st")) {
+                    stored.put(TaskItemCodec.STATUS, values.get(":st"));
+                    stored.put(TaskItemCodec.STATUS_TASK_ID, values.get(":stid"));
+                }
+                assertTrue(request.updateExpression().contains("#ver = if_not_exists(#ver, :zero) + :one"));
+                long version = Long.parseLong(stored.get(TaskItemCodec.VERSION).n()) + 1;
+                stored.put(TaskItemCodec.VERSION, AttributeValue.fromN(Long.toString(version)));
+                return UpdateItemResponse.builder().attributes(stored).build();
+            }
+
+            @Override
+            public GetItemResponse getItem(GetItemRequest request) {
+                boolean exists = request.key().get(TaskItemCodec.TASK_ID).s().equals("task-1");
+                return GetItemResponse.builder()
+                        .item(exists ? Map.of(TaskItemCodec.VERSION, stored.get(TaskItemCodec.VERSION)) : Map.of())
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        UpdateTaskHandler handler = new UpdateTaskHandler(stubClient, "tasks");
+
+        APIGatewayProxyResponseEvent updated = handler.handleRequest(
+                request("task-1", "{\"status\":\"Done\",\"version\":1}"), new DiscardingContext());
+        assertEquals(200, updated.getStatusCode().intValue());
+        assertNotNull(updated.getHeaders().get("ETag"));
+        JsonNode body = objectMapper.readTree(updated.getBody());
+        assertEquals("Done", body.get("status").asText());
+        assertEquals("write tests", body.get("description").asText());
+        long newVersion = body.get("version").asLong();
+        assertTrue(newVersion > 1);
+
+        // A second client still holding version 1 loses the race
+        APIGatewayProxyResponseEvent stale = handler.handleRequest(
+                request("task-1", "{\"status\":\"Archived\",\"version\":1}"), new DiscardingContext());
+        assertEquals(409, stale.getStatusCode().intValue());
+        assertEquals(newVersion, objectMapper.readTree(stale.getBody()).get("version").asLong());
+        assertEquals("Done", stored.get(TaskItemCodec.STATUS).s());
+
+        // Same field combination, same cached expression; a status other than Pending also
+        // takes the task out of the DeadlineIndex
+        assertSame(updates.get(0).updateExpression(), updates.get(1).updateExpression());
+        assertTrue(updates.get(0).updateExpression().endsWith(" REMOVE #bk"));
+
+        APIGatewayProxyResponseEvent missing = handler.handleRequest(
+                request("task-2", "{\"description\":\"x\"}"), new DiscardingContext());
+        assertEquals(404, missing.getStatusCode().intValue());
+        assertEquals("attribute_exists(#tid)", updates.get(2).conditionExpression());
+    }
+
+    private static APIGatewayProxyRequestEvent request(String taskId, String body) {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("PUT")
+                .withPathParameters(Map.of("taskId", taskId))
+                .withBody(body)
+                .withRequestContext(requestContext);
+    }
+}
@@ -0,0 +1,97 @@
+package com.todo.functions.notifications;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.DiscardingContext;
+import com.todo.model.Notification;
+import org.junit.Test;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void coalescesPerUserAndRetriesOnlyTheMessagesBehindARejectedDigest() throws Exception {
+        List<PublishBatchRequestEntry> published = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        SnsClient stubSns = new SnsClient() {
+            @Override
+            public PublishBatchResponse publishBatch(PublishBatchRequest request) {
+                batchSizes.add(request.publishBatchRequestEntries().size());
+                List<BatchResultErrorEntry> failed = new ArrayList<>();
+                for (PublishBatchRequestEntry entry : request.publishBatchRequestEntries()) {
+                    if (entry.message().contains("task-3-")) {
+                        failed.add(BatchResultErrorEntry.builder().id(entry.id()).code("InternalError").senderFault(false).build());
+                    } else {
+                        published.add(entry);
+                    }
+                }
+                return PublishBatchResponse.builder().failed(failed).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "sns";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        // 12 users with 3 expired tasks each, plus two sign-ins by the same user
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>();
+        for (int task = 0; task < 3; task++) {
+            for (int user = 0; user < 12; user++) {
+                messages.add(message("m-" + user + "-" + task,
+                        Notification.taskExpired("user-" + user, "task-" + user + "-" + task, 1_700_000_000_000L)));
+            }
+        }
+        messages.add(message("login-1", Notification.signedIn("alice", "alice@example.com")));
+        messages.add(message("login-2", Notification.signedIn("alice", "alice@example.com")));
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+
+        SQSBatchResponse response = new NotificationDispatcher(stubSns, "arn:aws:sns:topic")
+                .handleRequest(event, new DiscardingContext());
+
+        // 13 digests need two PublishBatch calls
+        assertEquals(2, batchSizes.size());
+        for (int size : batchSizes) {
+            assertTrue(size <= NotificationDispatcher.SNS_BATCH_SIZE);
+        }
+        assertEquals(12, published.size());
+        for (PublishBatchRequestEntry entry : published) {
+            if (entry.subject() != null) {
+                assertEquals("3 Tasks Expired", entry.subject());
+            } else {
+                assertTrue(entry.message().contains("signed in 2 times"));
+            }
+        }
+
+        Set<String> failed = new TreeSet<>();
+        response.getBatchItemFailures().forEach(failure -> failed.add(failure.getItemIdentifier()));
+        assertEquals(Set.of("m-3-0", "m-3-1", "m-3-2"), failed);
+    }
+
+    private SQSEvent.SQSMessage message(String messageId, Notification notification) throws Exception {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(messageId);
+        message.setBody(objectMapper.writeValueAsString(notification));
+        return message;
+    }
+}
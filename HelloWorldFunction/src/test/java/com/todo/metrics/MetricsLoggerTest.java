@@ -0,0 +1,94 @@
+package com.todo.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsLoggerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void writesOneEmbeddedMetricLinePerInvocation() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricsLogger logger = new MetricsLogger(out);
+
+        logger.record("Items", MetricsLogger.Unit.COUNT, 5);
+        logger.begin("TaskApi", "req-1");
+        logger.record("DynamoDb.Query", MetricsLogger.Unit.MILLISECONDS, 4.5);
+        logger.record("DynamoDb.Query", MetricsLogger.Unit.MILLISECONDS, 6);
+        logger.record("ResponseBytes", MetricsLogger.Unit.BYTES, 2048);
+        logger.property("Route", "GET /tasks/{taskId} \"é\"");
+        logger.end();
+        logger.record("Items", MetricsLogger.Unit.COUNT, 5);
+        logger.begin("TaskApi", "req-2");
+        logger.end();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode directive = first.get("_aws").get("CloudWatchMetrics").get(0);
+        assertEquals(MetricsLogger.NAMESPACE, directive.get("Namespace").asText());
+        assertEquals("Function", directive.get("Dimensions").get(0).get(0).asText());
+        assertTrue(first.get("_aws").get("Timestamp").isNumber());
+        assertEquals("TaskApi", first.get("Function").asText());
+        assertEquals("req-1", first.get("RequestId").asText());
+        assertEquals("GET /tasks/{taskId} \"é\"", first.get("Route").asText());
+        assertEquals(4.5, first.get("DynamoDb.Query").get(0).asDouble(), 0);
+        assertEquals(6, first.get("DynamoDb.Query").get(1).asDouble(), 0);
+        assertEquals(2048, first.get("ResponseBytes").asDouble(), 0);
+        assertEquals(1, first.get("ColdStart").asInt());
+        assertTrue(first.get("Duration").asDouble() >= 0);
+        // Values recorded outside an invocation are dropped
+        assertFalse(first.has("Items"));
+
+        // Every value has a declared metric and every declared metric has a value
+        for (JsonNode metric : directive.get("Metrics")) {
+            assertTrue(first.has(metric.get("Name").asText()));
+        }
+        assertEquals("Milliseconds", directive.get("Metrics").get(0).get("Unit").asText());
+        assertEquals("Bytes", directive.get("Metrics").get(1).get("Unit").asText());
+
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(0, second.get("ColdStart").asInt());
+        assertFalse(second.has("DynamoDb.Query"));
+        assertFalse(second.has("Route"));
+        assertEquals(2, second.get("_aws").get("CloudWatchMetrics").get(0).get("Metrics").size());
+    }
+
+    @Test
+    public void requestsAndReadsConsumedCapacity() {
+        QueryRequest query = QueryRequest.builder().tableName("tasks").build();
+        assertEquals(ReturnConsumedCapacity.TOTAL,
+                ((QueryRequest) SdkCallMetrics.withConsumedCapacity(query)).returnConsumedCapacity());
+
+        QueryRequest indexes = query.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+        assertSame(indexes, SdkCallMetrics.withConsumedCapacity(indexes));
+        SendMessageRequest send = SendMessageRequest.builder().queueUrl("q").build();
+        assertSame(send, SdkCallMetrics.withConsumedCapacity(send));
+
+        assertEquals(2.5, SdkCallMetrics.consumedCapacity(QueryResponse.builder()
+                .consumedCapacity(ConsumedCapacity.builder().capacityUnits(2.5).build())
+                .build()), 0);
+        assertEquals(3, SdkCallMetrics.consumedCapacity(BatchWriteItemResponse.builder()
+                .consumedCapacity(ConsumedCapacity.builder().capacityUnits(1.0).build(),
+                        ConsumedCapacity.builder().capacityUnits(2.0).build())
+                .build()), 0);
+        assertEquals(0, SdkCallMetrics.consumedCapacity(QueryResponse.builder().build()), 0);
+    }
+}
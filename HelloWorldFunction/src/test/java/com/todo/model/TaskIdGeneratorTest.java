@@ -0,0 +1,71 @@
+package com.todo.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskIdGeneratorTest {
+
+    @Test
+    public void idsSortByCreationTimeAndAreStrictlyIncreasingPerThread() {
+        long before = System.currentTimeMillis();
+        String previous = TaskIdGenerator.newTaskId();
+        for (int i = 0; i < 10_000; i++) {
+            String next = TaskIdGenerator.newTaskId();
+            assertTrue(previous + " < " + next, previous.compareTo(next) < 0);
+            previous = next;
+        }
+        long after = System.currentTimeMillis();
+
+        assertEquals(26, previous.length());
+        assertTrue(TaskIdGenerator.isTimeOrdered(previous));
+        long createdAt = TaskIdGenerator.createdAt(previous);
+        assertTrue(createdAt >= before && createdAt <= after);
+
+        // A time range maps onto an ID range
+        assertTrue(TaskIdGenerator.minTaskId(before).compareTo(previous) <= 0);
+        assertTrue(TaskIdGenerator.maxTaskId(after).compareTo(previous) >= 0);
+        assertTrue(TaskIdGenerator.maxTaskId(before - 1).compareTo(TaskIdGenerator.minTaskId(before)) < 0);
+        assertEquals(before, TaskIdGenerator.createdAt(TaskIdGenerator.maxTaskId(before)));
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", TaskIdGenerator.maxTaskId(TaskIdGenerator.MAX_TIME));
+
+        assertFalse(TaskIdGenerator.isTimeOrdered(UUID.randomUUID().toString()));
+        assertFalse(TaskIdGenerator.isTimeOrdered("task-1"));
+    }
+
+    @Test
+    public void threadsGenerateDistinctIdsAndReseedingKeepsThemUnique() throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        ids.add(TaskIdGenerator.newTaskId());
+                        if (i == 2_500) {
+                            TaskIdGenerator.reseed();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(40_000, ids.size());
+    }
+}
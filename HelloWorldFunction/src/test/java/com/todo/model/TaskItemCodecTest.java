@@ -0,0 +1,74 @@
+package com.todo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.utils.JsonUtils;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TaskItemCodecTest {
+
+    @Test
+    public void roundTripsAllAttributes() {
+        Task task = new Task("user-1", "write tests");
+
+        Task decoded = TaskItemCodec.fromItem(TaskItemCodec.toItem(task));
+
+        assertEquals(task.getUserId(), decoded.getUserId());
+        assertEquals(task.getTaskId(), decoded.getTaskId());
+        assertEquals(task.getDescription(), decoded.getDescription());
+        assertEquals(task.getStatus(), decoded.getStatus());
+        assertEquals(task.getDeadline(), decoded.getDeadline());
+        assertEquals(task.getExpireAt(), decoded.getExpireAt());
+    }
+
+    @Test
+    public void appliesDefaultsAndReadsLegacyExpireAt() {
+        Task decoded = TaskItemCodec.fromItem(Map.of(
+                "UserId", AttributeValue.fromS("user-1"),
+                "TaskId", AttributeValue.fromS("task-1"),
+                "expireAt", AttributeValue.fromN("1700000000")));
+
+        assertEquals("", decoded.getDescription());
+        assertEquals("Pending", decoded.getStatus());
+        assertNull(decoded.getDeadline());
+        assertEquals(Long.valueOf(1700000000L), decoded.getExpireAt());
+    }
+
+    @Test
+    public void decodesStreamImages() {
+        Task decoded = TaskItemCodec.fromStreamImage(Map.of(
+                "UserId", new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue().withS("user-1"),
+                "TaskId", new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue().withS("task-1"),
+                "Deadline", new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue().withN("1700000000000")));
+
+        assertEquals("task-1", decoded.getTaskId());
+        assertEquals(Long.valueOf(1700000000000L), decoded.getDeadline());
+        assertEquals("Pending", decoded.getStatus());
+    }
+
+    @Test
+    public void streamsTheSameJsonAsTheTaskSerializer() throws Exception {
+        ObjectMapper objectMapper = JsonUtils.objectMapper();
+        Map<String, AttributeValue> full = TaskItemCodec.toItem(new Task("user-1", "write \"quoted\" tests"));
+        Map<String, AttributeValue> legacy = Map.of(
+                "UserId", AttributeValue.fromS("user-1"),
+                "TaskId", AttributeValue.fromS("task-1"),
+                "expireAt", AttributeValue.fromN("1700000000"));
+
+        for (Map<String, AttributeValue> item : List.of(full, legacy)) {
+            StringWriter out = new StringWriter();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                TaskItemCodec.writeJson(item, generator);
+            }
+            assertEquals(objectMapper.writeValueAsString(TaskItemCodec.fromItem(item)), out.toString());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.todo.priming;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.functions.handlers.GetTaskByIdHandler;
+import com.todo.functions.handlers.GetTasksHandler;
+import com.todo.model.Task;
+import com.todo.model.TaskIdGenerator;
+import com.todo.utils.JsonUtils;
+import com.todo.utils.ResponseCache;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class HandlerPrimerTest {
+
+    private static final Map<String, AttributeValue> ITEM = Map.of(
+            "UserId", AttributeValue.builder().s("user-1").build(),
+            "TaskId", AttributeValue.builder().s("task-1").build(),
+            "Description", AttributeValue.builder().s("write tests").build(),
+            "Status", AttributeValue.builder().s("Pending").build(),
+            "Deadline", AttributeValue.builder().n("1700000000000").build(),
+            "ExpireAt", AttributeValue.builder().n("1700000000").build());
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private final DynamoDbClient stubClient = new DynamoDbClient() {
+        @Override
+        public QueryResponse query(QueryRequest request) {
+            reads.incrementAndGet();
+            return QueryResponse.builder().items(List.of(ITEM)).build();
+        }
+
+        @Override
+        public GetItemResponse getItem(GetItemRequest request) {
+            reads.incrementAndGet();
+            return GetItemResponse.builder().item(ITEM).build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {}
+    };
+
+    @Test
+    public void primedHandlersReturnIdenticalResponses() throws Exception {
+        // No cache, so the responses after priming are rendered again rather than replayed
+        GetTasksHandler listHandler = new GetTasksHandler(stubClient, "tasks", new ResponseCache(0, 0, System::currentTimeMillis));
+        GetTaskByIdHandler getHandler = new GetTaskByIdHandler(stubClient, "tasks", new ResponseCache(0, 0, System::currentTimeMillis));
+
+        APIGatewayProxyResponseEvent listBefore = listHandler.handleRequest(request(), null);
+        APIGatewayProxyResponseEvent getBefore = getHandler.handleRequest(request(), null);
+
+        // The mapper both handlers render with, as registered with Priming
+        HandlerPrimer primer = new HandlerPrimer(JsonUtils.objectMapper());
+        primer.beforeCheckpoint(null);
+        primer.afterRestore(null);
+
+        assertSameResponse(listBefore, listHandler.handleRequest(request(), null));
+        assertSameResponse(getBefore, getHandler.handleRequest(request(), null));
+        assertEquals(4, reads.get());
+    }
+
+    @Test
+    public void primingDoesNotChangeTaskJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Task task = new Task();
+        task.setTaskId("task-1");
+        task.setUserId("user-1");
+        task.setDescription("write tests");
+        task.setStatus("Pending");
+        task.setDeadline(1700000000000L);
+        task.setExpireAt(1700000000L);
+
+        String before = objectMapper.writeValueAsString(task);
+        new HandlerPrimer(objectMapper).beforeCheckpoint(null);
+
+        assertEquals(before, objectMapper.writeValueAsString(task));
+    }
+
+    @Test
+    public void restoreReseedsTaskIds() {
+        AtomicInteger seeded = new AtomicInteger();
+        TaskIdGenerator.useRandomSource(() -> new Random(seeded.incrementAndGet()));
+        try {
+            new Task("user-1", "a");
+            new Task("user-1", "b");
+            assertEquals(1, seeded.get());
+
+            Priming.afterRestore();
+            new Task("user-1", "c");
+            assertEquals(2, seeded.get());
+        } finally {
+            TaskIdGenerator.useRandomSource(null);
+        }
+    }
+
+    private static APIGatewayProxyRequestEvent request() {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("claims", Map.of("sub", "user-1")));
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("GET")
+                .withPathParameters(Map.of("taskId", "task-1"))
+                .withRequestContext(requestContext);
+    }
+
+    private static void assertSameResponse(APIGatewayProxyResponseEvent expected, APIGatewayProxyResponseEvent actual) {
+        assertEquals(200, actual.getStatusCode().intValue());
+        assertEquals(expected.getStatusCode(), actual.getStatusCode());
+        assertEquals(expected.getHeaders(), actual.getHeaders());
+        assertEquals(expected.getBody(), actual.getBody());
+    }
+}
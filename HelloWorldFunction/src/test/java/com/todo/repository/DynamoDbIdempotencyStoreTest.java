@@ -0,0 +1,61 @@
+package com.todo.repository;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DynamoDbIdempotencyStoreTest {
+
+    @Test
+    public void releaseOnlyDeletesTheClaimItWasGiven() {
+        List<DeleteItemRequest> deletes = new ArrayList<>();
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+                deletes.add(request);
+                // The claim lapsed and another request has claimed the key since
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        new DynamoDbIdempotencyStore(stubClient, "idempotency")
+                .release(IdempotencyRecord.inProgress("user-1:key-1", "hash", 1_700_000_030L));
+
+        DeleteItemRequest delete = deletes.get(0);
+        assertEquals("attribute_not_exists(#code) AND #exp = :exp", delete.conditionExpression());
+        assertEquals("1700000030", delete.expressionAttributeValues().get(":exp").n());
+    }
+
+    @Test
+    public void inMemoryReleaseLeavesAReplacedOrCompletedRecord() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore();
+        IdempotencyRecord lapsed = IdempotencyRecord.inProgress("key-1", "hash", 10);
+        IdempotencyRecord current = IdempotencyRecord.inProgress("key-1", "hash", 50);
+        assertNull(store.claim(lapsed, 0));
+        assertNull(store.claim(current, 20_000));
+
+        store.release(lapsed);
+        assertEquals(current, store.claim(IdempotencyRecord.inProgress("key-1", "hash", 60), 30_000));
+
+        IdempotencyRecord completed = new IdempotencyRecord("key-1", "hash", 201, "{}", 50);
+        store.complete(completed);
+        store.release(current);
+        assertEquals(completed, store.claim(IdempotencyRecord.inProgress("key-1", "hash", 60), 30_000));
+    }
+}
@@ -0,0 +1,83 @@
+package com.todo.repository;
+
+import com.todo.model.TaskItemCodec;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DynamoDbTaskRepositoryTest {
+
+    private static final long DEADLINE = 1_700_000_000_000L;
+
+    @Test
+    public void keepsTheDeadlineIndexInStepWithStatus() {
+        Map<String, AttributeValue> stored = new HashMap<>(TaskItemCodec.key("user-1", "task-1"));
+        stored.put(TaskItemCodec.STATUS, AttributeValue.fromS("Done"));
+        stored.put(TaskItemCodec.STATUS_TASK_ID, AttributeValue.fromS("Done#task-1"));
+        stored.put(TaskItemCodec.DEADLINE, AttributeValue.fromN(Long.toString(DEADLINE)));
+        stored.put(TaskItemCodec.VERSION, AttributeValue.fromN("1"));
+        List<UpdateItemRequest> updates = new ArrayList<>();
+        DynamoDbClient stubClient = new DynamoDbClient() {
+            @Override
+            public UpdateItemResponse updateItem(UpdateItemRequest request) {
+                updates.add(request);
+                if (request.expressionAttributeValues().containsKey(":st")
+                        && request.returnValues() != null) {
+                    stored.put(TaskItemCodec.STATUS, request.expressionAttributeValues().get(":st"));
+                    stored.put(TaskItemCodec.STATUS_TASK_ID, request.expressionAttributeValues().get(":stid"));
+                }
+                return UpdateItemResponse.builder().attributes(Map.copyOf(stored)).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {}
+        };
+        DynamoDbTaskRepository repository = new DynamoDbTaskRepository(stubClient, "tasks");
+
+        // Any status but Pending leaves the index in the same write
+        repository.update("user-1", "task-1", null, "Done", 1L);
+        assertEquals(1, updates.size());
+        assertEquals("SET #st = :st, #stid = :stid, #ver = if_not_exists(#ver, :zero) + :one REMOVE #bk", updates.get(0).updateExpression());
+
+        // Reopening does not know the stored deadline, so the bucket follows from the result
+        Map<String, AttributeValue> reopened = repository.update("user-1", "task-1", null, TaskItemCodec.DEFAULT_STATUS, 2L);
+        assertEquals(3, updates.size());
+        assertEquals("SET #st = :st, #stid = :stid, #ver = if_not_exists(#ver, :zero) + :one", updates.get(1).updateExpression());
+        UpdateItemRequest reindex = updates.get(2);
+        assertEquals("SET #bk = :newbk", reindex.updateExpression());
+        assertEquals("#dl = :dl AND #st = :st AND attribute_not_exists(#bk)", reindex.conditionExpression());
+        assertEquals(Long.toString(TaskItemCodec.deadlineBucket(DEADLINE)), reindex.expressionAttributeValues().get(":newbk").n());
+        assertEquals(Long.toString(TaskItemCodec.deadlineBucket(DEADLINE)), reopened.get(TaskItemCodec.DEADLINE_BUCKET).n());
+
+        // An item that is already right costs nothing
+        assertFalse(repository.reindex(reopened));
+        assertEquals(3, updates.size());
+
+        assertTrue(repository.expire("user-1", "task-1", DEADLINE));
+        assertEquals("(#st = :pending OR attribute_not_exists(#st)) AND #dl <= :now", updates.get(3).conditionExpression());
+        assertEquals("EXPIRED#task-1", updates.get(3).expressionAttributeValues().get(":stid").s());
+
+        // Items written before UserStatusIndex was keyed on StatusTaskId are filed by reindex
+        Map<String, AttributeValue> legacy = new HashMap<>(TaskItemCodec.key("user-1", "task-2"));
+        legacy.put(TaskItemCodec.STATUS, AttributeValue.fromS("Done"));
+        assertTrue(repository.reindex(legacy));
+        assertEquals("SET #stid = :newstid", updates.get(4).updateExpression());
+        assertEquals("Done#task-2", updates.get(4).expressionAttributeValues().get(":newstid").s());
+    }
+}
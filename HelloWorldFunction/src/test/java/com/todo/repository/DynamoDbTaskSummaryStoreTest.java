@@ -0,0 +1,180 @@
+package com.todo.repository;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DynamoDbTaskSummaryStoreTest {
+
+    @Test
+    public void firstApplyCreatesTheSummaryInOneWrite() {
+        StubTable table = new StubTable();
+        DynamoDbTaskSummaryStore store = new DynamoDbTaskSummaryStore(table, "summaries");
+
+        store.apply("user-1", List.of(created(1), created(2), done(3)));
+
+        assertEquals(1, table.updates.size());
+        assertEquals("attribute_not_exists(#seq) OR #seq < :first", table.updates.get(0).conditionExpression());
+        assertEquals(Map.of("Pending", 2L, "Done", 1L), store.counts("user-1"));
+        assertEquals(StatusChange.pad("300"), store.lastSequenceNumber("user-1"));
+    }
+
+    @Test
+    public void fullRedeliveryChangesNothing() {
+        StubTable table = new StubTable();
+        DynamoDbTaskSummaryStore store = new DynamoDbTaskSummaryStore(table, "summaries");
+        List<StatusChange> batch = List.of(created(1), created(2), done(3));
+        store.apply("user-1", batch);
+
+        store.apply("user-1", batch);
+
+        // The optimistic write is refused, and once the stored number is read nothing is left
+        assertEquals(2, table.updates.size());
+        assertEquals(Map.of("Pending", 2L, "Done", 1L), store.counts("user-1"));
+    }
+
+    @Test
+    public void partialOverlapAppliesOnlyTheNewChanges() {
+        StubTable table = new StubTable();
+        DynamoDbTaskSummaryStore store = new DynamoDbTaskSummaryStore(table, "summaries");
+        store.apply("user-1", List.of(created(1), created(2)));
+
+        // Lambda retries from record 2 with record 3 and 4 behind it
+        store.apply("user-1", List.of(created(2), done(3), created(4)));
+
+        assertEquals(3, table.updates.size());
+        UpdateItemRequest remainder = table.updates.get(2);
+        assertEquals("#seq = :expected", remainder.conditionExpression());
+        assertEquals(StatusChange.pad("200"), remainder.expressionAttributeValues().get(":expected").s());
+        assertEquals(Map.of("Pending", 3L, "Done", 1L), store.counts("user-1"));
+        assertEquals(StatusChange.pad("400"), store.lastSequenceNumber("user-1"));
+    }
+
+    @Test
+    public void rereadsWhenLastSequenceNumberMovesBetweenTheReadAndTheWrite() {
+        StubTable table = new StubTable();
+        DynamoDbTaskSummaryStore store = new DynamoDbTaskSummaryStore(table, "summaries");
+        store.apply("user-1", List.of(created(1), created(2)));
+
+        // Another invocation applies record 3 just after this one has read LastSequenceNumber
+        table.beforeUpdate = new ArrayList<>(List.of(
+                () -> { },
+                () -> store.apply("user-1", List.of(created(3)))));
+        store.apply("user-1", List.of(created(2), created(3), done(4)));
+
+        assertEquals(Map.of("Pending", 3L, "Done", 1L), store.counts("user-1"));
+        assertEquals(StatusChange.pad("400"), store.lastSequenceNumber("user-1"));
+        UpdateItemRequest last = table.updates.get(table.updates.size() - 1);
+        assertEquals(StatusChange.pad("300"), last.expressionAttributeValues().get(":expected").s());
+    }
+
+    @Test
+    public void resetReplacesTheCountsOnlyIfNothingWasAppliedSince() {
+        StubTable table = new StubTable();
+        DynamoDbTaskSummaryStore store = new DynamoDbTaskSummaryStore(table, "summaries");
+        assertTrue(store.reset("user-1", Map.of("Pending", 4L), null));
+        store.apply("user-1", List.of(done(1)));
+
+        assertFalse(store.reset("user-1", Map.of("Pending", 7L), null));
+        assertTrue(store.reset("user-1", Map.of("Done", 2L), StatusChange.pad("100")));
+        assertEquals(Map.of("Done", 2L), store.counts("user-1"));
+        assertEquals(StatusChange.pad("100"), store.lastSequenceNumber("user-1"));
+    }
+
+    private static StatusChange created(int sequence) {
+        return new StatusChange(Integer.toString(sequence * 100), "Pending", 1);
+    }
+
+    private static StatusChange done(int sequence) {
+        return new StatusChange(Integer.toString(sequence * 100), "Done", 1);
+    }
+
+    /**
+     * One summary item, with the three condition forms DynamoDbTaskSummaryStore writes
+     * evaluated the way DynamoDB would.
+     */
+    private static final class StubTable implements DynamoDbClient {
+
+        final List<UpdateItemRequest> updates = new ArrayList<>();
+        List<Runnable> beforeUpdate = new ArrayList<>();
+        Map<String, AttributeValue> item;
+
+        @Override
+        public synchronized UpdateItemResponse updateItem(UpdateItemRequest request) {
+            if (!beforeUpdate.isEmpty()) {
+                beforeUpdate.remove(0).run();
+            }
+            updates.add(request);
+            check(request.conditionExpression(), request.expressionAttributeValues());
+            Map<String, AttributeValue> next = item != null ? new HashMap<>(item) : new HashMap<>(request.key());
+            for (Map.Entry<String, String> name : request.expressionAttributeNames().entrySet()) {
+                if (name.getKey().startsWith("#c")) {
+                    long delta = Long.parseLong(request.expressionAttributeValues().get(":d" + name.getKey().substring(2)).n());
+                    AttributeValue current = next.get(name.getValue());
+                    long value = (current != null ? Long.parseLong(current.n()) : 0) + delta;
+                    next.put(name.getValue(), AttributeValue.fromN(Long.toString(value)));
+                }
+            }
+            next.put(DynamoDbTaskSummaryStore.LAST_SEQUENCE_NUMBER, request.expressionAttributeValues().get(":seq"));
+            item = next;
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public synchronized PutItemResponse putItem(PutItemRequest request) {
+            check(request.conditionExpression(), request.expressionAttributeValues());
+            item = new HashMap<>(request.item());
+            return PutItemResponse.builder().build();
+        }
+
+        @Override
+        public synchronized GetItemResponse getItem(GetItemRequest request) {
+            return GetItemResponse.builder().item(item != null ? Map.copyOf(item) : Map.of()).build();
+        }
+
+        private void check(String condition, Map<String, AttributeValue> values) {
+            AttributeValue stored = item != null ? item.get(DynamoDbTaskSummaryStore.LAST_SEQUENCE_NUMBER) : null;
+            boolean holds;
+            switch (condition) {
+                case "attribute_not_exists(#seq) OR #seq < :first":
+                    holds = stored == null || stored.s().compareTo(values.get(":first").s()) < 0;
+                    break;
+                case "attribute_not_exists(#seq)":
+                    holds = stored == null;
+                    break;
+                case "#seq = :expected":
+                    holds = stored != null && stored.s().equals(values.get(":expected").s());
+                    break;
+                default:
+                    throw new AssertionError("Unexpected condition " + condition);
+            }
+            if (!holds) {
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {}
+    }
+}
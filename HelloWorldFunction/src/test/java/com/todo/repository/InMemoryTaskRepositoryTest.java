@@ -0,0 +1,263 @@
+package com.todo.repository;
+
+import com.todo.model.Task;
+import com.todo.model.TaskIdGenerator;
+import com.todo.model.TaskItemCodec;
+import com.todo.model.TaskProjection;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InMemoryTaskRepositoryTest {
+
+    @Test
+    public void pagesThroughAPartitionInTaskIdOrder() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        for (int i = 4; i >= 0; i--) {
+            repository.put(item("user-1", "task-" + i, i % 2 == 0 ? "Done" : TaskItemCodec.DEFAULT_STATUS, 1L));
+        }
+        repository.put(item("user-2", "task-9", "Done", 1L));
+
+        TaskRepository.Page first = repository.query(new PageQuery("user-1", null, 2, null, null), false);
+        assertEquals(List.of("task-0", "task-1"), taskIds(first));
+        assertEquals(TaskItemCodec.key("user-1", "task-1"), first.lastEvaluatedKey());
+        assertEquals("Done", first.items().get(0).get(TaskItemCodec.STATUS).s());
+
+        TaskRepository.Page second = repository.query(new PageQuery("user-1", null, 2, first.lastEvaluatedKey(), null), true);
+        assertEquals(List.of("task-2", "task-3"), taskIds(second));
+        assertEquals(Set.of(TaskItemCodec.TASK_ID, TaskItemCodec.VERSION), second.items().get(0).keySet());
+
+        // Like DynamoDB, a page that stops short of the limit is the last one
+        TaskRepository.Page last = repository.query(new PageQuery("user-1", null, 2, second.lastEvaluatedKey(), null), false);
+        assertEquals(List.of("task-4"), taskIds(last));
+        assertNull(last.lastEvaluatedKey());
+
+        // Status queries carry StatusTaskId in their key, as keys from UserStatusIndex do
+        TaskRepository.Page done = repository.query(
+                new PageQuery("user-1", "Done", 2, null, TaskProjection.parse("description")), false);
+        assertEquals(List.of("task-0", "task-2"), taskIds(done));
+        assertEquals("Done#task-2", done.lastEvaluatedKey().get(TaskItemCodec.STATUS_TASK_ID).s());
+        assertEquals(Set.of(TaskItemCodec.TASK_ID, TaskItemCodec.DESCRIPTION, TaskItemCodec.VERSION),
+                done.items().get(0).keySet());
+        TaskRepository.Page moreDone = repository.query(
+                new PageQuery("user-1", "Done", 2, done.lastEvaluatedKey(), null), false);
+        assertEquals(List.of("task-4"), taskIds(moreDone));
+
+        assertTrue(repository.query(new PageQuery("nobody", null, 2, null, null), false).items().isEmpty());
+
+        Map<String, Map<String, AttributeValue>> found = repository.getAll("user-1", List.of("task-3", "task-7"),
+                TaskProjection.parse("status"));
+        assertEquals(Set.of("task-3"), found.keySet());
+        assertEquals(Set.of(TaskItemCodec.TASK_ID, TaskItemCodec.STATUS), found.get("task-3").keySet());
+    }
+
+    @Test
+    public void updatesAreConditionalOnExistenceAndVersion() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        repository.put(item("user-1", "task-1", TaskItemCodec.DEFAULT_STATUS, 1L));
+
+        Map<String, AttributeValue> updated = repository.update("user-1", "task-1", null, "Done", 1L);
+        assertEquals("Done", updated.get(TaskItemCodec.STATUS).s());
+        assertEquals("Done#task-1", updated.get(TaskItemCodec.STATUS_TASK_ID).s());
+        assertEquals("write tests", updated.get(TaskItemCodec.DESCRIPTION).s());
+        assertEquals(Long.valueOf(2), repository.version("user-1", "task-1", true));
+        // Unversioned writes still advance Version by one each, however close together
+        repository.update("user-1", "task-1", "first", null, null);
+        repository.update("user-1", "task-1", "second", null, null);
+        assertEquals(Long.valueOf(4), repository.version("user-1", "task-1", true));
+
+        expectConditionFailure(() -> repository.update("user-1", "task-1", "stale", null, 3L));
+        expectConditionFailure(() -> repository.update("user-1", "task-2", "missing", null, null));
+        expectConditionFailure(() -> repository.update("user-2", "task-1", "other user", null, null));
+        assertEquals("second", repository.get("user-1", "task-1").get(TaskItemCodec.DESCRIPTION).s());
+        assertNull(repository.get("user-1", "task-2"));
+
+        Set<String> unprocessed = repository.writeAll(List.of(
+                WriteRequest.builder().deleteRequest(DeleteRequest.builder()
+                        .key(TaskItemCodec.key("user-1", "task-1")).build()).build(),
+                WriteRequest.builder().putRequest(PutRequest.builder()
+                        .item(item("user-1", "task-3", "Done", 1L)).build()).build()));
+        assertTrue(unprocessed.isEmpty());
+        assertNull(repository.version("user-1", "task-1", false));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    public void concurrentVersionedUpdatesNeverLoseAWrite() throws Exception {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        Map<String, AttributeValue> item = new HashMap<>(item("user-1", "task-1", TaskItemCodec.DEFAULT_STATUS, 1L));
+        item.put(TaskItemCodec.DESCRIPTION, AttributeValue.fromS("0"));
+        repository.put(item);
+
+        int threads = 8;
+        int incrementsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<Void>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < incrementsPerThread; i++) {
+                        // Read-modify-write with the version as the guard, retrying on conflict
+                        while (true) {
+                            Map<String, AttributeValue> current = repository.get("user-1", "task-1");
+                            long version = Long.parseLong(current.get(TaskItemCodec.VERSION).n());
+                            String next = Integer.toString(Integer.parseInt(current.get(TaskItemCodec.DESCRIPTION).s()) + 1);
+                            try {
+                                repository.update("user-1", "task-1", next, null, version);
+                                break;
+                            } catch (ConditionalCheckFailedException e) {
+                                // Lost the race; re-read and try again
+                            }
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(Integer.toString(threads * incrementsPerThread),
+                repository.get("user-1", "task-1").get(TaskItemCodec.DESCRIPTION).s());
+    }
+
+    @Test
+    public void expiresDueTasksOnceAndDrainsTheirBucket() {
+        long deadline = 1_700_000_000_000L;
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        Task due = new Task();
+        due.setUserId("user-1");
+        due.setTaskId("task-1");
+        due.setStatus(TaskItemCodec.DEFAULT_STATUS);
+        due.setDeadline(deadline);
+        due.setVersion(1L);
+        repository.put(TaskItemCodec.toItem(due));
+        due.setTaskId("task-2");
+        due.setDeadline(deadline + 1_000);
+        repository.put(TaskItemCodec.toItem(due));
+
+        long bucket = TaskItemCodec.deadlineBucket(deadline);
+        List<Map<String, AttributeValue>> found = repository.dueForExpiry(bucket, deadline);
+        assertEquals(1, found.size());
+        assertEquals("task-1", found.get(0).get(TaskItemCodec.TASK_ID).s());
+        assertEquals(Long.toString(deadline), found.get(0).get(TaskItemCodec.DEADLINE).n());
+
+        assertFalse(repository.expire("user-1", "task-2", deadline));
+        assertTrue(repository.expireAsync("user-1", "task-1", deadline).join());
+        assertFalse(repository.expire("user-1", "task-1", deadline));
+        assertFalse(repository.expire("user-1", "task-9", deadline));
+
+        Map<String, AttributeValue> expired = repository.get("user-1", "task-1");
+        assertEquals(TaskItemCodec.EXPIRED_STATUS, expired.get(TaskItemCodec.STATUS).s());
+        assertFalse(expired.containsKey(TaskItemCodec.DEADLINE_BUCKET));
+        assertTrue(repository.dueForExpiry(bucket, deadline + 1_000).stream()
+                .noneMatch(item -> "task-1".equals(item.get(TaskItemCodec.TASK_ID).s())));
+    }
+
+    @Test
+    public void onlyPendingTasksStayInTheDeadlineIndex() {
+        long deadline = 1_700_000_000_000L;
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        Task task = new Task();
+        task.setUserId("user-1");
+        task.setTaskId("task-1");
+        task.setStatus(TaskItemCodec.DEFAULT_STATUS);
+        task.setDeadline(deadline);
+        task.setVersion(1L);
+        repository.put(TaskItemCodec.toItem(task));
+        long bucket = TaskItemCodec.deadlineBucket(deadline);
+
+        Map<String, AttributeValue> done = repository.update("user-1", "task-1", null, "Done", 1L);
+        assertFalse(done.containsKey(TaskItemCodec.DEADLINE_BUCKET));
+        assertTrue(repository.dueForExpiry(bucket, deadline).isEmpty());
+        assertFalse(repository.expire("user-1", "task-1", deadline));
+
+        // Reopening files the task under its deadline again, and a new deadline moves it
+        repository.update("user-1", "task-1", null, TaskItemCodec.DEFAULT_STATUS, 2L);
+        assertEquals(1, repository.dueForExpiry(bucket, deadline).size());
+        Map<String, AttributeValue> moved = repository.update("user-1", "task-1", null, null, deadline + 120_000, 3L);
+        assertEquals(Long.toString(bucket + 2), moved.get(TaskItemCodec.DEADLINE_BUCKET).n());
+        assertEquals(Long.toString((deadline + 120_000) / 1000), moved.get(TaskItemCodec.EXPIRE_AT).n());
+        assertTrue(repository.expire("user-1", "task-1", deadline + 120_000));
+    }
+
+    @Test
+    public void listsNewestFirstAndFiltersByCreationTimeAlongsideLegacyIds() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        long start = 1_700_000_000_000L;
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String taskId = TaskIdGenerator.minTaskId(start + i * 60_000L);
+            created.add(taskId);
+            repository.put(item("user-1", taskId, TaskItemCodec.DEFAULT_STATUS, 1L));
+        }
+        // Tasks created before time-ordered IDs keep their UUIDs
+        String legacyId = UUID.randomUUID().toString();
+        repository.put(item("user-1", legacyId, TaskItemCodec.DEFAULT_STATUS, 1L));
+
+        TaskRepository.Page newest = repository.query(
+                new PageQuery("user-1", null, 2, null, null, true, null, null), false);
+        TaskRepository.Page older = repository.query(
+                new PageQuery("user-1", null, 10, newest.lastEvaluatedKey(), null, true, null, null), false);
+        List<String> all = new ArrayList<>(taskIds(newest));
+        all.addAll(taskIds(older));
+        assertEquals(5, all.size());
+        assertTrue(all.contains(legacyId));
+        all.remove(legacyId);
+        assertEquals(List.of(created.get(3), created.get(2), created.get(1), created.get(0)), all);
+
+        // createdAfter is inclusive, createdBefore exclusive, and UUIDs are never in a range
+        TaskRepository.Page range = repository.query(new PageQuery("user-1", null, 10, null, null, true,
+                start + 60_000L, start + 180_000L), false);
+        assertEquals(List.of(created.get(2), created.get(1)), taskIds(range));
+        TaskRepository.Page since = repository.query(new PageQuery("user-1", TaskItemCodec.DEFAULT_STATUS, 10, null, null,
+                false, start + 120_000L, null), false);
+        assertEquals(List.of(created.get(2), created.get(3)), taskIds(since));
+    }
+
+    private static Map<String, AttributeValue> item(String userId, String taskId, String status, Long version) {
+        Task task = new Task();
+        task.setUserId(userId);
+        task.setTaskId(taskId);
+        task.setDescription("write tests");
+        task.setStatus(status);
+        task.setVersion(version);
+        return TaskItemCodec.toItem(task);
+    }
+
+    private static List<String> taskIds(TaskRepository.Page page) {
+        List<String> taskIds = new ArrayList<>();
+        for (Map<String, AttributeValue> item : page.items()) {
+            taskIds.add(item.get(TaskItemCodec.TASK_ID).s());
+        }
+        return taskIds;
+    }
+
+    private static void expectConditionFailure(Runnable write) {
+        try {
+            write.run();
+            fail("Expected the condition to fail");
+        } catch (ConditionalCheckFailedException expected) {
+            // The stored item is left as it was
+        }
+    }
+}
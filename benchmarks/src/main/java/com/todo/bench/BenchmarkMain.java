@@ -0,0 +1,59 @@
+package com.todo.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the handler suites twice: once for throughput (ops/s) and once in sample mode for
+ * latency percentiles (p50/p99/p99.9), both with the GC profiler so gc.alloc.rate.norm
+ * (bytes allocated per operation) is reported. Any standard JMH arguments, e.g. an include
+ * regex or -f/-wi/-i overrides, are passed through.
+ *
+ *   java -jar benchmarks/target/benchmarks.jar [jmh options] [benchmark regex]
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        new Runner(options(commandLine)
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .result("jmh-throughput.json")
+                .build()).run();
+
+        new Runner(options(commandLine)
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .result("jmh-latency.json")
+                .build()).run();
+    }
+
+    private static ChainedOptionsBuilder options(CommandLineOptions commandLine) {
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON);
+        // Quick defaults; values given on the command line win
+        if (!commandLine.getForkCount().hasValue()) {
+            builder.forks(1);
+        }
+        if (!commandLine.getWarmupIterations().hasValue()) {
+            builder.warmupIterations(3);
+        }
+        if (!commandLine.getMeasurementIterations().hasValue()) {
+            builder.measurementIterations(5);
+        }
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include("com\\.todo\\.bench\\..*Benchmark");
+        }
+        return builder;
+    }
+}
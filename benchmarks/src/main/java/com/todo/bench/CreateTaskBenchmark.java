@@ -0,0 +1,32 @@
+package com.todo.bench;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.bench.stubs.StubContext;
+import com.todo.bench.stubs.StubDynamoDbClient;
+import com.todo.functions.handlers.CreateTaskHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class CreateTaskBenchmark {
+
+    private final StubContext context = new StubContext();
+    private CreateTaskHandler handler;
+    private APIGatewayProxyRequestEvent request;
+
+    // A fresh table per iteration keeps the stub from growing without bound
+    @Setup(Level.Iteration)
+    public void setUp() {
+        handler = new CreateTaskHandler(new StubDynamoDbClient(), "tasks");
+        request = Events.apiRequest("create-task-event.json");
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent createTask() {
+        return handler.handleRequest(request, context);
+    }
+}
@@ -0,0 +1,110 @@
+package com.todo.bench;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.TaskItemCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark payloads. API Gateway requests are read from the repository's events/*.json
+ * files; stream and queue batches have no sample file and are built here.
+ */
+public final class Events {
+
+    public static final String USER_ID = "test-user-123";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private Events() {}
+
+    public static APIGatewayProxyRequestEvent apiRequest(String eventFile) {
+        try (InputStream in = Events.class.getResourceAsStream("/events/" + eventFile)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No such event file: " + eventFile);
+            }
+            return objectMapper.readValue(in, APIGatewayProxyRequestEvent.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** The create-task sample event, re-targeted at another method, path and body. */
+    public static APIGatewayProxyRequestEvent apiRequest(String method, String resource, String path, String body) {
+        APIGatewayProxyRequestEvent request = apiRequest("create-task-event.json");
+        request.setHttpMethod(method);
+        request.setResource(resource);
+        request.setPath(path);
+        request.setBody(body);
+        return request;
+    }
+
+    public static DynamodbEvent streamBatch(int size, String eventName) {
+        List<DynamodbEvent.DynamodbStreamRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, AttributeValue> image = new HashMap<>();
+            image.put(TaskItemCodec.USER_ID, new AttributeValue().withS(USER_ID));
+            image.put(TaskItemCodec.TASK_ID, new AttributeValue().withS(String.format("task-%08d", i)));
+            image.put(TaskItemCodec.DESCRIPTION, new AttributeValue().withS("Streamed task " + i));
+            image.put(TaskItemCodec.STATUS, new AttributeValue().withS(TaskItemCodec.DEFAULT_STATUS));
+            // Already due, so every record takes the SQS path instead of waiting for the sweeper
+            image.put(TaskItemCodec.DEADLINE, new AttributeValue().withN(Long.toString(System.currentTimeMillis() - 60_000)));
+
+            StreamRecord streamRecord = new StreamRecord();
+            streamRecord.setNewImage(image);
+            streamRecord.setKeys(Map.of(
+                    TaskItemCodec.USER_ID, image.get(TaskItemCodec.USER_ID),
+                    TaskItemCodec.TASK_ID, image.get(TaskItemCodec.TASK_ID)));
+            streamRecord.setSequenceNumber(String.format("%021d", i + 1));
+
+            DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+            record.setEventID("event-" + i);
+            record.setEventName(eventName);
+            record.setDynamodb(streamRecord);
+            records.add(record);
+        }
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(records);
+        return event;
+    }
+
+    public static SQSEvent expiryBatch(int size) {
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+            message.setMessageId("message-" + i);
+            message.setBody(String.format("{\"taskId\":\"task-%08d\",\"userId\":\"%s\",\"deadline\":\"1700000000000\"}", i, USER_ID));
+            message.setAttributes(Map.of("MessageGroupId", USER_ID));
+            messages.add(message);
+        }
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+        return event;
+    }
+
+    public static SQSEvent notificationBatch(int size, int users) {
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+            message.setMessageId("notification-" + i);
+            message.setBody(String.format("{\"type\":\"TASK_EXPIRED\",\"userId\":\"user-%d\",\"taskId\":\"task-%08d\",\"deadline\":1700000000000}",
+                    i % users, i));
+            messages.add(message);
+        }
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+        return event;
+    }
+}
@@ -0,0 +1,49 @@
+package com.todo.bench;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.bench.stubs.StubContext;
+import com.todo.bench.stubs.StubDynamoDbClient;
+import com.todo.functions.handlers.GetTasksHandler;
+import com.todo.utils.ResponseCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class GetTasksBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int items;
+
+    @Param({"50", "100"})
+    public int limit;
+
+    // "identity" measures the plain JSON path, "gzip" adds compression and base64
+    @Param({"identity", "gzip"})
+    public String acceptEncoding;
+
+    private final StubContext context = new StubContext();
+    private GetTasksHandler handler;
+    private APIGatewayProxyRequestEvent request;
+
+    @Setup
+    public void setUp() {
+        StubDynamoDbClient dynamoDbClient = new StubDynamoDbClient();
+        dynamoDbClient.seed(Events.USER_ID, items);
+        // Caching disabled so every invocation queries and renders the page
+        handler = new GetTasksHandler(dynamoDbClient, "tasks", new ResponseCache(0, 0, System::currentTimeMillis));
+        request = Events.apiRequest("GET", "/tasks", "/tasks", null)
+                .withQueryStringParameters(Map.of("limit", Integer.toString(limit)))
+                .withHeaders(Map.of("Accept", "application/json", "Accept-Encoding", acceptEncoding));
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent getTasks() {
+        return handler.handleRequest(request, context);
+    }
+}
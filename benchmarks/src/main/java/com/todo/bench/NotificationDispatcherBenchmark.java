@@ -0,0 +1,42 @@
+package com.todo.bench;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.todo.bench.stubs.StubContext;
+import com.todo.bench.stubs.StubSnsClient;
+import com.todo.functions.notifications.NotificationDispatcher;
+import com.todo.metrics.Metrics;
+import com.todo.metrics.MetricsLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+
+@State(Scope.Benchmark)
+public class NotificationDispatcherBenchmark {
+
+    @Param({"10", "100"})
+    public int batchSize;
+
+    @Param({"1", "10"})
+    public int users;
+
+    private final StubContext context = new StubContext();
+    private NotificationDispatcher handler;
+    private SQSEvent event;
+
+    @Setup
+    public void setUp() {
+        // Metrics lines are still rendered and written, just not to the console
+        Metrics.use(new MetricsLogger(OutputStream.nullOutputStream()));
+        handler = new NotificationDispatcher(new StubSnsClient(), "arn:aws:sns:us-east-1:000000000000:tasks");
+        event = Events.notificationBatch(batchSize, users);
+    }
+
+    @Benchmark
+    public Object dispatchBatch() {
+        return handler.handleRequest(event, context);
+    }
+}
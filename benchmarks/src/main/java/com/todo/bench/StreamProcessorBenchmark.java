@@ -0,0 +1,39 @@
+package com.todo.bench;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.todo.bench.stubs.StubContext;
+import com.todo.bench.stubs.StubSqsClient;
+import com.todo.functions.handlers.StreamProcessorHandler;
+import com.todo.metrics.Metrics;
+import com.todo.metrics.MetricsLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+
+@State(Scope.Benchmark)
+public class StreamProcessorBenchmark {
+
+    @Param({"10", "100"})
+    public int batchSize;
+
+    private final StubContext context = new StubContext();
+    private StreamProcessorHandler handler;
+    private DynamodbEvent event;
+
+    @Setup
+    public void setUp() {
+        // Metrics lines are still rendered and written, just not to the console
+        Metrics.use(new MetricsLogger(OutputStream.nullOutputStream()));
+        handler = new StreamProcessorHandler(new StubSqsClient(), "https://sqs.local/expiry.fifo");
+        event = Events.streamBatch(batchSize, "INSERT");
+    }
+
+    @Benchmark
+    public Object processStreamBatch() {
+        return handler.handleRequest(event, context);
+    }
+}
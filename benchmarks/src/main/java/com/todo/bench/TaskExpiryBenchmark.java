@@ -0,0 +1,42 @@
+package com.todo.bench;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.todo.bench.stubs.StubContext;
+import com.todo.bench.stubs.StubDynamoDbClient;
+import com.todo.bench.stubs.StubSqsClient;
+import com.todo.functions.expiry.TaskExpiryHandler;
+import com.todo.metrics.Metrics;
+import com.todo.metrics.MetricsLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+
+@State(Scope.Benchmark)
+public class TaskExpiryBenchmark {
+
+    @Param({"1", "10"})
+    public int batchSize;
+
+    private final StubContext context = new StubContext();
+    private TaskExpiryHandler handler;
+    private SQSEvent event;
+
+    @Setup
+    public void setUp() {
+        // Metrics lines are still rendered and written, just not to the console
+        Metrics.use(new MetricsLogger(OutputStream.nullOutputStream()));
+        StubDynamoDbClient dynamoDbClient = new StubDynamoDbClient();
+        dynamoDbClient.seed(Events.USER_ID, batchSize);
+        handler = new TaskExpiryHandler(dynamoDbClient, new StubSqsClient(), "tasks", "https://sqs.local/notifications");
+        event = Events.expiryBatch(batchSize);
+    }
+
+    @Benchmark
+    public Object expireBatch() {
+        return handler.handleRequest(event, context);
+    }
+}
@@ -0,0 +1,82 @@
+package com.todo.bench;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.model.Task;
+import com.todo.model.TaskItemCodec;
+import com.todo.utils.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rendering a page of items on its own: the Task list through a reflective ObjectMapper
+ * (the former GetTasksHandler path), the same through the shared Blackbird mapper, and the
+ * streaming writer GetTasksHandler uses now.
+ */
+@State(Scope.Benchmark)
+public class TaskListRenderingBenchmark {
+
+    @Param({"100", "1000"})
+    public int items;
+
+    private final ObjectMapper reflectiveMapper = new ObjectMapper();
+    private final ObjectMapper sharedMapper = JsonUtils.objectMapper();
+    private List<Map<String, AttributeValue>> page;
+
+    @Setup
+    public void setUp() {
+        page = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Task task = new Task(Events.USER_ID, "Rendered task " + i);
+            page.add(TaskItemCodec.toItem(task));
+        }
+    }
+
+    @Benchmark
+    public String pojoReflective() throws IOException {
+        return pojo(reflectiveMapper);
+    }
+
+    @Benchmark
+    public String pojoBlackbird() throws IOException {
+        return pojo(sharedMapper);
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        SegmentedStringWriter out = new SegmentedStringWriter(sharedMapper.getFactory()._getBufferRecycler());
+        try (JsonGenerator generator = sharedMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("tasks");
+            for (Map<String, AttributeValue> item : page) {
+                TaskItemCodec.writeJson(item, generator);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("nextCursor", null);
+            generator.writeEndObject();
+        }
+        return out.getAndClear();
+    }
+
+    private String pojo(ObjectMapper mapper) throws IOException {
+        List<Task> tasks = new ArrayList<>(page.size());
+        for (Map<String, AttributeValue> item : page) {
+            tasks.add(TaskItemCodec.fromItem(item));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("tasks", tasks);
+        body.put("nextCursor", null);
+        return mapper.writeValueAsString(body);
+    }
+}
@@ -0,0 +1,38 @@
+package com.todo.bench;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.todo.bench.stubs.StubContext;
+import com.todo.bench.stubs.StubDynamoDbClient;
+import com.todo.functions.handlers.UpdateTaskHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class UpdateTaskBenchmark {
+
+    private static final String TASK_ID = "task-00000001";
+
+    private final StubContext context = new StubContext();
+    private UpdateTaskHandler handler;
+    private APIGatewayProxyRequestEvent request;
+
+    @Setup
+    public void setUp() {
+        StubDynamoDbClient dynamoDbClient = new StubDynamoDbClient();
+        dynamoDbClient.seed(Events.USER_ID, 10);
+        handler = new UpdateTaskHandler(dynamoDbClient, "tasks");
+        request = Events.apiRequest("PUT", "/tasks/{taskId}", "/tasks/" + TASK_ID,
+                        "{\"description\":\"Updated from benchmark\",\"status\":\"Done\"}")
+                .withPathParameters(Map.of("taskId", TASK_ID));
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent updateTask() {
+        return handler.handleRequest(request, context);
+    }
+}
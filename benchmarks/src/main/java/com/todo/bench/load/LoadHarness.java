@@ -0,0 +1,372 @@
+package com.todo.bench.load;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.bench.Events;
+import com.todo.bench.stubs.StubContext;
+import com.todo.bench.stubs.StubSqsClient;
+import com.todo.functions.expiry.TaskExpiryHandler;
+import com.todo.functions.expiry.TaskExpirySweeper;
+import com.todo.functions.handlers.StreamProcessorHandler;
+import com.todo.functions.handlers.TaskApiRouter;
+import com.todo.metrics.Metrics;
+import com.todo.metrics.MetricsLogger;
+import com.todo.repository.InMemorySweepCheckpointStore;
+import com.todo.repository.InMemoryTaskRepository;
+import com.todo.utils.ResponseCache;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drives the whole task pipeline in-process at a fixed request rate and reports latency
+ * percentiles per stage.
+ *
+ * API requests are synthesized from events/create-task-event.json in a configurable CRUD
+ * mix and sent to {@link TaskApiRouter} from a pool of worker threads. Storage is an
+ * {@link InMemoryTaskRepository} whose writes are replayed as DynamoDB stream records into
+ * {@link StreamProcessorHandler}; the SQS messages it sends are delivered in turn to
+ * {@link TaskExpiryHandler}, and {@link TaskExpirySweeper} runs on a timer for tasks whose
+ * deadline was not yet due when their record was processed.
+ *
+ * Requests are issued open-loop: each has a scheduled start time, and its latency is
+ * measured from that time, so queueing behind a saturated pool is counted instead of
+ * hidden (no coordinated omission). Results of the warm-up seconds are discarded.
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.todo.bench.load.LoadHarness \
+ *       [--rate=500] [--duration=30] [--warmup=5] [--concurrency=64] [--users=100] \
+ *       [--mix=create:40,get:30,list:15,update:10,delete:5] [--deadline-ms=0] \
+ *       [--stream-batch=100] [--queue-batch=10] [--sweep-interval-ms=1000]
+ */
+public class LoadHarness {
+
+    private static final String EXPIRY_QUEUE_URL = "https://sqs.us-east-1.amazonaws.com/000000000000/TaskExpiryQueue.fifo";
+    private static final String NOTIFICATION_QUEUE_URL = "https://sqs.us-east-1.amazonaws.com/000000000000/NotificationQueue";
+
+    // Recently created tasks that reads, updates and deletes pick from
+    private static final int KNOWN_TASKS = 4096;
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Context context = new StubContext();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String[]> knownTasks = new AtomicReferenceArray<>(KNOWN_TASKS);
+    private final AtomicLong created = new AtomicLong();
+
+    private final BlockingQueue<DynamodbEvent.DynamodbStreamRecord> stream = new LinkedBlockingQueue<>();
+    private final BlockingQueue<SQSEvent.SQSMessage> expiryQueue = new LinkedBlockingQueue<>();
+    private final RecordingTaskRepository repository;
+    private final TaskApiRouter router;
+    private final StreamProcessorHandler streamProcessor;
+    private final TaskExpiryHandler expiryHandler;
+    private final TaskExpirySweeper sweeper;
+
+    private final APIGatewayProxyRequestEvent template = Events.apiRequest("create-task-event.json");
+    private final APIGatewayProxyRequestEvent.ProxyRequestContext[] userContexts;
+    private final String[] operations;
+    private final int[] cumulativeWeights;
+
+    private volatile boolean generating = true;
+
+    LoadHarness(Map<String, String> options) {
+        this.options = options;
+        this.repository = new RecordingTaskRepository(new InMemoryTaskRepository(), stream,
+                longOption("deadline-ms", 0), histogram("create->expiry"));
+        this.router = new TaskApiRouter(repository, ResponseCache.fromEnv());
+        this.streamProcessor = new StreamProcessorHandler(new QueueingSqsClient(expiryQueue), EXPIRY_QUEUE_URL);
+        StubSqsClient notifications = new StubSqsClient();
+        this.expiryHandler = new TaskExpiryHandler(repository, notifications, NOTIFICATION_QUEUE_URL);
+        this.sweeper = new TaskExpirySweeper(repository, new InMemorySweepCheckpointStore(), notifications, NOTIFICATION_QUEUE_URL, Clock.systemUTC(), 15);
+
+        this.userContexts = new APIGatewayProxyRequestEvent.ProxyRequestContext[(int) longOption("users", 100)];
+        Map<String, Object> claims = (Map<String, Object>) template.getRequestContext().getAuthorizer().get("claims");
+        for (int i = 0; i < userContexts.length; i++) {
+            Map<String, Object> userClaims = new HashMap<>(claims);
+            userClaims.put("sub", "load-user-" + i);
+            userContexts[i] = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+            userContexts[i].setAuthorizer(Map.of("claims", userClaims));
+        }
+
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", "create:40,get:30,list:15,update:10,delete:5"));
+        this.operations = mix.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        // Keep the per-invocation metrics lines and the handlers' log output out of the report
+        Metrics.use(new MetricsLogger(OutputStream.nullOutputStream()));
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            new LoadHarness(options).run(out);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    void run(PrintStream out) throws InterruptedException {
+        long rate = longOption("rate", 500);
+        long durationNanos = TimeUnit.SECONDS.toNanos(longOption("duration", 30));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(longOption("warmup", 5));
+        int concurrency = (int) longOption("concurrency", 64);
+
+        List<Thread> pumps = new ArrayList<>();
+        pumps.add(pump("stream-processor", stream, (int) longOption("stream-batch", 100), this::processStream));
+        pumps.add(pump("task-expiry", expiryQueue, (int) longOption("queue-batch", 10), this::processExpiries));
+        Thread sweeps = new Thread(this::sweepPeriodically, "sweeper");
+        sweeps.setDaemon(true);
+        sweeps.start();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long warmupStart = System.nanoTime();
+        long start = warmupStart + warmupNanos;
+        long issued = 0;
+        boolean warm = warmupNanos == 0;
+        for (long intended = warmupStart; intended - start < durationNanos; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!warm && intended - start >= 0) {
+                // Requests still in flight from the warm-up land in the fresh histograms; few enough to ignore
+                histograms.values().forEach(Histogram::reset);
+                statusCodes.clear();
+                warm = true;
+            }
+            long scheduled = intended;
+            workers.execute(() -> invoke(scheduled));
+            if (warm) {
+                issued++;
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        // Let the pipeline catch up with what the API wrote
+        long drainUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(longOption("deadline-ms", 0)
+                + 2 * longOption("sweep-interval-ms", 1000) + 10_000);
+        while (System.nanoTime() < drainUntil && (repository.pending() > 0 || !stream.isEmpty() || !expiryQueue.isEmpty())) {
+            Thread.sleep(50);
+        }
+        generating = false;
+        for (Thread pump : pumps) {
+            pump.join();
+        }
+
+        report(out, rate, issued, elapsedSeconds);
+    }
+
+    /** One API request of a randomly drawn operation, timed from when it was scheduled to start. */
+    private void invoke(long scheduledNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String operation = drawOperation(random);
+        String[] known = knownTasks.get(random.nextInt(KNOWN_TASKS));
+        if (known == null && !"list".equals(operation)) {
+            operation = "create";
+        }
+        int user = known != null ? Integer.parseInt(known[0]) : random.nextInt(userContexts.length);
+
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHeaders(template.getHeaders())
+                .withRequestContext(userContexts[user]);
+        switch (operation) {
+            case "create":
+                request.withHttpMethod("POST").withResource("/tasks").withPath("/tasks")
+                        .withBody("{\"description\": \"Load task " + created.incrementAndGet() + "\", \"date\": \"2024-01-15\"}");
+                break;
+            case "list":
+                request.withHttpMethod("GET").withResource("/tasks").withPath("/tasks")
+                        .withQueryStringParameters(Map.of("limit", "20"));
+                break;
+            case "get":
+            case "update":
+            case "delete":
+                String method = "get".equals(operation) ? "GET" : "update".equals(operation) ? "PUT" : "DELETE";
+                request.withHttpMethod(method).withResource("/tasks/{taskId}").withPath("/tasks/" + known[1])
+                        .withPathParameters(Map.of("taskId", known[1]))
+                        .withBody("update".equals(operation) ? "{\"status\": \"Done\"}" : null);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+
+        APIGatewayProxyResponseEvent response;
+        try {
+            response = router.handleRequest(request, context);
+        } catch (RuntimeException e) {
+            response = new APIGatewayProxyResponseEvent().withStatusCode(599);
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledNanos);
+        histogram("api " + operation).recordValue(micros);
+        histogram("api all").recordValue(micros);
+        statusCodes.computeIfAbsent(response.getStatusCode(), code -> new LongAdder()).increment();
+
+        if ("create".equals(operation) && response.getStatusCode() == 201) {
+            remember(user, response.getBody(), random);
+        }
+    }
+
+    private void remember(int user, String body, ThreadLocalRandom random) {
+        try {
+            JsonNode task = objectMapper.readTree(body);
+            knownTasks.set(random.nextInt(KNOWN_TASKS), new String[] {Integer.toString(user), task.get("taskId").asText()});
+        } catch (Exception e) {
+            // Not remembered; later operations pick another task
+        }
+    }
+
+    private String drawOperation(ThreadLocalRandom random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void processStream(List<DynamodbEvent.DynamodbStreamRecord> records) {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(records);
+        long start = System.nanoTime();
+        streamProcessor.handleRequest(event, context);
+        histogram("stream batch").recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+
+    private void processExpiries(List<SQSEvent.SQSMessage> messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+        long start = System.nanoTime();
+        expiryHandler.handleRequest(event, context);
+        histogram("expiry batch").recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+
+    private void sweepPeriodically() {
+        long interval = longOption("sweep-interval-ms", 1000);
+        while (generating) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = System.nanoTime();
+            sweeper.handleRequest(new ScheduledEvent(), context);
+            histogram("sweep").recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Polls {@code queue} like an event source mapping: whatever has arrived, up to
+     * {@code batchSize}, is handed over as one batch.
+     */
+    private <T> Thread pump(String name, BlockingQueue<T> queue, int batchSize, Consumer<List<T>> handler) {
+        Thread thread = new Thread(() -> {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (generating || !queue.isEmpty()) {
+                try {
+                    T first = queue.poll(50, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                handler.accept(new ArrayList<>(batch));
+                batch.clear();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void report(PrintStream out, long rate, long issued, double elapsedSeconds) {
+        out.printf("Target %d req/s, issued %d requests in %.1f s (%.0f req/s)%n",
+                rate, issued, elapsedSeconds, issued / elapsedSeconds);
+        out.println("Status codes: " + new TreeMap<>(statusCodes));
+        out.println("Tasks created but not expired by the end of the run: " + repository.pending());
+        out.println();
+        out.printf("%-20s %10s %10s %10s %10s %10s%n", "stage", "count", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Histogram> stage : new TreeMap<>(histograms).entrySet()) {
+            Histogram histogram = stage.getValue();
+            out.printf("%-20s %10d %10.3f %10.3f %10.3f %10.3f%n", stage.getKey(), histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    /** Latencies in microseconds, 3 significant digits, growing as needed. */
+    private Histogram histogram(String stage) {
+        return histograms.computeIfAbsent(stage, name -> new ConcurrentHistogram(3));
+    }
+
+    private long longOption(String name, long defaultValue) {
+        String value = options.get(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in --mix, got " + entry);
+            }
+            String operation = parts[0].trim();
+            if (!List.of("create", "get", "list", "update", "delete").contains(operation)) {
+                throw new IllegalArgumentException("Unknown operation in --mix: " + operation);
+            }
+            weights.put(operation, Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one positive weight");
+        }
+        return weights;
+    }
+}
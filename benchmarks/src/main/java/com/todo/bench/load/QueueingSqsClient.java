@@ -0,0 +1,65 @@
+package com.todo.bench.load;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A queue in place of SQS: accepted messages are held as the {@link SQSEvent.SQSMessage}s the
+ * consuming function would receive, with MessageGroupId set for FIFO sends.
+ */
+class QueueingSqsClient implements SqsClient {
+
+    private final BlockingQueue<SQSEvent.SQSMessage> queue;
+    private final AtomicLong messageIds = new AtomicLong();
+
+    QueueingSqsClient(BlockingQueue<SQSEvent.SQSMessage> queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public SendMessageResponse sendMessage(SendMessageRequest request) {
+        String messageId = enqueue(request.messageBody(), request.messageGroupId());
+        return SendMessageResponse.builder().messageId(messageId).build();
+    }
+
+    @Override
+    public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+        List<SendMessageBatchResultEntry> successful = new ArrayList<>(request.entries().size());
+        for (SendMessageBatchRequestEntry entry : request.entries()) {
+            successful.add(SendMessageBatchResultEntry.builder()
+                    .id(entry.id())
+                    .messageId(enqueue(entry.messageBody(), entry.messageGroupId()))
+                    .build());
+        }
+        return SendMessageBatchResponse.builder().successful(successful).build();
+    }
+
+    private String enqueue(String body, String messageGroupId) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(Long.toString(messageIds.incrementAndGet()));
+        message.setBody(body);
+        message.setAttributes(messageGroupId != null ? Map.of("MessageGroupId", messageGroupId) : Map.of());
+        queue.add(message);
+        return message.getMessageId();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {}
+}
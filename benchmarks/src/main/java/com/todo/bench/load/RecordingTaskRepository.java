@@ -0,0 +1,187 @@
+package com.todo.bench.load;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.todo.model.TaskItemCodec;
+import com.todo.model.TaskProjection;
+import com.todo.repository.PageQuery;
+import com.todo.repository.TaskRepository;
+import org.HdrHistogram.Histogram;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the table and its stream: every write is applied to the wrapped repository
+ * and then queued as the INSERT, MODIFY or REMOVE record DynamoDB Streams would deliver.
+ * New tasks get their deadline moved to {@code deadlineDelayMillis} after creation, since
+ * the five minutes CreateTaskHandler sets would outlast most runs. The time from creating
+ * a task to expiring it is recorded in {@code createToExpiry}.
+ */
+class RecordingTaskRepository implements TaskRepository {
+
+    private final TaskRepository delegate;
+    private final BlockingQueue<DynamodbEvent.DynamodbStreamRecord> stream;
+    private final long deadlineDelayMillis;
+    private final Histogram createToExpiry;
+    private final Map<String, Long> createdNanos = new ConcurrentHashMap<>();
+    private final AtomicLong sequenceNumber = new AtomicLong();
+
+    RecordingTaskRepository(TaskRepository delegate, BlockingQueue<DynamodbEvent.DynamodbStreamRecord> stream,
+                            long deadlineDelayMillis, Histogram createToExpiry) {
+        this.delegate = delegate;
+        this.stream = stream;
+        this.deadlineDelayMillis = deadlineDelayMillis;
+        this.createToExpiry = createToExpiry;
+    }
+
+    @Override
+    public Map<String, AttributeValue> get(String userId, String taskId) {
+        return delegate.get(userId, taskId);
+    }
+
+    @Override
+    public Long version(String userId, String taskId, boolean consistentRead) {
+        return delegate.version(userId, taskId, consistentRead);
+    }
+
+    @Override
+    public Map<String, Map<String, AttributeValue>> getAll(String userId, Collection<String> taskIds,
+                                                          TaskProjection projection) {
+        return delegate.getAll(userId, taskIds, projection);
+    }
+
+    @Override
+    public Page query(PageQuery query, boolean versionsOnly) {
+        return delegate.query(query, versionsOnly);
+    }
+
+    @Override
+    public void put(Map<String, AttributeValue> item) {
+        String userId = item.get(TaskItemCodec.USER_ID).s();
+        String taskId = item.get(TaskItemCodec.TASK_ID).s();
+        boolean insert = delegate.get(userId, taskId) == null;
+        if (insert && item.containsKey(TaskItemCodec.DEADLINE)) {
+            item = withDeadline(item, System.currentTimeMillis() + deadlineDelayMillis);
+            createdNanos.put(key(userId, taskId), System.nanoTime());
+        }
+        delegate.put(item);
+        emit(insert ? "INSERT" : "MODIFY", item);
+    }
+
+    @Override
+    public void delete(String userId, String taskId) {
+        delegate.delete(userId, taskId);
+        createdNanos.remove(key(userId, taskId));
+        emit("REMOVE", TaskItemCodec.key(userId, taskId));
+    }
+
+    @Override
+    public Map<String, AttributeValue> update(String userId, String taskId, String description, String status,
+                                              Long deadline, Long expectedVersion) {
+        Map<String, AttributeValue> updated = delegate.update(userId, taskId, description, status, deadline,
+                expectedVersion);
+        emit("MODIFY", updated);
+        return updated;
+    }
+
+    @Override
+    public boolean expire(String userId, String taskId, long nowMillis) {
+        return expired(userId, taskId, delegate.expire(userId, taskId, nowMillis));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> expireAsync(String userId, String taskId, long nowMillis) {
+        return delegate.expireAsync(userId, taskId, nowMillis).thenApply(expired -> expired(userId, taskId, expired));
+    }
+
+    @Override
+    public List<Map<String, AttributeValue>> dueForExpiry(long deadlineBucket, long nowMillis) {
+        return delegate.dueForExpiry(deadlineBucket, nowMillis);
+    }
+
+    @Override
+    public Set<String> writeAll(List<WriteRequest> writes) {
+        for (WriteRequest write : writes) {
+            if (write.putRequest() != null) {
+                put(write.putRequest().item());
+            } else {
+                Map<String, AttributeValue> key = write.deleteRequest().key();
+                delete(key.get(TaskItemCodec.USER_ID).s(), key.get(TaskItemCodec.TASK_ID).s());
+            }
+        }
+        return Set.of();
+    }
+
+    /** Tasks created but not yet expired or deleted. */
+    int pending() {
+        return createdNanos.size();
+    }
+
+    private boolean expired(String userId, String taskId, boolean expired) {
+        if (expired) {
+            Long created = createdNanos.remove(key(userId, taskId));
+            if (created != null) {
+                createToExpiry.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - created));
+            }
+            Map<String, AttributeValue> item = delegate.get(userId, taskId);
+            if (item != null) {
+                emit("MODIFY", item);
+            }
+        }
+        return expired;
+    }
+
+    private void emit(String eventName, Map<String, AttributeValue> item) {
+        Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> image = new HashMap<>();
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            image.put(attribute.getKey(), toStreamValue(attribute.getValue()));
+        }
+
+        StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setKeys(Map.of(
+                TaskItemCodec.USER_ID, image.get(TaskItemCodec.USER_ID),
+                TaskItemCodec.TASK_ID, image.get(TaskItemCodec.TASK_ID)));
+        if ("REMOVE".equals(eventName)) {
+            streamRecord.setOldImage(image);
+        } else {
+            streamRecord.setNewImage(image);
+        }
+        streamRecord.setSequenceNumber(String.format("%021d", sequenceNumber.incrementAndGet()));
+
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventID(streamRecord.getSequenceNumber());
+        record.setEventName(eventName);
+        record.setDynamodb(streamRecord);
+        stream.add(record);
+    }
+
+    private static Map<String, AttributeValue> withDeadline(Map<String, AttributeValue> item, long deadline) {
+        Map<String, AttributeValue> shortened = new HashMap<>(item);
+        shortened.put(TaskItemCodec.DEADLINE, AttributeValue.fromN(Long.toString(deadline)));
+        shortened.put(TaskItemCodec.DEADLINE_BUCKET, AttributeValue.fromN(Long.toString(TaskItemCodec.deadlineBucket(deadline))));
+        shortened.put(TaskItemCodec.EXPIRE_AT, AttributeValue.fromN(Long.toString(deadline / 1000)));
+        return shortened;
+    }
+
+    /** Task items only hold strings and numbers. */
+    private static com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue toStreamValue(AttributeValue value) {
+        com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue streamValue =
+                new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue();
+        return value.n() != null ? streamValue.withN(value.n()) : streamValue.withS(value.s());
+    }
+
+    private static String key(String userId, String taskId) {
+        return userId + '/' + taskId;
+    }
+}
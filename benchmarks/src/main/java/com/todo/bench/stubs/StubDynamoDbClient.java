@@ -0,0 +1,118 @@
+package com.todo.bench.stubs;
+
+import com.todo.model.TaskItemCodec;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process stand-in for the tasks table. Items are kept per UserId partition, sorted by
+ * TaskId, and Query honours Limit/ExclusiveStartKey the way DynamoDB does, so handlers see
+ * realistic page sizes without any network I/O.
+ */
+public class StubDynamoDbClient implements DynamoDbClient {
+
+    private final Map<String, NavigableMap<String, Map<String, AttributeValue>>> partitions = new ConcurrentHashMap<>();
+
+    public void seed(String userId, int count) {
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            String taskId = String.format("task-%08d", i);
+            item.putAll(TaskItemCodec.key(userId, taskId));
+            item.put(TaskItemCodec.DESCRIPTION, AttributeValue.fromS("Seeded task " + i));
+            item.put(TaskItemCodec.STATUS, AttributeValue.fromS(TaskItemCodec.DEFAULT_STATUS));
+            item.put(TaskItemCodec.STATUS_TASK_ID, AttributeValue.fromS(TaskItemCodec.statusTaskId(TaskItemCodec.DEFAULT_STATUS, taskId)));
+            item.put(TaskItemCodec.DEADLINE, AttributeValue.fromN("1700000000000"));
+            item.put(TaskItemCodec.EXPIRE_AT, AttributeValue.fromN("1700000000"));
+            partition(userId).put(taskId, item);
+        }
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        Map<String, AttributeValue> item = request.item();
+        partition(item.get(TaskItemCodec.USER_ID).s()).put(item.get(TaskItemCodec.TASK_ID).s(), new HashMap<>(item));
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        Map<String, AttributeValue> item = partition(request.key().get(TaskItemCodec.USER_ID).s())
+                .get(request.key().get(TaskItemCodec.TASK_ID).s());
+        return GetItemResponse.builder().item(item).build();
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        partition(request.key().get(TaskItemCodec.USER_ID).s()).remove(request.key().get(TaskItemCodec.TASK_ID).s());
+        return DeleteItemResponse.builder().build();
+    }
+
+    /** Supports the "SET #a = :a, #b = :b" expressions the handlers send. */
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        NavigableMap<String, Map<String, AttributeValue>> partition = partition(request.key().get(TaskItemCodec.USER_ID).s());
+        Map<String, AttributeValue> item = partition.computeIfAbsent(request.key().get(TaskItemCodec.TASK_ID).s(),
+                taskId -> new HashMap<>(request.key()));
+        String assignments = request.updateExpression().trim().substring("SET".length());
+        for (String assignment : assignments.split(",")) {
+            String[] sides = assignment.split("=");
+            String name = request.expressionAttributeNames().getOrDefault(sides[0].trim(), sides[0].trim());
+            item.put(name, request.expressionAttributeValues().get(sides[1].trim()));
+        }
+        return UpdateItemResponse.builder().attributes(item).build();
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        String userId = request.expressionAttributeValues().get(":uid").s();
+        NavigableMap<String, Map<String, AttributeValue>> partition = partition(userId);
+        if (request.hasExclusiveStartKey()) {
+            partition = partition.tailMap(request.exclusiveStartKey().get(TaskItemCodec.TASK_ID).s(), false);
+        }
+        int limit = request.limit() != null ? request.limit() : Integer.MAX_VALUE;
+        List<Map<String, AttributeValue>> items = new ArrayList<>(Math.min(limit, partition.size()));
+        Map<String, AttributeValue> lastKey = null;
+        for (Map<String, AttributeValue> item : partition.values()) {
+            if (items.size() == limit) {
+                lastKey = TaskItemCodec.key(userId, items.get(items.size() - 1).get(TaskItemCodec.TASK_ID).s());
+                break;
+            }
+            items.add(item);
+        }
+        QueryResponse.Builder response = QueryResponse.builder().items(items).count(items.size());
+        if (lastKey != null) {
+            response.lastEvaluatedKey(lastKey);
+        }
+        return response.build();
+    }
+
+    private NavigableMap<String, Map<String, AttributeValue>> partition(String userId) {
+        return partitions.computeIfAbsent(userId, id -> new ConcurrentSkipListMap<>());
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,45 @@
+package com.todo.bench.stubs;
+
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Accepts every notification and only counts it. */
+public class StubSnsClient implements SnsClient {
+
+    private final AtomicLong published = new AtomicLong();
+
+    public long published() {
+        return published.get();
+    }
+
+    @Override
+    public PublishResponse publish(PublishRequest request) {
+        return PublishResponse.builder().messageId(Long.toString(published.incrementAndGet())).build();
+    }
+
+    @Override
+    public PublishBatchResponse publishBatch(PublishBatchRequest request) {
+        List<PublishBatchResultEntry> successful = new ArrayList<>(request.publishBatchRequestEntries().size());
+        request.publishBatchRequestEntries().forEach(entry -> successful.add(PublishBatchResultEntry.builder()
+                .id(entry.id())
+                .messageId(Long.toString(published.incrementAndGet()))
+                .build()));
+        return PublishBatchResponse.builder().successful(successful).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {}
+}
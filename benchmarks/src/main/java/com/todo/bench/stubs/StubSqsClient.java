@@ -0,0 +1,45 @@
+package com.todo.bench.stubs;
+
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Accepts every message and only counts it. */
+public class StubSqsClient implements SqsClient {
+
+    private final AtomicLong sent = new AtomicLong();
+
+    public long sent() {
+        return sent.get();
+    }
+
+    @Override
+    public SendMessageResponse sendMessage(SendMessageRequest request) {
+        return SendMessageResponse.builder().messageId(Long.toString(sent.incrementAndGet())).build();
+    }
+
+    @Override
+    public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+        List<SendMessageBatchResultEntry> successful = new ArrayList<>(request.entries().size());
+        request.entries().forEach(entry -> successful.add(SendMessageBatchResultEntry.builder()
+                .id(entry.id())
+                .messageId(Long.toString(sent.incrementAndGet()))
+                .build()));
+        return SendMessageBatchResponse.builder().successful(successful).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {}
+}